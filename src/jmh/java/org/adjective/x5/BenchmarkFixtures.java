@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.command.Environment;
+import org.adjective.x5.io.password.FilePasswordSupplier;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.CertIOException;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+/**
+ * Shared inputs for benchmarks: the sample files from the test resources, and generated (large) inputs
+ */
+public class BenchmarkFixtures {
+
+    public static Path samplesDirectory() {
+        final URL passwords = BenchmarkFixtures.class.getResource("/samples/passwords.txt");
+        if (passwords == null) {
+            throw new IllegalStateException("Cannot find sample files on the classpath");
+        }
+        try {
+            return Paths.get(passwords.toURI()).getParent();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot resolve sample file directory", e);
+        }
+    }
+
+    public static Path sample(String name) {
+        return samplesDirectory().resolve(name);
+    }
+
+    public static byte[] readSample(String name) {
+        try {
+            return Files.readAllBytes(sample(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static PasswordSupplier samplePasswords() throws IOException {
+        return new FilePasswordSupplier(new Environment(), List.of(sample("passwords.txt")));
+    }
+
+    public static KeyPair keyPair() throws GeneralSecurityException {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+
+    public static X509Certificate certificate(String subject, KeyPair keyPair, int serial) throws GeneralSecurityException {
+        final X500Name name = new X500Name(subject);
+        final Date notBefore = new Date();
+        final Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(365));
+        try {
+            return new JcaX509CertificateConverter().getCertificate(
+                new JcaX509v3CertificateBuilder(name, BigInteger.valueOf(serial), notBefore, notAfter, name, keyPair.getPublic()).build(
+                    new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate())
+                )
+            );
+        } catch (OperatorCreationException e) {
+            throw new GeneralSecurityException("Cannot sign certificate", e);
+        }
+    }
+
+    /**
+     * A certificate for {@code publicKey}, issued by {@code issuer}, with subject and authority key identifiers
+     */
+    public static X509Certificate certificate(String subject, PublicKey publicKey, X509Certificate issuer, PrivateKey issuerKey, int serial)
+        throws GeneralSecurityException {
+        final Date notBefore = new Date();
+        final Date notAfter = new Date(notBefore.getTime() + TimeUnit.DAYS.toMillis(365));
+        try {
+            final JcaX509ExtensionUtils extensions = new JcaX509ExtensionUtils();
+            return new JcaX509CertificateConverter().getCertificate(
+                new JcaX509v3CertificateBuilder(issuer, BigInteger.valueOf(serial), notBefore, notAfter, new X500Name(subject), publicKey)
+                    .addExtension(Extension.subjectKeyIdentifier, false, extensions.createSubjectKeyIdentifier(publicKey))
+                    .addExtension(Extension.authorityKeyIdentifier, false, extensions.createAuthorityKeyIdentifier(issuer))
+                    .build(new JcaContentSignerBuilder("SHA256withECDSA").build(issuerKey))
+            );
+        } catch (OperatorCreationException | CertIOException e) {
+            throw new GeneralSecurityException("Cannot sign certificate", e);
+        }
+    }
+
+    /**
+     * A PEM file containing {@code count} unrelated (self-signed) certificates, similar to a CA bundle
+     */
+    public static byte[] pemBundle(int count) throws GeneralSecurityException, IOException {
+        final KeyPair keyPair = keyPair();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JcaPEMWriter writer = new JcaPEMWriter(new OutputStreamWriter(bytes, StandardCharsets.US_ASCII))) {
+            for (int i = 0; i < count; i++) {
+                writer.writeObject(certificate("CN=Benchmark CA " + i + ",OU=Benchmarks,DC=example,DC=net", keyPair, i + 1));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A keystore of the given type, with {@code keyEntries} private key entries and {@code certificateEntries} trusted certificates
+     */
+    public static KeyStore keyStore(String type, int keyEntries, int certificateEntries, char[] password) throws GeneralSecurityException,
+        IOException {
+        final KeyStore keyStore = KeyStore.getInstance(type);
+        keyStore.load(null, null);
+        for (int i = 0; i < keyEntries; i++) {
+            final KeyPair keyPair = keyPair();
+            final X509Certificate certificate = certificate("CN=Benchmark Key " + i, keyPair, i + 1);
+            keyStore.setKeyEntry("key-" + i, keyPair.getPrivate(), password, new Certificate[] { certificate });
+        }
+        final KeyPair caKey = keyPair();
+        for (int i = 0; i < certificateEntries; i++) {
+            keyStore.setCertificateEntry("ca-" + i, certificate("CN=Benchmark CA " + i, caKey, i + 1));
+        }
+        return keyStore;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.cli;
+
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.command.Commands;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandLineParserBenchmark {
+
+    @Param({
+        "read pem/ca1.crt | info",
+        "read -p \"=password\" keystore/simple.p12 | .entry.sample | .public | as Sequence | first | .fingerprint.sha256 | print",
+        "seq( read pem/ca1.key | .private, read pem/ca1.des3.key | as PrivateKey, read pem/ca1.aes128.key | as private-key ) "
+            + "| each ( .algorithm ) | sort | print ; read keystore/multiple-keys.jks | to pkcs12 | write tmp/multiple-keys.p12" })
+    public String commandLine;
+
+    private CommandLineParser parser;
+
+    @Setup(Level.Trial)
+    public void createParser() {
+        parser = new CommandLineParser(new Commands());
+    }
+
+    @Benchmark
+    public CommandLine parse() {
+        return parser.parse(commandLine);
+    }
+}
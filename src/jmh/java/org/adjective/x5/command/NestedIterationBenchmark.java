@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.cli.CommandLine;
+import org.adjective.x5.cli.CommandLineParser;
+import org.adjective.x5.cli.CommandRunner;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs {@code each ( each ( each ( ... ) ) )} over a nested sequence, on top of a stack that already holds {@code stackDepth} values.
+ * Every element of every level duplicates the stack, so this measures the cost of stack duplication in deep pipelines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestedIterationBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+
+    @Param({ "1", "100", "1000" })
+    public int stackDepth;
+
+    @Param({ "10" })
+    public int width;
+
+    private Commands commands;
+    private Context context;
+    private CommandLine commandLine;
+    private ValueSet baseStack;
+    private X5Object input;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        commands = new Commands();
+        context = Context.create(BenchmarkFixtures.samplePasswords(), new Environment(), new Properties());
+        commandLine = new CommandLineParser(commands).parse("each ( each ( each ( equals 1 ) ) )");
+
+        baseStack = new ValueStack();
+        for (int i = 0; i < stackDepth; i++) {
+            baseStack.push(Values.number(i, SOURCE));
+        }
+        input = nested(3);
+    }
+
+    private X5Object nested(int levels) {
+        final List<X5Object> items = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            items.add(levels == 1 ? Values.number(i, SOURCE) : nested(levels - 1));
+        }
+        return new ObjectSequence(items, SOURCE);
+    }
+
+    @Benchmark
+    public X5Object nestedEach() throws Exception {
+        final ValueSet values = baseStack.duplicate();
+        values.push(input);
+        commandLine.execute(new CommandRunner(commands, context, values));
+        return values.pop();
+    }
+
+    @Benchmark
+    public ValueSet duplicate() {
+        return baseStack.duplicate();
+    }
+}
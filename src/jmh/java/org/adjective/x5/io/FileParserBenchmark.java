@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileParserBenchmark {
+
+    private static final String GENERATED_BUNDLE = "generated/bundle.pem";
+
+    @Param({
+        "pem/server2.chain",
+        "pem/ca1.des3.key",
+        "raw/ca1.crt.b64",
+        "keystore/multiple-keys.p12",
+        "keystore/multiple-keys.jks",
+        GENERATED_BUNDLE })
+    public String input;
+
+    private byte[] bytes;
+    private X5File file;
+    private PasswordSupplier passwords;
+
+    @Setup(Level.Trial)
+    public void loadInput() throws Exception {
+        final Path path;
+        if (input.equals(GENERATED_BUNDLE)) {
+            bytes = BenchmarkFixtures.pemBundle(1000);
+            path = Paths.get(input);
+        } else {
+            bytes = BenchmarkFixtures.readSample(input);
+            path = BenchmarkFixtures.sample(input);
+        }
+        passwords = BenchmarkFixtures.samplePasswords();
+        // Only used to identify the file (and find its password), the content is always read from memory
+        file = new RawFile(path, passwords);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws Exception {
+        final X5Object object = FileParser.getInstance().read(new ByteArrayInputStream(bytes), file, passwords);
+        if (object instanceof Sequence) {
+            for (X5Object item : ((Sequence) object).items()) {
+                blackhole.consume(item);
+            }
+        } else {
+            blackhole.consume(object);
+        }
+    }
+}
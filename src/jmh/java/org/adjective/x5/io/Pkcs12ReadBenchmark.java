@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.io.encrypt.Pkcs12EncryptionInfo;
+import org.adjective.x5.io.password.SimplePasswordSupplier;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.FileType;
+import org.adjective.x5.types.PathInfo;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.crypto.Pkcs12Contents;
+import org.adjective.x5.types.crypto.Pkcs12KeyStore;
+import org.adjective.x5.types.value.Password;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.pkcs.Pfx;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares reading a PKCS#12 keystore through {@link FileParser} with the previous approach of buffering the stream (via mark/reset)
+ * and decoding it a second time. Both build a {@link Pkcs12KeyStore} and list the properties of its entries (which reads the
+ * attributes of the key bags). Run with {@code -prof gc} to compare allocation as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Pkcs12ReadBenchmark {
+
+    private static final String PASSWORD = "benchmark";
+
+    @Param({ "10", "1000" })
+    public int entries;
+
+    @Param({ "0", "10" })
+    public int keys;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void createKeyStore() throws Exception {
+        final KeyStore keyStore = BenchmarkFixtures.keyStore("PKCS12", keys, entries, PASSWORD.toCharArray());
+        file = Files.createTempFile("x5-benchmark-", ".p12");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteKeyStore() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) throws Exception {
+        final X5Object store = new RawFile(file, new SimplePasswordSupplier(PASSWORD)).asObject();
+        readEntries((CryptoStore) store, blackhole);
+    }
+
+    @Benchmark
+    public void markAndReparse(Blackhole blackhole) throws Exception {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            in.mark((int) Files.size(file));
+            final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, PASSWORD.toCharArray());
+
+            in.reset();
+            final ASN1InputStream asn1 = new ASN1InputStream(in);
+            final PKCS12PfxPdu pfx = new PKCS12PfxPdu(Pfx.getInstance(asn1.readObject()));
+            final PathInfo source = new PathInfo(file, 0, FileType.PKCS12);
+            final Pkcs12Contents contents = Pkcs12Contents.of(pfx, source, Optional.empty());
+            final Password password = new Password(PASSWORD, source);
+            final Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(source, contents.macAlgorithm(), password);
+            readEntries(new Pkcs12KeyStore(keyStore, contents, source, encryption), blackhole);
+        }
+    }
+
+    private static void readEntries(CryptoStore store, Blackhole blackhole) throws Exception {
+        for (StoreEntry entry : store.entries()) {
+            blackhole.consume(entry.properties().keySet());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of {@link TrimReader} over a large PEM bundle, with {@link PemScanner} (which does the same trimming on raw
+ * bytes, and decodes the PEM blocks) for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrimReaderBenchmark {
+
+    @Param({ "100", "1000" })
+    public int certificates;
+
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void createBundle() throws Exception {
+        bytes = BenchmarkFixtures.pemBundle(certificates);
+    }
+
+    @Benchmark
+    public long trimReader() throws IOException {
+        long count = 0;
+        final char[] chars = new char[8 * 1024];
+        try (Reader reader = new TrimReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.US_ASCII))) {
+            for (int read = reader.read(chars); read != -1; read = reader.read(chars)) {
+                count += read;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void pemScanner(Blackhole blackhole) throws IOException {
+        try (PemScanner scanner = new PemScanner(new ByteArrayInputStream(bytes))) {
+            for (PemObject object = scanner.next(); object != null; object = scanner.next()) {
+                blackhole.consume(object);
+            }
+        }
+    }
+}
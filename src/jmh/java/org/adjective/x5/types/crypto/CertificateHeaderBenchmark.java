@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Queries the subject, issuer, serial number and expiry of every certificate in a large bundle, comparing certificates that are fully
+ * decoded with those that only read their {@link CertificateHeader header}.
+ * The footprint benchmarks keep every certificate, and report the heap retained per certificate as the {@code bytesPerCertificate}
+ * secondary result. These run a single measurement iteration, because JMH sums auxiliary counters over iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CertificateHeaderBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+
+    @Param({ "100000" })
+    public int count;
+
+    private List<byte[]> encoded;
+
+    @Setup(Level.Trial)
+    public void createCertificates() throws GeneralSecurityException {
+        final KeyPair keyPair = BenchmarkFixtures.keyPair();
+        encoded = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String subject = "CN=host-" + i + ".example.net,OU=Benchmarks,DC=example,DC=net";
+            encoded.add(BenchmarkFixtures.certificate(subject, keyPair, i + 1).getEncoded());
+        }
+    }
+
+    @Benchmark
+    public void fullDecode(Blackhole blackhole) throws Exception {
+        for (byte[] der : encoded) {
+            query(new PemCertificate(new X509CertificateHolder(der), SOURCE), blackhole);
+        }
+    }
+
+    @Benchmark
+    public void headerOnly(Blackhole blackhole) throws X5Exception {
+        for (byte[] der : encoded) {
+            query(new DerX509Certificate(der, SOURCE), blackhole);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public List<X509Certificate> fullDecodeFootprint(Footprint footprint, Blackhole blackhole) throws Exception {
+        final long before = usedHeap();
+        final List<X509Certificate> certificates = new ArrayList<>(count);
+        for (byte[] der : encoded) {
+            // Copy the encoding, so that a certificate which retains it is charged for it
+            certificates.add(query(new PemCertificate(new X509CertificateHolder(der.clone()), SOURCE), blackhole));
+        }
+        footprint.bytesPerCertificate = (usedHeap() - before) / count;
+        return certificates;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public List<X509Certificate> headerOnlyFootprint(Footprint footprint, Blackhole blackhole) throws X5Exception {
+        final long before = usedHeap();
+        final List<X509Certificate> certificates = new ArrayList<>(count);
+        for (byte[] der : encoded) {
+            certificates.add(query(new DerX509Certificate(der.clone(), SOURCE), blackhole));
+        }
+        footprint.bytesPerCertificate = (usedHeap() - before) / count;
+        return certificates;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerCertificate;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerCertificate = 0;
+        }
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static X509Certificate query(X509Certificate certificate, Blackhole blackhole) throws X5Exception {
+        blackhole.consume(certificate.subject().value());
+        blackhole.consume(certificate.issuer().value());
+        blackhole.consume(certificate.serialNumber());
+        blackhole.consume(certificate.notAfter());
+        return certificate;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds chains from a shuffled pool of leaf certificates, issued by a set of intermediate CAs under a single root
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChainBuilderBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+    private static final int INTERMEDIATES = 20;
+
+    @Param({ "1000", "10000" })
+    public int leaves;
+
+    private List<X509Certificate> certificates;
+
+    @Setup(Level.Trial)
+    public void createCertificates() throws GeneralSecurityException {
+        final KeyPair rootKey = BenchmarkFixtures.keyPair();
+        final java.security.cert.X509Certificate root = BenchmarkFixtures.certificate("CN=Benchmark Root,DC=example,DC=net", rootKey, 1);
+        final List<java.security.cert.X509Certificate> intermediates = new ArrayList<>(INTERMEDIATES);
+        final List<KeyPair> intermediateKeys = new ArrayList<>(INTERMEDIATES);
+        final List<java.security.cert.X509Certificate> all = new ArrayList<>(leaves + INTERMEDIATES + 1);
+        all.add(root);
+        for (int i = 0; i < INTERMEDIATES; i++) {
+            final KeyPair key = BenchmarkFixtures.keyPair();
+            final String subject = "CN=Benchmark Intermediate " + i + ",DC=example,DC=net";
+            intermediates.add(BenchmarkFixtures.certificate(subject, key.getPublic(), root, rootKey.getPrivate(), i + 2));
+            intermediateKeys.add(key);
+        }
+        all.addAll(intermediates);
+        final KeyPair leafKey = BenchmarkFixtures.keyPair();
+        for (int i = 0; i < leaves; i++) {
+            final int issuer = i % INTERMEDIATES;
+            final String subject = "CN=leaf-" + i + ".example.net";
+            final PrivateKey issuerKey = intermediateKeys.get(issuer).getPrivate();
+            all.add(
+                BenchmarkFixtures.certificate(subject, leafKey.getPublic(), intermediates.get(issuer), issuerKey, i + INTERMEDIATES + 2)
+            );
+        }
+        Collections.shuffle(all, new Random(leaves));
+
+        certificates = new ArrayList<>(all.size());
+        for (java.security.cert.X509Certificate certificate : all) {
+            certificates.add(new JavaX509Certificate(certificate, SOURCE));
+        }
+    }
+
+    @Benchmark
+    public List<CertificateChain> buildChains() throws X5Exception {
+        final ChainBuilder builder = new ChainBuilder();
+        for (X509Certificate certificate : certificates) {
+            builder.add(certificate);
+        }
+        return builder.build();
+    }
+}
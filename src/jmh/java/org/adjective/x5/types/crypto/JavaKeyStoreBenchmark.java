@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.BenchmarkFixtures;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.encrypt.EncryptionInfo;
+import org.adjective.x5.io.encrypt.JksEncryptionInfo;
+import org.adjective.x5.io.encrypt.Pkcs12EncryptionInfo;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JavaKeyStoreBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+    private static final String PASSWORD = "benchmark";
+
+    @Param({ "JKS", "PKCS12" })
+    public String type;
+
+    @Param({ "10", "100" })
+    public int keys;
+
+    private KeyStore keyStore;
+    private EncryptionInfo encryption;
+
+    @Setup(Level.Trial)
+    public void createKeyStore() throws Exception {
+        keyStore = BenchmarkFixtures.keyStore(type, keys, keys, PASSWORD.toCharArray());
+        final Password password = new Password(PASSWORD, SOURCE);
+        if (type.equals("JKS")) {
+            encryption = new JksEncryptionInfo(SOURCE, password);
+        } else {
+            encryption = new Pkcs12EncryptionInfo(SOURCE, NISTObjectIdentifiers.id_sha256, password);
+        }
+    }
+
+    @Benchmark
+    public List<StoreEntry> entries() throws X5Exception {
+        // A new store each time, because the entries are cached
+        return new JavaKeyStore(keyStore, SOURCE, encryption).entries();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.value;
+
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.exception.DnParseException;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DNBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+
+    @Param({
+        "cn=server,dc=example,dc=net",
+        "cn=Intermediate CA,ou=security,dc=example,dc=net",
+        "cn=Smith\\, John+uid=jsmith,ou=People\\+Staff,o=\"Example, Inc.\",l=Sydney,st=NSW,c=AU" })
+    public String dn;
+
+    private X500Name name;
+
+    @Setup(Level.Trial)
+    public void createName() {
+        name = new X500Name(dn);
+    }
+
+    @Benchmark
+    public DN parse() throws DnParseException {
+        return DN.parse(dn, SOURCE);
+    }
+
+    @Benchmark
+    public DN fromX500Name() throws DnParseException {
+        return Values.dn(name, SOURCE);
+    }
+}
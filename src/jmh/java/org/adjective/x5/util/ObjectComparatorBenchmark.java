@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectComparatorBenchmark {
+
+    private static final X5StreamInfo SOURCE = Values.source("benchmark");
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private List<X5Object> objects;
+
+    @Setup(Level.Trial)
+    public void createObjects() throws Exception {
+        final Random random = new Random(size);
+        objects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    objects.add(Values.number(random.nextInt(), SOURCE));
+                    break;
+                case 1:
+                    objects.add(Values.string(Integer.toHexString(random.nextInt()), SOURCE));
+                    break;
+                case 2:
+                    objects.add(Values.bool(random.nextBoolean(), SOURCE));
+                    break;
+                default:
+                    objects.add(Values.dn(new X500Principal("CN=" + random.nextInt(1000) + ",DC=example"), SOURCE));
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<X5Object> sort() {
+        final List<X5Object> copy = new ArrayList<>(objects);
+        copy.sort(ObjectComparator.INSTANCE);
+        return copy;
+    }
+}
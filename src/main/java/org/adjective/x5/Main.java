@@ -15,8 +15,16 @@
 package org.adjective.x5;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.adjective.x5.cli.CommandLine;
@@ -27,12 +35,21 @@ import org.adjective.x5.command.Context;
 import org.adjective.x5.command.Environment;
 import org.adjective.x5.command.ValueSet;
 import org.adjective.x5.command.ValueStack;
+import org.adjective.x5.exception.UncheckedException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.StdIO;
+import org.adjective.x5.io.cache.ParseCache;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
 import org.adjective.x5.io.password.FilePasswordSupplier;
 import org.adjective.x5.io.password.InteractivePasswordSupplier;
+import org.adjective.x5.io.password.NonInteractivePasswordSupplier;
 import org.adjective.x5.io.password.PasswordSupplier;
 import org.adjective.x5.io.password.SimplePasswordSupplier;
+import org.adjective.x5.io.watch.FileWatcher;
+import org.adjective.x5.io.watch.WatchingFileSystem;
+import org.adjective.x5.server.X5Client;
+import org.adjective.x5.server.X5Server;
 
 import joptsimple.NonOptionArgumentSpec;
 import joptsimple.OptionParser;
@@ -40,6 +57,12 @@ import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 
 public class Main {
+    private static final String CONNECT_OPTION = "--connect";
+    /**
+     * In watch mode, the command line is run again once files have stopped changing for this long
+     */
+    private static final Duration WATCH_QUIET_PERIOD = Duration.ofMillis(250);
+
     private final OptionParser parser = new OptionParser();
 
     private final OptionSpec<Void> helpOption = parser.acceptsAll(List.of("h", "help"), "Show help output");
@@ -51,43 +74,155 @@ public class Main {
     private final OptionSpec<String> passwordLiteralOption = parser.acceptsAll(List.of("password"), "Use the specified password everywhere")
         .availableUnless(passwordFileOption)
         .withRequiredArg();
+    private final OptionSpec<String> cacheOption = parser.acceptsAll(
+        List.of("cache"),
+        "Cache the metadata of certificates and trust stores in the specified directory"
+    ).withRequiredArg();
+    private final OptionSpec<Void> statsOption = parser.acceptsAll(
+        List.of("stats"),
+        "Report how many key derivations were avoided by reusing keys, once the command line has finished"
+    );
+    private final OptionSpec<String> serverOption = parser.acceptsAll(
+        List.of("server"),
+        "Run as a resident server, accepting command lines on the specified unix domain socket"
+    ).withRequiredArg();
+    private final OptionSpec<String> connectOption = parser.acceptsAll(
+        List.of(CONNECT_OPTION.substring(2)),
+        "Send this command line to the server on the specified socket (must be the first option)"
+    ).withRequiredArg();
+    private final OptionSpec<Void> watchOption = parser.acceptsAll(
+        List.of("watch"),
+        "Run the command line again whenever any of the files that it reads are changed"
+    );
 
     private final NonOptionArgumentSpec<String> arguments = parser.nonOptions("args");
 
+    private final Commands commands;
+
     public Main() {
         parser.posixlyCorrect(true);
+        commands = new Commands();
     }
 
     public static void main(String[] args) throws IOException {
+        final int exitCode;
+        if (args.length >= 2 && args[0].equals(CONNECT_OPTION)) {
+            // Handled before anything else so that the client does not need to load any of the x5 runtime
+            exitCode = X5Client.connect(Paths.get(args[1]), Arrays.asList(args).subList(2, args.length));
+        } else {
+            exitCode = new Main().run(args, new StdIO(System.out, System.in), System.err, Paths.get("").toAbsolutePath());
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Runs x5 with the provided arguments
+     *
+     * @return the process exit code
+     */
+    public int run(String[] args, StdIO stdio, PrintStream err, Path workingDirectory) throws IOException {
+        final Environment environment = new Environment(System.getenv(), workingDirectory);
+        final PasswordSupplier passwords = new InteractivePasswordSupplier(environment);
+        reportFailures(() -> execute(args, stdio, err, environment, passwords, workingDirectory, false), err);
+        return 0;
+    }
+
+    /**
+     * Runs a command line that was sent to a {@link X5Server}.
+     * This is the same as {@link #run}, except that options that would affect the whole server process (rather than just this request)
+     * are rejected.
+     * Password specifications are resolved in the client's environment, and a password cannot be read interactively, because the
+     * server's console is not the client's.
+     *
+     * @return the process exit code
+     */
+    public int runRequest(String[] args, StdIO stdio, PrintStream err, Path workingDirectory, Map<String, String> environmentVariables)
+        throws IOException {
+        final Environment environment = new Environment(environmentVariables, workingDirectory);
+        final PasswordSupplier passwords = new NonInteractivePasswordSupplier(
+            environment,
+            "interactively in a request to a server (use --password or --password-file)"
+        );
+        reportFailures(() -> execute(args, stdio, err, environment, passwords, workingDirectory, true), err);
+        return 0;
+    }
+
+    private interface Execution {
+        void execute() throws X5Exception, IOException;
+    }
+
+    private void reportFailures(Execution execution, PrintStream err) throws IOException {
         try {
-            new Main().execute(args);
+            execution.execute();
         } catch (X5Exception e) {
-            Debug.error(e, "Command failed");
+            report(e, err);
+        } catch (UncheckedException e) {
+            // Thrown when a lazily loaded value (such as an encrypted keystore entry) cannot be loaded
+            if (e.getCause() instanceof X5Exception) {
+                report((X5Exception) e.getCause(), err);
+            } else {
+                throw e;
+            }
+        }
+    }
 
-            System.err.println();
-            System.err.println("ERROR: " + e.getLocalizedMessage());
-            System.err.println();
+    private void report(X5Exception e, PrintStream err) {
+        Debug.error(e, "Command failed");
 
-            for (Throwable c = e; c != null; c = c.getCause()) {
-                System.err.println("> Caused by " + c.getMessage() + " (" + c.getClass().getName() + ")");
-            }
+        err.println();
+        err.println("ERROR: " + e.getLocalizedMessage());
+        err.println();
+
+        for (Throwable c = e; c != null; c = c.getCause()) {
+            err.println("> Caused by " + c.getMessage() + " (" + c.getClass().getName() + ")");
         }
     }
 
-    private void execute(String[] args) throws X5Exception, IOException {
-        final Environment environment = new Environment();
-        PasswordSupplier passwordSupplier = new InteractivePasswordSupplier(environment);
+    private void execute(
+        String[] args,
+        StdIO stdio,
+        PrintStream err,
+        Environment environment,
+        PasswordSupplier defaultPasswords,
+        Path workingDirectory,
+        boolean serverRequest
+    ) throws X5Exception, IOException {
+        PasswordSupplier passwordSupplier = defaultPasswords;
 
         final OptionSet options = parser.parse(args);
         if (options.has(helpOption)) {
-            parser.printHelpOn(System.out);
+            parser.printHelpOn(stdio.getOutput());
             return;
         }
+        if (serverRequest) {
+            // Debug output is enabled for the whole process, so it would include the passwords of every subsequent request,
+            // and the server handles one request at a time, so watching would block every other client
+            for (OptionSpec<?> option : List.of(debugOption, serverOption, watchOption)) {
+                if (options.has(option)) {
+                    err.println("The --" + option.options().get(0) + " option cannot be sent to a server");
+                    return;
+                }
+            }
+        }
         if (options.has(debugOption)) {
             Debug.enable();
         }
+        if (options.has(connectOption)) {
+            err.println("The " + CONNECT_OPTION + " option must be the first argument");
+            return;
+        }
+        if (options.has(serverOption)) {
+            new X5Server(this, workingDirectory.resolve(serverOption.value(options))).run();
+            return;
+        }
         if (options.has(passwordFileOption)) {
-            passwordSupplier = new FilePasswordSupplier(environment, passwordFileOption.values(options));
+            final List<Path> files = passwordFileOption.values(options)
+                .stream()
+                .map(workingDirectory::resolve)
+                .collect(Collectors.toList());
+            passwordSupplier = new FilePasswordSupplier(environment, files);
         } else if (options.has(passwordLiteralOption)) {
             String password = passwordLiteralOption.value(options);
             Debug.printf("Using literal password [%s]\n", password);
@@ -96,17 +231,67 @@ public class Main {
 
         final List<String> commandArgs = arguments.values(options);
         if (commandArgs.isEmpty()) {
-            System.err.println("Command line is required");
+            err.println("Command line is required");
             return;
         }
         Debug.printf("Command line is [%s]\n", commandArgs.stream().map(s -> "'" + s + "'").collect(Collectors.joining(" ")));
 
-        final Context context = Context.create(passwordSupplier, environment, new Properties());
-        execute(commandArgs, context);
+        final Optional<ParseCache> cache = options.has(cacheOption)
+            ? Optional.of(new ParseCache(workingDirectory.resolve(cacheOption.value(options))))
+            : Optional.empty();
+        try (DerivedKeyCache keyCache = new DerivedKeyCache()) {
+            final Context context = Context.create(
+                passwordSupplier,
+                environment,
+                new Properties(),
+                stdio,
+                workingDirectory,
+                cache,
+                Optional.of(keyCache)
+            );
+            try {
+                if (options.has(watchOption)) {
+                    watch(commandArgs, context, err);
+                } else {
+                    execute(commandArgs, context);
+                }
+            } finally {
+                if (options.has(statsOption)) {
+                    err.println(keyCache.summary());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the command line, and then runs it again each time that any of the files that it read are changed (until interrupted).
+     * Files that have not changed are not parsed again.
+     */
+    private void watch(List<String> commandArgs, Context context, PrintStream err) throws IOException {
+        final WatchingFileSystem fileSystem = new WatchingFileSystem(context.fileSystem());
+        final Context watchContext = context.withFileSystem(fileSystem);
+        try (FileWatcher watcher = new FileWatcher()) {
+            while (true) {
+                // A failure does not stop watching, since it may be resolved by a subsequent change to the files
+                reportFailures(() -> execute(commandArgs, watchContext), err);
+                watchContext.out().flush();
+
+                final Set<Path> files = fileSystem.files();
+                final Set<Path> directories = fileSystem.directories();
+                if (files.isEmpty() && directories.isEmpty()) {
+                    err.println("The command line did not read any files, there is nothing to watch");
+                    return;
+                }
+                watcher.watch(files, directories);
+                final Set<Path> changed = watcher.awaitChanges(WATCH_QUIET_PERIOD);
+                fileSystem.changed(changed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     void execute(List<String> commandArgs, Context context) throws X5Exception {
-        final Commands commands = new Commands();
         final CommandLine cli = new CommandLineParser(commands).parse(commandArgs);
         final ValueSet values = new ValueStack();
         cli.execute(new CommandRunner(commands, context, values));
@@ -16,29 +16,29 @@ package org.adjective.x5.cli;
 
 import java.util.List;
 
+import org.adjective.x5.command.Commands;
+import org.adjective.x5.command.SimpleCommand;
 import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.util.Lazy;
 
 public class CommandExecution implements CommandLine {
     private final String command;
     private final List<String> args;
+    /**
+     * The command is resolved (and its arguments processed) on first use, and then re-used for subsequent executions (e.g. within
+     * {@code each}).
+     */
+    private final Lazy<SimpleCommand.Invocation, X5Exception> invocation;
 
-    public CommandExecution(String command, List<String> args) {
+    public CommandExecution(Commands commands, String command, List<String> args) {
         this.command = command;
         this.args = List.copyOf(args);
-    }
-
-    public CommandExecution(List<String> values) {
-        this.command = values.get(0);
-        if (values.size() == 1) {
-            this.args = List.of();
-        } else {
-            this.args = List.copyOf(values.subList(1, values.size()));
-        }
+        this.invocation = Lazy.lazy(() -> CommandRunner.prepare(commands, this.command, this.args));
     }
 
     @Override
     public void execute(CommandRunner runner) throws X5Exception {
-        runner.execute(command, args);
+        runner.execute(command, invocation.get());
     }
 
     @Override
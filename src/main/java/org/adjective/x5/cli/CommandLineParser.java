@@ -94,11 +94,11 @@ public class CommandLineParser {
             final Token operator = ctx.operator().getChild(TerminalNode.class, 0).getSymbol();
             switch (operator.getType()) {
                 case X5Parser.DOT:
-                    return new CommandExecution("property", args);
+                    return new CommandExecution(commands, "property", args);
                 case X5Parser.EQ:
-                    return new CommandExecution("equals", args);
+                    return new CommandExecution(commands, "equals", args);
                 case X5Parser.NEQ:
-                    return new CommandExecution("not-equals", args);
+                    return new CommandExecution(commands, "not-equals", args);
                 case X5Parser.QUEST:
                 case X5Parser.COLON:
                 default:
@@ -110,7 +110,7 @@ public class CommandLineParser {
         public CommandLine visitCommandExpr(X5Parser.CommandExprContext ctx) {
             final String name = ctx.commandName().getText();
             final List<String> args = parseArguments(ctx.commandArgs());
-            return new CommandExecution(name, args);
+            return new CommandExecution(commands, name, args);
         }
 
         @Override
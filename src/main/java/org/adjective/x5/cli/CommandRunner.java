@@ -15,6 +15,7 @@
 package org.adjective.x5.cli;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.List;
 
 import org.adjective.x5.command.Commands;
@@ -38,10 +39,18 @@ public class CommandRunner {
     }
 
     public void execute(String commandName, List<String> args) throws X5Exception {
+        execute(commandName, prepare(commands, commandName, args));
+    }
+
+    static SimpleCommand.Invocation prepare(Commands commands, String commandName, List<String> args) throws X5Exception {
+        final SimpleCommand cmd = commands.get(commandName);
+        Debug.printf("prepare: %s %s", commandName, args);
+        return cmd.prepare(args);
+    }
+
+    public void execute(String commandName, SimpleCommand.Invocation invocation) throws X5Exception {
         try {
-            SimpleCommand cmd = commands.get(commandName);
-            Debug.printf("execute: %s %s", commandName, args);
-            cmd.execute(context, values, args);
+            invocation.execute(context, values);
         } catch (IOException e) {
             throw new CommandExecutionException("Failed to execute command: " + commandName, e);
         }
@@ -54,4 +63,15 @@ public class CommandRunner {
     public CommandRunner duplicate() {
         return new CommandRunner(commands, context, values.duplicate());
     }
+
+    /**
+     * A duplicate of this runner that writes its output to the provided stream
+     */
+    public CommandRunner duplicate(PrintStream output) {
+        return new CommandRunner(commands, context.withOutput(output), values.duplicate());
+    }
+
+    public PrintStream getOutput() {
+        return context.out();
+    }
 }
@@ -72,7 +72,10 @@ public abstract class AbstractCommand implements Command {
     }
 
     protected X5File read(Context context, String pathName, PasswordSpec password) throws FileReadException {
-        Path path = context.fileSystem().resolve(pathName);
+        return read(context, context.fileSystem().resolve(pathName), password);
+    }
+
+    protected X5File read(Context context, Path path, PasswordSpec password) throws FileReadException {
         try {
             return context.fileSystem().read(path, password);
         } catch (FileNotFoundException e) {
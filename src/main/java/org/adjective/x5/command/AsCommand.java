@@ -14,6 +14,7 @@
 
 package org.adjective.x5.command;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,12 +32,19 @@ public class AsCommand extends AbstractSimpleCommand {
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
         requireArgumentCount(1, args);
-        final X5Object value = values.pop();
         final String typeName = args.get(0);
         final X5Type type = X5Type.find(typeName).orElseThrow(() -> new BadArgumentException("No such type '" + typeName + "'", this));
-        final Optional<? extends X5Object> converted = value.as(type);
-        values.push(converted.orElseThrow(() -> new TypeConversionException(value, type)));
+        return (context, values) -> {
+            final X5Object value = values.pop();
+            final Optional<? extends X5Object> converted = value.as(type);
+            values.push(converted.orElseThrow(() -> new TypeConversionException(value, type)));
+        };
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.types.Certificate;
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.crypto.ChainBuilder;
+
+/**
+ * Takes any collection of certificates (in any order) and produces a sequence that contains a certificate chain for each leaf certificate.
+ */
+public class BuildChainsCommand extends AbstractSimpleCommand {
+
+    @Override
+    public String name() {
+        return "build-chains";
+    }
+
+    @Override
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
+        requireArgumentCount(0, args);
+        final X5Object value = values.pop();
+        final ChainBuilder builder = new ChainBuilder();
+        collect(value, builder);
+        final List<CertificateChain> chains = builder.build();
+        Debug.printf("Built %d chain(s) from %d certificate(s) in %s\n", chains.size(), builder.size(), value.description());
+        values.push(new ObjectSequence(chains, value.getSource().withDescriptionPrefix("chains from")));
+    }
+
+    private void collect(X5Object object, ChainBuilder builder) throws X5Exception {
+        if (object instanceof X509Certificate) {
+            builder.add((X509Certificate) object);
+        } else if (object instanceof CertificateChain) {
+            for (Certificate certificate : ((CertificateChain) object).certificates()) {
+                collect(certificate, builder);
+            }
+        } else if (object instanceof StoreEntry) {
+            // Does not require the entry's key (if any) to be decrypted
+            final Optional<Certificate> certificate = ((StoreEntry) object).certificate();
+            if (certificate.isPresent()) {
+                collect(certificate.get(), builder);
+            }
+        } else {
+            final Optional<Sequence> sequence = object.as(Sequence.class);
+            if (sequence.isPresent()) {
+                for (X5Object item : sequence.get().items()) {
+                    collect(item, builder);
+                }
+            }
+        }
+    }
+}
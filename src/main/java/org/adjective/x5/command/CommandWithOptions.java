@@ -64,8 +64,14 @@ public abstract class CommandWithOptions extends AbstractSimpleCommand {
 
     @Override
     public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) {
         final OptionSet options = parser.parse(args.toArray(new String[0]));
-        this.execute(context, values, options, arguments.values(options));
+        final List<String> nonOptions = arguments.values(options);
+        return (context, values) -> this.execute(context, values, options, nonOptions);
     }
 
     protected abstract void execute(Context context, ValueSet values, OptionSet options, List<String> args) throws X5Exception, IOException;
@@ -33,6 +33,7 @@ public class Commands {
         put(new PropertyCommand());
         put(new PropertiesCommand());
         put(new HexCommand());
+        put(new FingerprintCommand());
         put(new CompareValueCommand(true));
         put(new CompareValueCommand(false));
         // put(new CompareExpressionCommand(true));
@@ -48,10 +49,15 @@ public class Commands {
         put(new FirstCommand());
         put(new LastCommand());
         put(new SortCommand());
-        put(new EachCommand());
+        put(new TopCommand(true));
+        put(new TopCommand(false));
+        put(new BuildChainsCommand());
+        put(new EachCommand(false));
+        put(new EachCommand(true));
         put(new MergeCommand());
         put(new RecurseCommand());
-        put(new FilterCommand());
+        put(new FilterCommand(false));
+        put(new FilterCommand(true));
         put(new SelectCommand());
         put(new KeystoreFunction());
         put(new EntryFunction());
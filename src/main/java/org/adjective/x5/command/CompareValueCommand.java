@@ -36,10 +36,18 @@ public class CompareValueCommand extends AbstractSimpleCommand {
 
     @Override
     public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
         requireArgumentCount(1, args);
         final String val = args.get(0);
-        final X5Object object = values.pop();
-        final boolean cmp = object.isEqualTo(val) == equals;
-        values.push(Values.bool(cmp, object.getSource().withDescriptionPrefix("compare " + val + " to ")));
+        final String description = "compare " + val + " to ";
+        return (context, values) -> {
+            final X5Object object = values.pop();
+            final boolean cmp = object.isEqualTo(val) == equals;
+            values.push(Values.bool(cmp, object.getSource().withDescriptionPrefix(description)));
+        };
     }
 }
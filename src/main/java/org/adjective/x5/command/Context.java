@@ -16,11 +16,16 @@ package org.adjective.x5.command;
 
 import java.io.PrintStream;
 import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.Properties;
 
 import org.adjective.x5.io.FileSys;
 import org.adjective.x5.io.StdIO;
 import org.adjective.x5.io.X5FileSystem;
+import org.adjective.x5.io.cache.ParseCache;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
 import org.adjective.x5.io.password.PasswordSupplier;
 
 public class Context {
@@ -32,8 +37,28 @@ public class Context {
     private final PasswordSupplier passwords;
 
     public static Context create(PasswordSupplier passwordSupplier, Environment environment, Properties properties) {
-        final StdIO stdio = new StdIO(System.out, System.in);
-        return new Context(stdio, new X5FileSystem(passwordSupplier, stdio), passwordSupplier, environment, properties);
+        return create(
+            passwordSupplier,
+            environment,
+            properties,
+            new StdIO(System.out, System.in),
+            Paths.get("").toAbsolutePath(),
+            Optional.empty(),
+            Optional.empty()
+        );
+    }
+
+    public static Context create(
+        PasswordSupplier passwordSupplier,
+        Environment environment,
+        Properties properties,
+        StdIO stdio,
+        Path workingDirectory,
+        Optional<ParseCache> cache,
+        Optional<DerivedKeyCache> keyCache
+    ) {
+        final X5FileSystem fileSystem = new X5FileSystem(passwordSupplier, stdio, workingDirectory, cache, keyCache);
+        return new Context(stdio, fileSystem, passwordSupplier, environment, properties);
     }
 
     public Context(
@@ -58,6 +83,20 @@ public class Context {
         return fileSystem;
     }
 
+    /**
+     * A copy of this context that uses the provided file system
+     */
+    public Context withFileSystem(FileSys fileSystem) {
+        return new Context(stdio, fileSystem, passwords, environment, properties);
+    }
+
+    /**
+     * A copy of this context that writes its output to the provided stream
+     */
+    public Context withOutput(PrintStream output) {
+        return new Context(new StdIO(output, stdio.getInput()), fileSystem, passwords, environment, properties);
+    }
+
     public PrintStream out() {
         return stdio.getOutput();
     }
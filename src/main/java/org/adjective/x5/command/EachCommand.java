@@ -22,9 +22,14 @@ import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.types.X5Object;
 
 public class EachCommand extends IterationCommand {
+
+    public EachCommand(boolean parallel) {
+        super(parallel);
+    }
+
     @Override
     public String name() {
-        return "each";
+        return isParallel() ? "peach" : "each";
     }
 
     @Override
@@ -14,8 +14,32 @@
 
 package org.adjective.x5.command;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * The environment that a command line runs in, which is the environment of the x5 process, or of the client that sent the command
+ * line to a {@link org.adjective.x5.server.X5Server}.
+ */
 public class Environment {
+    private final Map<String, String> variables;
+    private final Path workingDirectory;
+
+    public Environment() {
+        this(Map.of(), Paths.get("").toAbsolutePath());
+    }
+
+    public Environment(Map<String, String> variables, Path workingDirectory) {
+        this.variables = Map.copyOf(variables);
+        this.workingDirectory = workingDirectory;
+    }
+
     public String get(String key) {
-        return null;
+        return variables.get(key);
+    }
+
+    public Path resolve(String path) {
+        return workingDirectory.resolve(path);
     }
 }
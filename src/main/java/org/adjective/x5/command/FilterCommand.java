@@ -22,9 +22,14 @@ import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5Value;
 
 public class FilterCommand extends IterationCommand {
+
+    public FilterCommand(boolean parallel) {
+        super(parallel);
+    }
+
     @Override
     public String name() {
-        return "filter";
+        return isParallel() ? "pfilter" : "filter";
     }
 
     @Override
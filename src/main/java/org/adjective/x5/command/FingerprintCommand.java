@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adjective.x5.exception.BadArgumentException;
+import org.adjective.x5.exception.InvalidTargetException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.BinaryEncoded;
+import org.adjective.x5.types.Certificate;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.ParallelMap;
+import org.adjective.x5.util.Values;
+
+/**
+ * Calculates the fingerprint (digest) of an object's encoded form, or of each object in a sequence (e.g. {@code fingerprint sha384}).
+ * Large sequences are digested in parallel.
+ */
+public class FingerprintCommand extends AbstractSimpleCommand {
+
+    /**
+     * Sequences of (at least) this size are digested in parallel
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    @Override
+    public String name() {
+        return "fingerprint";
+    }
+
+    @Override
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
+        requireArgumentCount(0, 1, args);
+        final Digest digest;
+        if (args.isEmpty()) {
+            digest = Digest.SHA256;
+        } else {
+            digest = Digest.forName(args.get(0))
+                .orElseThrow(() -> new BadArgumentException("Unsupported fingerprint algorithm '" + args.get(0) + "'", this));
+        }
+        return (context, values) -> {
+            final X5Object value = values.pop();
+            if (value instanceof Sequence) {
+                final List<X5Object> items = new ArrayList<>();
+                flatten((Sequence) value, items);
+                final List<X5Object> fingerprints = items.size() >= PARALLEL_THRESHOLD
+                    ? ParallelMap.apply(items, item -> fingerprint(digest, item))
+                    : fingerprint(digest, items);
+                values.push(new ObjectSequence(fingerprints, value.getSource().withDescriptionPrefix(prefix(digest))));
+            } else {
+                values.push(fingerprint(digest, value));
+            }
+        };
+    }
+
+    private static void flatten(Sequence sequence, List<X5Object> items) throws X5Exception {
+        for (X5Object item : sequence.items()) {
+            if (item instanceof Sequence) {
+                flatten((Sequence) item, items);
+            } else {
+                items.add(item);
+            }
+        }
+    }
+
+    private static List<X5Object> fingerprint(Digest digest, List<X5Object> items) throws X5Exception {
+        final List<X5Object> fingerprints = new ArrayList<>(items.size());
+        for (X5Object item : items) {
+            fingerprints.add(fingerprint(digest, item));
+        }
+        return fingerprints;
+    }
+
+    private static X5Object fingerprint(Digest digest, X5Object object) throws X5Exception {
+        final byte[] bytes;
+        if (object instanceof Certificate) {
+            // Certificates remember their fingerprints
+            bytes = ((Certificate) object).fingerprint(digest);
+        } else if (object instanceof BinaryEncoded) {
+            bytes = digest.digest(((BinaryEncoded) object).encodedValue());
+        } else {
+            throw new InvalidTargetException(object, "Cannot calculate the fingerprint of non-binary");
+        }
+        return Values.hexString(bytes, object.getSource().withDescriptionPrefix(prefix(digest)), true);
+    }
+
+    private static String prefix(Digest digest) {
+        return digest.algorithm() + " fingerprint of";
+    }
+}
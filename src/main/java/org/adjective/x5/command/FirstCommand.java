@@ -14,6 +14,8 @@
 
 package org.adjective.x5.command;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +23,7 @@ import org.adjective.x5.exception.InvalidTargetException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.types.Sequence;
 import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.Iterables;
 
 public class FirstCommand extends AbstractSimpleCommand {
 
@@ -30,16 +33,21 @@ public class FirstCommand extends AbstractSimpleCommand {
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
         requireArgumentCount(0, args);
         final X5Object value = values.pop();
         final Optional<Sequence> optSeq = value.as(Sequence.class);
         final Sequence seq = optSeq.orElseThrow(() -> new InvalidTargetException(value, "Cannot get 'first' element on non-sequence"));
 
-        var itr = seq.items().iterator();
-        if (itr.hasNext() == false) {
-            throw new InvalidTargetException(seq, "Cannot get first element of empty sequence");
+        final Iterator<? extends X5Object> itr = seq.items().iterator();
+        try {
+            if (itr.hasNext() == false) {
+                throw new InvalidTargetException(seq, "Cannot get first element of empty sequence");
+            }
+            values.push(itr.next());
+        } finally {
+            // The rest of the sequence is not needed, so release anything that the iterator is reading from
+            Iterables.close(itr);
         }
-        values.push(itr.next());
     }
 }
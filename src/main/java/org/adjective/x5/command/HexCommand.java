@@ -14,6 +14,7 @@
 
 package org.adjective.x5.command;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,7 +35,12 @@ public class HexCommand extends AbstractSimpleCommand {
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
         requireArgumentCount(0, 2, args);
 
         final String separator;
@@ -49,7 +55,10 @@ public class HexCommand extends AbstractSimpleCommand {
         } else {
             numChars = 2;
         }
+        return (context, values) -> hex(values, separator, numChars);
+    }
 
+    private void hex(ValueSet values, String separator, int numChars) throws X5Exception {
         final X5Object val = values.pop();
         final Optional<X5Number> optNum = val.as(X5Type.NUMBER);
         if (optNum.isPresent()) {
@@ -14,6 +14,8 @@
 
 package org.adjective.x5.command;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -21,15 +23,25 @@ import java.util.Optional;
 import org.adjective.x5.cli.ChainedCommandLine;
 import org.adjective.x5.cli.CommandLine;
 import org.adjective.x5.cli.CommandRunner;
-import org.adjective.x5.cli.MultipleCommandLine;
 import org.adjective.x5.exception.CommandExecutionException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.types.ObjectSequence;
 import org.adjective.x5.types.Sequence;
 import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.ParallelMap;
 
 abstract class IterationCommand extends AbstractFunction implements CommandLineFunction {
 
+    private final boolean parallel;
+
+    protected IterationCommand(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    protected boolean isParallel() {
+        return parallel;
+    }
+
     @Override
     public void apply(CommandRunner runner, List<CommandLine> args) throws X5Exception {
         final X5Object pop = runner.getValues().pop();
@@ -48,17 +60,65 @@ abstract class IterationCommand extends AbstractFunction implements CommandLineF
 
     protected void apply(CommandRunner runner, List<CommandLine> args, Sequence sequence) throws X5Exception {
         final CommandLine body = new ChainedCommandLine(args);
-        final List<X5Object> result = new ArrayList<>();
-        for (X5Object object : sequence.items()) {
-            CommandRunner childRunner = runner.duplicate();
-            ValueSet childValues = childRunner.getValues();
-            childValues.push(object);
-            body.execute(childRunner);
-            List<X5Object> eval = evaluate(object, childValues);
-            result.addAll(eval);
+        final List<X5Object> result;
+        if (parallel) {
+            result = applyParallel(runner, body, sequence);
+        } else {
+            result = new ArrayList<>();
+            for (X5Object object : sequence.items()) {
+                result.addAll(evaluate(runner, body, object));
+            }
         }
         runner.getValues().push(new ObjectSequence(result, sequence.getSource().withDescriptionPrefix(name() + " of")));
     }
 
+    private List<X5Object> evaluate(CommandRunner runner, CommandLine body, X5Object object) throws X5Exception {
+        CommandRunner childRunner = runner.duplicate();
+        ValueSet childValues = childRunner.getValues();
+        childValues.push(object);
+        body.execute(childRunner);
+        return evaluate(object, childValues);
+    }
+
+    /**
+     * Evaluates each item on the common fork-join pool, with its own duplicate of the runner.
+     * Each item's output is buffered, and written in the order of the items once they are all evaluated. If an item fails, then the
+     * output is written up to (and including) that item, as it would be if the items were evaluated one at a time.
+     */
+    private List<X5Object> applyParallel(CommandRunner runner, CommandLine body, Sequence sequence) throws X5Exception {
+        final List<Integer> indices = new ArrayList<>();
+        final List<X5Object> items = new ArrayList<>();
+        for (X5Object item : sequence.items()) {
+            indices.add(items.size());
+            items.add(item);
+        }
+
+        // Each task only sets its own indices, and ParallelMap makes those writes visible once it returns (or throws)
+        final ByteArrayOutputStream[] output = new ByteArrayOutputStream[items.size()];
+        final boolean[] evaluated = new boolean[items.size()];
+        try {
+            final List<X5Object> result = new ArrayList<>(items.size());
+            for (List<X5Object> r : ParallelMap.apply(indices, index -> {
+                output[index] = new ByteArrayOutputStream();
+                final CommandRunner itemRunner = runner.duplicate(new PrintStream(output[index]));
+                final List<X5Object> objects = evaluate(itemRunner, body, items.get(index));
+                evaluated[index] = true;
+                return objects;
+            })) {
+                result.addAll(r);
+            }
+            return result;
+        } finally {
+            final PrintStream out = runner.getOutput();
+            for (int i = 0; i < output.length && output[i] != null; i++) {
+                out.writeBytes(output[i].toByteArray());
+                if (evaluated[i] == false) {
+                    break;
+                }
+            }
+            out.flush();
+        }
+    }
+
     protected abstract List<X5Object> evaluate(X5Object sourceObject, ValueSet childValues) throws X5Exception;
 }
@@ -117,8 +117,7 @@ public class KeystoreFunction extends AbstractFunction implements CommandLineFun
         if (store.findEntry(name).isEmpty()) {
             return name;
         }
-        int index = 1;
-        for (;;) {
+        for (int index = 1;; index++) {
             var alias = name + "-" + index;
             if (store.findEntry(alias).isEmpty()) {
                 return alias;
@@ -14,6 +14,7 @@
 
 package org.adjective.x5.command;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,19 +32,26 @@ public class MergeCommand extends AbstractSimpleCommand {
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
-        X5Object obj = values.pop();
-        if (args.size() == 1) {
-            final int count = integerArgument(args, 0);
-            for (int i = 0; i < count; i++) {
-                obj = merge(obj, values.pop());
-            }
-        } else {
-            while (values.hasValue()) {
-                obj = merge(obj, values.pop());
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
+        final int count = args.size() == 1 ? integerArgument(args, 0) : -1;
+        return (context, values) -> {
+            X5Object obj = values.pop();
+            if (count >= 0) {
+                for (int i = 0; i < count; i++) {
+                    obj = merge(obj, values.pop());
+                }
+            } else {
+                while (values.hasValue()) {
+                    obj = merge(obj, values.pop());
+                }
             }
-        }
-        values.push(obj);
+            values.push(obj);
+        };
     }
 
     private X5Object merge(X5Object obj1, X5Object obj2) throws X5Exception {
@@ -14,15 +14,10 @@
 
 package org.adjective.x5.command;
 
-import static org.adjective.x5.util.Values.nullValue;
-
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import org.adjective.x5.exception.ValueSetException;
 import org.adjective.x5.exception.X5Exception;
-import org.adjective.x5.types.X5Object;
 
 public class PropertyCommand extends AbstractSimpleCommand {
     @Override
@@ -31,41 +26,15 @@ public class PropertyCommand extends AbstractSimpleCommand {
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
-        requireMinimumArgumentCount(1, args);
-        X5Object object = values.pop();
-        object = resolveProperty(object, args);
-        values.push(object);
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
     }
 
-    static X5Object resolveProperty(X5Object target, List<String> args) throws ValueSetException {
-        String scope = null;
-        final List<String> names = args.stream().map(s -> s.split("\\.")).flatMap(Arrays::stream).collect(Collectors.toList());
-        for (String propertyName : names) {
-            boolean optional = false;
-            if (propertyName.endsWith("?")) {
-                propertyName = propertyName.substring(0, propertyName.length() - 1);
-                optional = true;
-            }
-            if (scope != null) {
-                propertyName = scope + "." + propertyName;
-            }
-            X5Object property = target.properties().get(propertyName);
-            if (property == null && optional == false) {
-                scope = propertyName;
-            } else {
-                scope = null;
-                if (property == null) {
-                    target = nullValue(target.getSource().withDescriptionPrefix("missing property '" + propertyName + "' of"));
-                } else {
-                    target = property;
-                }
-            }
-        }
-        if (scope != null) {
-            throw new ValueSetException("Property " + scope + " does not exist on " + target.description());
-        }
-        return target;
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
+        requireMinimumArgumentCount(1, args);
+        final PropertyPath path = new PropertyPath(args);
+        return (context, values) -> values.push(path.resolve(values.pop()));
     }
 
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.adjective.x5.util.Values.nullValue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.exception.ValueSetException;
+import org.adjective.x5.types.X5Object;
+
+/**
+ * A (pre-parsed) sequence of property names, such as {@code validity.not_after} or {@code subject-alternative-name.dns?}
+ */
+class PropertyPath {
+    private final boolean[] optional;
+    /**
+     * Property names may contain dots, so {@code names[i][j]} is the name formed by joining elements {@code i} to {@code j}
+     */
+    private final String[][] names;
+
+    PropertyPath(List<String> args) {
+        final List<String> elements = args.stream().map(s -> s.split("\\.")).flatMap(Arrays::stream).collect(Collectors.toList());
+        final int count = elements.size();
+        this.optional = new boolean[count];
+        this.names = new String[count][count];
+        for (int i = 0; i < count; i++) {
+            String element = elements.get(i);
+            if (element.endsWith("?")) {
+                optional[i] = true;
+                element = element.substring(0, element.length() - 1);
+            }
+            elements.set(i, element);
+        }
+        for (int i = 0; i < count; i++) {
+            names[i][i] = elements.get(i);
+            for (int j = i + 1; j < count; j++) {
+                names[i][j] = names[i][j - 1] + "." + elements.get(j);
+            }
+        }
+    }
+
+    X5Object resolve(X5Object target) throws ValueSetException {
+        int scope = -1;
+        for (int i = 0; i < optional.length; i++) {
+            final String propertyName = names[scope == -1 ? i : scope][i];
+            X5Object property = target.properties().get(propertyName);
+            if (property == null && optional[i] == false) {
+                if (scope == -1) {
+                    scope = i;
+                }
+            } else {
+                scope = -1;
+                if (property == null) {
+                    target = nullValue(target.getSource().withDescriptionPrefix("missing property '" + propertyName + "' of"));
+                } else {
+                    target = property;
+                }
+            }
+        }
+        if (scope != -1) {
+            throw new ValueSetException("Property " + names[scope][optional.length - 1] + " does not exist on " + target.description());
+        }
+        return target;
+    }
+}
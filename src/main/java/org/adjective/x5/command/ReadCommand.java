@@ -14,11 +14,25 @@
 
 package org.adjective.x5.command;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.adjective.x5.exception.FileReadException;
+import org.adjective.x5.exception.UncheckedException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.password.PasswordSpec;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.StreamingSequence;
 import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.Values;
 
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -38,15 +52,108 @@ public class ReadCommand extends CommandWithOptions {
 
     @Override
     public void execute(Context context, ValueSet values, OptionSet options, List<String> args) throws X5Exception {
-        requireArgumentCount(1, args);
+        requireMinimumArgumentCount(1, args);
         final PasswordSpec password;
         if (options.has(passwordOption)) {
             password = passwordOption.value(options);
         } else {
             password = null;
         }
-        X5File file = read(context, args.get(0), password);
-        values.push(file.asObject());
+
+        final List<Path> paths = new ArrayList<>();
+        for (String arg : args) {
+            paths.addAll(expand(context, arg));
+        }
+
+        if (args.size() == 1 && paths.size() == 1 && paths.get(0).equals(context.fileSystem().resolve(args.get(0)))) {
+            X5File file = read(context, args.get(0), password);
+            values.push(file.asObject());
+        } else {
+            final List<X5File> files = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                files.add(read(context, path, password));
+            }
+            values.push(new ObjectSequence(parse(files), Values.source(String.join(" ", args))));
+        }
+    }
+
+    private List<Path> expand(Context context, String pathName) throws FileReadException {
+        try {
+            final List<Path> paths = context.fileSystem().expand(pathName);
+            if (paths.isEmpty()) {
+                throw new FileNotFoundException("No files match " + pathName);
+            }
+            return paths;
+        } catch (IOException e) {
+            throw new FileReadException(context.fileSystem().resolve(pathName), e);
+        }
+    }
+
+    /**
+     * Parses each of the files on a bounded pool, and returns the objects in the same order as the files.
+     * A PEM bundle is read in full by the pool (see {@link #readAll}), rather than as its objects are used.
+     */
+    private List<X5Object> parse(List<X5File> files) throws X5Exception {
+        if (files.size() < 2) {
+            final List<X5Object> objects = new ArrayList<>(files.size());
+            for (X5File file : files) {
+                objects.add(file.asObject());
+            }
+            return objects;
+        }
+
+        final int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "x5-read");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<X5Object>> futures = new ArrayList<>(files.size());
+            for (X5File file : files) {
+                futures.add(executor.submit(() -> readAll(file)));
+            }
+            final List<X5Object> objects = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                objects.add(await(futures.get(i), files.get(i)));
+            }
+            return objects;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A {@link StreamingSequence} would parse its objects on whichever thread iterates it, so they are read here, and retained
+     */
+    private static X5Object readAll(X5File file) throws IOException, X5Exception {
+        final X5Object object = file.asObject();
+        if (object instanceof StreamingSequence) {
+            try (StreamingSequence sequence = (StreamingSequence) object) {
+                final List<X5Object> objects = new ArrayList<>();
+                sequence.items().forEach(objects::add);
+                return new ObjectSequence(objects, sequence.getSource());
+            }
+        }
+        return object;
+    }
+
+    private X5Object await(Future<X5Object> future, X5File file) throws X5Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileReadException(file.path(), e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof X5Exception) {
+                throw (X5Exception) cause;
+            }
+            if (cause instanceof UncheckedException) {
+                throw (UncheckedException) cause;
+            }
+            throw new FileReadException(file.path(), cause);
+        }
     }
 
 }
@@ -37,10 +37,17 @@ public class SelectCommand extends AbstractSimpleCommand {
 
     @Override
     public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
         requireMinimumArgumentCount(1, args);
-        final X5Record record = popStack(values, X5Type.RECORD);
-        final X5Record result = record.filter(buildPredicate(args));
-        values.push(result);
+        final BiPredicate<String, X5Object> predicate = buildPredicate(args);
+        return (context, values) -> {
+            final X5Record record = popStack(values, X5Type.RECORD);
+            values.push(record.filter(predicate));
+        };
     }
 
     static BiPredicate<String, X5Object> buildPredicate(List<String> args) {
@@ -28,4 +28,20 @@ public interface SimpleCommand extends Command {
 
     void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException;
 
+    /**
+     * Processes the arguments for this command so that it can be executed (potentially many times) without processing them again.
+     * Commands that parse or validate their arguments should do so here.
+     */
+    default Invocation prepare(List<String> args) throws X5Exception {
+        return (context, values) -> execute(context, values, args);
+    }
+
+    /**
+     * A command with its arguments already processed
+     */
+    @FunctionalInterface
+    interface Invocation {
+        void execute(Context context, ValueSet values) throws X5Exception, IOException;
+    }
+
 }
@@ -14,9 +14,9 @@
 
 package org.adjective.x5.command;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,42 +25,62 @@ import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.types.ObjectSequence;
 import org.adjective.x5.types.Sequence;
 import org.adjective.x5.types.X5Object;
-import org.adjective.x5.util.ObjectComparator;
 
+/**
+ * Sorts a sequence, either by the values in the sequence, or by a property of each value (e.g. {@code sort validity.not_after}).
+ * The sort key is calculated once for each value, before sorting.
+ */
 public class SortCommand extends AbstractSimpleCommand {
 
+    /**
+     * Sequences of (at least) this size are sorted in parallel
+     */
+    static final int PARALLEL_THRESHOLD = 8192;
+
     @Override
     public String name() {
         return "sort";
     }
 
     @Override
-    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception {
-        requireArgumentCount(0, args);
-        final X5Object value = values.pop();
-        final Optional<Sequence> optSeq = value.as(Sequence.class);
-        final Sequence seq = optSeq.orElseThrow(() -> new InvalidTargetException(value, "Cannot sort non-sequence"));
-        final Sequence sorted = sorted(seq);
-        values.push(sorted);
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
     }
 
-    private Sequence sorted(Sequence seq) throws X5Exception {
-        return new ObjectSequence(sorted(seq.items()), seq.getSource().withDescriptionPrefix("sorted"));
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
+        final Optional<PropertyPath> key = sortKey(args);
+        return (context, values) -> {
+            final X5Object value = values.pop();
+            final Optional<Sequence> optSeq = value.as(Sequence.class);
+            final Sequence seq = optSeq.orElseThrow(() -> new InvalidTargetException(value, "Cannot sort non-sequence"));
+            values.push(new ObjectSequence(sort(seq.items(), key), seq.getSource().withDescriptionPrefix("sorted")));
+        };
     }
 
-    private List<X5Object> sorted(Iterable<? extends X5Object> items) {
-        if (items instanceof Collection) {
-            return sort(new ArrayList<>((Collection<? extends X5Object>) items));
-        }
-        final List<X5Object> list = new ArrayList<>();
-        for (var i : items) {
-            list.add(i);
-        }
-        return sort(list);
+    /**
+     * Both {@code validity.not_after} and {@code by validity.not_after} are accepted
+     */
+    static Optional<PropertyPath> sortKey(List<String> args) {
+        final List<String> path = args.size() > 1 && args.get(0).equals("by") ? args.subList(1, args.size()) : args;
+        return path.isEmpty() ? Optional.empty() : Optional.of(new PropertyPath(path));
     }
 
-    private List<X5Object> sort(List<X5Object> list) {
-        Collections.sort(list, ObjectComparator.INSTANCE);
-        return list;
+    private List<X5Object> sort(Iterable<? extends X5Object> items, Optional<PropertyPath> key) throws X5Exception {
+        final List<SortKey> keyed = new ArrayList<>();
+        for (X5Object item : items) {
+            keyed.add(new SortKey(key.isPresent() ? key.get().resolve(item) : item, item, keyed.size()));
+        }
+        final SortKey[] array = keyed.toArray(SortKey[]::new);
+        if (array.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(array, SortKey.ORDER);
+        } else {
+            Arrays.sort(array, SortKey.ORDER);
+        }
+        final List<X5Object> sorted = new ArrayList<>(array.length);
+        for (SortKey k : array) {
+            sorted.add(k.item);
+        }
+        return sorted;
     }
 }
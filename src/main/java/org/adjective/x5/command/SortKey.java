@@ -0,0 +1,42 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import java.util.Comparator;
+
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.ObjectComparator;
+
+/**
+ * An item to be sorted, with its (pre-calculated) sort key and its position in the original sequence
+ */
+final class SortKey {
+
+    /**
+     * Orders by key, and then by original position, so that the order is stable regardless of the sort algorithm
+     */
+    static final Comparator<SortKey> ORDER = Comparator.<SortKey, X5Object>comparing(k -> k.key, ObjectComparator.INSTANCE)
+        .thenComparingLong(k -> k.index);
+
+    final X5Object key;
+    final X5Object item;
+    final long index;
+
+    SortKey(X5Object key, X5Object item, long index) {
+        this.key = key;
+        this.item = item;
+        this.index = index;
+    }
+}
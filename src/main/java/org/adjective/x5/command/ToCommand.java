@@ -36,10 +36,6 @@ import org.adjective.x5.types.crypto.Pkcs12KeyStore;
 import org.adjective.x5.types.value.Password;
 import org.adjective.x5.util.X5BiFunction;
 import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
-import org.bouncycastle.pkcs.PKCS12PfxPdu;
-import org.bouncycastle.pkcs.PKCS12PfxPduBuilder;
-import org.bouncycastle.pkcs.PKCSException;
-import org.bouncycastle.pkcs.bc.BcPKCS12MacCalculatorBuilder;
 
 public class ToCommand extends AbstractSimpleCommand {
 
@@ -102,19 +98,12 @@ public class ToCommand extends AbstractSimpleCommand {
 
     private CryptoStore toPkcs12(CryptoStore originalStore, Context context) throws X5Exception {
         return convertJavaKeystore(originalStore, context, "pkcs12", (ks, password) -> {
-            try {
-                final Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(this.getSource(), OIWObjectIdentifiers.idSHA1, password);
-                final PKCS12PfxPdu pfx = new PKCS12PfxPduBuilder()
-                        .build(new BcPKCS12MacCalculatorBuilder(), password.chars());
-                return new Pkcs12KeyStore(
-                    ks,
-                    pfx,
-                    originalStore.getSource().withDescriptionPrefix("to-pkcs12").withFileType(FileType.PKCS12),
-                    encryption
-                );
-            } catch (PKCSException e) {
-                throw new CryptoStoreException("Failed to generate PKCS#12 keystore", e);
-            }
+            final Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(this.getSource(), OIWObjectIdentifiers.idSHA1, password);
+            return new Pkcs12KeyStore(
+                ks,
+                originalStore.getSource().withDescriptionPrefix("to-pkcs12").withFileType(FileType.PKCS12),
+                encryption
+            );
         });
     }
 
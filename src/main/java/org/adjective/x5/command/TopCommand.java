@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import org.adjective.x5.exception.BadArgumentException;
+import org.adjective.x5.exception.InvalidTargetException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+
+/**
+ * Selects the first ({@code top}) or last ({@code bottom}) <em>n</em> items that {@code sort} would produce, without sorting the
+ * whole sequence. Items are streamed through a heap that holds (at most) <em>n</em> items.
+ * Nested sequences are flattened, so the items are selected as if {@code sort} were applied to the flattened sequence.
+ */
+public class TopCommand extends AbstractSimpleCommand {
+
+    private final boolean top;
+
+    public TopCommand(boolean top) {
+        this.top = top;
+    }
+
+    @Override
+    public String name() {
+        return top ? "top" : "bottom";
+    }
+
+    @Override
+    public void execute(Context context, ValueSet values, List<String> args) throws X5Exception, IOException {
+        prepare(args).execute(context, values);
+    }
+
+    @Override
+    public Invocation prepare(List<String> args) throws X5Exception {
+        requireMinimumArgumentCount(1, args);
+        final int count = integerArgument(args.subList(0, 1), 0);
+        if (count < 0) {
+            throw new BadArgumentException("The '" + name() + "' command requires a count that is not negative", this);
+        }
+        final Optional<PropertyPath> key = SortCommand.sortKey(args.subList(1, args.size()));
+        return (context, values) -> {
+            final X5Object value = values.pop();
+            final Optional<Sequence> optSeq = value.as(Sequence.class);
+            final Sequence seq = optSeq.orElseThrow(() -> new InvalidTargetException(value, "Cannot select from non-sequence"));
+            final Selection selection = new Selection(count, key);
+            for (X5Object item : seq.items()) {
+                selection.offer(item);
+            }
+            values.push(new ObjectSequence(selection.result(), seq.getSource().withDescriptionPrefix(name() + " " + count + " of")));
+        };
+    }
+
+    private class Selection {
+        private final int count;
+        private final Optional<PropertyPath> key;
+        /**
+         * The order in which items are preferred; the selected items are the first {@link #count} items in this order
+         */
+        private final Comparator<SortKey> preference;
+        /**
+         * The head of the heap is the least preferred item that is currently selected
+         */
+        private final PriorityQueue<SortKey> heap;
+        private long index;
+
+        private Selection(int count, Optional<PropertyPath> key) {
+            this.count = count;
+            this.key = key;
+            this.preference = top ? SortKey.ORDER : SortKey.ORDER.reversed();
+            this.heap = new PriorityQueue<>(Math.max(1, count), preference.reversed());
+            this.index = 0;
+        }
+
+        private void offer(X5Object item) throws X5Exception {
+            if (item instanceof Sequence) {
+                // A nested sequence (e.g. one file from a multi-file read) is selected from item by item, whether or not there is a key
+                for (X5Object child : ((Sequence) item).items()) {
+                    offer(child);
+                }
+                return;
+            }
+            final X5Object itemKey = key.isPresent() ? key.get().resolve(item) : item;
+            final SortKey sortKey = new SortKey(itemKey, item, index++);
+            if (heap.size() < count) {
+                heap.add(sortKey);
+            } else if (count > 0 && preference.compare(sortKey, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(sortKey);
+            }
+        }
+
+        private List<X5Object> result() {
+            final List<SortKey> selected = new ArrayList<>(heap);
+            selected.sort(SortKey.ORDER);
+            final List<X5Object> items = new ArrayList<>(selected.size());
+            for (SortKey k : selected) {
+                items.add(k.item);
+            }
+            return items;
+        }
+    }
+}
@@ -14,53 +14,63 @@
 
 package org.adjective.x5.command;
 
-import java.util.Deque;
-import java.util.LinkedList;
-
 import org.adjective.x5.exception.ValueSetException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.types.X5Object;
 
+/**
+ * A stack backed by an immutable linked list, so that {@link #duplicate() duplicates} share their contents with the original and
+ * the cost of duplicating a stack does not depend on its depth.
+ */
 public class ValueStack implements ValueSet {
 
-    private Deque<X5Object> stack;
+    private static final class Node {
+        private final X5Object value;
+        private final Node next;
+
+        private Node(X5Object value, Node next) {
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private Node top;
 
     public ValueStack() {
-        this(new LinkedList<>());
+        this(null);
     }
 
-    private ValueStack(Deque<X5Object> stack) {
-        this.stack = stack;
+    private ValueStack(Node top) {
+        this.top = top;
     }
 
     @Override
     public boolean hasValue() {
-        return this.stack.size() > 0;
+        return this.top != null;
     }
 
     @Override
     public X5Object pop() throws X5Exception {
-        if (stack.isEmpty()) {
-            throw new ValueSetException("Attempt to use a stack value that does not exist");
-        }
-        return stack.pop();
+        final X5Object value = peek();
+        top = top.next;
+        return value;
     }
 
     @Override
     public X5Object peek() throws X5Exception {
-        if (stack.isEmpty()) {
+        if (top == null) {
             throw new ValueSetException("Attempt to use a stack value that does not exist");
         }
-        return stack.peek();
+        return top.value;
     }
 
     @Override
     public void push(X5Object object) {
-        stack.push(object);
+        top = new Node(object, top);
     }
 
     @Override
     public ValueSet duplicate() {
-        return new ValueStack(new LinkedList<>(this.stack));
+        return new ValueStack(this.top);
     }
 }
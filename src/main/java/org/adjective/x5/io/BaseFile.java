@@ -16,13 +16,19 @@ import java.nio.file.Path;
 
 public abstract class BaseFile implements X5File {
     private final Path path;
+    private final FileParser parser;
     private final CheckedSupplier<X5Object, X5Exception> object;
 
     public BaseFile(Path path, PasswordSupplier passwordSupplier) {
+        this(path, passwordSupplier, FileParser.getInstance());
+    }
+
+    public BaseFile(Path path, PasswordSupplier passwordSupplier, FileParser parser) {
         this.path = path;
+        this.parser = parser;
         this.object = Lazy.lazy(() -> {
-            try (InputStream in = open()) {
-                return FileParser.getInstance().read(in, this, passwordSupplier);
+            try {
+                return parse(passwordSupplier);
             } catch (IOException e) {
                 throw new FileReadException(path, e);
             }
@@ -49,5 +55,14 @@ public abstract class BaseFile implements X5File {
         return object.get();
     }
 
+    protected X5Object parse(PasswordSupplier passwordSupplier) throws IOException, X5Exception {
+        // The parser closes the stream (which may not happen until a streamed sequence is fully consumed)
+        return parser.read(open(), this, passwordSupplier);
+    }
+
+    protected FileParser parser() {
+        return parser;
+    }
+
     protected abstract InputStream open() throws IOException;
 }
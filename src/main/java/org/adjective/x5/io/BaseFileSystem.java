@@ -18,11 +18,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.adjective.x5.io.password.PasswordSpec;
 import org.adjective.x5.io.password.PasswordSupplier;
@@ -33,10 +39,16 @@ import org.adjective.x5.util.Tuple;
 public abstract class BaseFileSystem implements FileSys {
     protected final PasswordSupplier passwordSupplier;
     private final StdIO stdio;
+    private final Path workingDirectory;
 
     public BaseFileSystem(PasswordSupplier passwordSupplier, StdIO stdio) {
+        this(passwordSupplier, stdio, Paths.get("").toAbsolutePath());
+    }
+
+    public BaseFileSystem(PasswordSupplier passwordSupplier, StdIO stdio, Path workingDirectory) {
         this.passwordSupplier = passwordSupplier;
         this.stdio = stdio;
+        this.workingDirectory = workingDirectory;
     }
 
     protected StdIO getStdio() {
@@ -66,7 +78,65 @@ public abstract class BaseFileSystem implements FileSys {
     public Path resolve(String pathName) {
         final Path path = Paths.get(pathName);
         final Optional<Tuple<Path, InputStream>> special = SpecialFiles.resolveInput(path, getStdio());
-        return special.map(t -> t.v1).orElse(path.toAbsolutePath().normalize());
+        return special.map(t -> t.v1).orElse(workingDirectory.resolve(path).normalize());
+    }
+
+    @Override
+    public List<Path> expand(String pathName) throws IOException {
+        final int glob = indexOfGlob(pathName);
+        if (glob == -1) {
+            final Path path = resolve(pathName);
+            final Path concrete = locate(path);
+            if (Files.isDirectory(concrete)) {
+                return listFiles(path, concrete, Integer.MAX_VALUE, p -> true);
+            } else {
+                return List.of(path);
+            }
+        }
+
+        final int separator = pathName.lastIndexOf('/', glob);
+        final String base = separator == -1 ? "." : (separator == 0 ? "/" : pathName.substring(0, separator));
+        final String pattern = pathName.substring(separator + 1);
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        final int depth = pattern.contains("**") ? Integer.MAX_VALUE : (int) pattern.chars().filter(c -> c == '/').count() + 1;
+
+        final Path basePath = resolve(base);
+        final Path concrete = locate(basePath);
+        if (Files.isDirectory(concrete) == false) {
+            throw new FileNotFoundException("Cannot read directory " + basePath);
+        }
+        return listFiles(basePath, concrete, depth, matcher::matches);
+    }
+
+    private static int indexOfGlob(String pathName) {
+        for (int i = 0; i < pathName.length(); i++) {
+            switch (pathName.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<Path> listFiles(Path requested, Path concrete, int depth, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> stream = Files.walk(concrete, depth)) {
+            return stream.filter(Files::isRegularFile)
+                .map(concrete::relativize)
+                .filter(filter)
+                .sorted()
+                .map(relative -> requested.resolve(relative).normalize())
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Maps a path (as returned from {@link #resolve(String)}) to the location of that path on disk
+     */
+    protected Path locate(Path path) {
+        return path;
     }
 
     @Override
@@ -75,11 +145,15 @@ public abstract class BaseFileSystem implements FileSys {
         final Optional<Tuple<Path, InputStream>> special = SpecialFiles.resolveInput(path, getStdio());
         if (special.isPresent()) {
             final Tuple<Path, InputStream> tuple = special.get();
-            return new SpecialFile(tuple.v1, () -> tuple.v2, passwords);
+            return new SpecialFile(tuple.v1, () -> tuple.v2, passwords, parser());
         } else {
             return readPath(path, passwords);
         }
     }
 
     protected abstract X5File readPath(Path path, PasswordSupplier passwords) throws FileNotFoundException;
+
+    protected FileParser parser() {
+        return FileParser.getInstance();
+    }
 }
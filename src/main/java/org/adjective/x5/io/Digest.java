@@ -11,23 +11,30 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.adjective.x5.io;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Optional;
 
 import org.adjective.x5.exception.UncheckedException;
 import org.adjective.x5.exception.UnsupportedAlgorithmException;
 
-public class Digest {
+public enum Digest {
+
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+    SHA384("SHA-384"),
+    SHA512("SHA-512");
 
-    private static final MessageDigest SHA1;
-    private static final MessageDigest SHA256;
+    private final String algorithm;
+    // MessageDigest instances are stateful, so each thread needs its own
+    private final ThreadLocal<MessageDigest> digest;
 
-    static {
-        SHA1 = load("SHA-1");
-        SHA256 = load("SHA-256");
+    Digest(String algorithm) {
+        this.algorithm = algorithm;
+        this.digest = ThreadLocal.withInitial(() -> load(algorithm));
     }
 
     private static MessageDigest load(String name) {
@@ -41,6 +48,37 @@ public class Digest {
         }
     }
 
+    /**
+     * The name of this digest, as used by JCA (e.g. {@code SHA-256})
+     */
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * A new (unshared) instance of this digest, for callers that need to {@link MessageDigest#update(byte[]) update} it incrementally
+     */
+    public MessageDigest newInstance() {
+        return load(algorithm);
+    }
+
+    public byte[] digest(byte[] encoded) {
+        return digest.get().digest(encoded);
+    }
+
+    /**
+     * Finds a digest by name, either in JCA form ({@code SHA-256}) or without the hyphen ({@code sha256}), ignoring case
+     */
+    public static Optional<Digest> forName(String name) {
+        final String normalized = name.toUpperCase(Locale.ROOT).replace("-", "");
+        for (Digest d : values()) {
+            if (d.name().equals(normalized)) {
+                return Optional.of(d);
+            }
+        }
+        return Optional.empty();
+    }
+
     public static byte[] sha1(byte[] encoded) {
         return SHA1.digest(encoded);
     }
@@ -15,54 +15,61 @@
 package org.adjective.x5.io;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.adjective.x5.exception.BadFileContentException;
+import org.adjective.x5.exception.DerParseException;
 import org.adjective.x5.exception.FileReadException;
 import org.adjective.x5.exception.UnsupportedFileTypeException;
 import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
 import org.adjective.x5.io.encrypt.JksEncryptionInfo;
 import org.adjective.x5.io.encrypt.Pkcs12EncryptionInfo;
 import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.io.password.RememberedPasswords;
 import org.adjective.x5.types.EncodingSyntax;
 import org.adjective.x5.types.FileType;
 import org.adjective.x5.types.ObjectSequence;
 import org.adjective.x5.types.PathInfo;
+import org.adjective.x5.types.StreamingSequence;
 import org.adjective.x5.types.X509Certificate;
 import org.adjective.x5.types.X5File;
 import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.X5Type;
+import org.adjective.x5.types.crypto.DerX509Certificate;
 import org.adjective.x5.types.crypto.JavaKeyStore;
 import org.adjective.x5.types.crypto.JavaX509Certificate;
+import org.adjective.x5.types.crypto.Pkcs12Contents;
 import org.adjective.x5.types.crypto.Pkcs12KeyStore;
 import org.adjective.x5.types.crypto.X5CertificateChain;
 import org.adjective.x5.types.value.DN;
 import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.DerCursor;
 import org.adjective.x5.util.Iterables;
-import org.bouncycastle.asn1.ASN1InputStream;
-import org.bouncycastle.asn1.pkcs.Pfx;
 import org.bouncycastle.openssl.PEMParser;
-import org.bouncycastle.pkcs.PKCS12PfxPdu;
 import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.io.pem.PemObject;
 
 public class FileParser {
 
@@ -79,64 +86,138 @@ public class FileParser {
         return INSTANCE;
     }
 
-    private PemTranslator pemTranslator;
+    private final PemTranslator pemTranslator;
 
     public FileParser() {
-        pemTranslator = new PemTranslator();
+        this(new PemTranslator());
     }
 
+    private FileParser(PemTranslator pemTranslator) {
+        this.pemTranslator = pemTranslator;
+    }
+
+    /**
+     * A parser that uses the provided cache for keys derived from passwords, and is otherwise the same as this parser
+     */
+    public FileParser withKeyCache(DerivedKeyCache keyCache) {
+        return new FileParser(pemTranslator.withKeyCache(keyCache));
+    }
+
+    /**
+     * Reads an object from the provided stream.
+     * The parser takes ownership of the stream, and will close it once it is no longer needed. For large PEM files, that may be after
+     * this method returns (see {@link StreamingSequence}).
+     */
     public X5Object read(InputStream in, X5File file, PasswordSupplier passwordSupplier) throws IOException, X5Exception {
-        try (BufferedInputStream buf = buffer(in)) {
+        final BufferedInputStream buf = buffer(in);
+        X5Object object = null;
+        try {
             byte[] magic = new byte[1024];
             buf.mark(magic.length);
-            buf.read(magic);
+            final int length = buf.readNBytes(magic, 0, magic.length);
             buf.reset();
-            return read(buf, magic, file, passwordSupplier);
+            switch (sniff(ByteBuffer.wrap(magic, 0, length), file)) {
+                case PKCS12:
+                    object = readPkcs12(ByteBuffer.wrap(buf.readAllBytes()), file, passwordSupplier);
+                    break;
+                case JKS:
+                    object = readJks(buf, file, passwordSupplier);
+                    break;
+                case PEM:
+                    object = readPem(new PemScanner(buf), Optional.empty(), file, passwordSupplier);
+                    break;
+                case BASE64:
+                    object = readBase64Certificate(buf, file);
+                    break;
+            }
+            return object;
+        } finally {
+            if (object instanceof StreamingSequence == false) {
+                buf.close();
+            }
+        }
+    }
+
+    /**
+     * Reads an object from the provided buffer (typically a memory mapped file). The buffer's position is not modified.
+     */
+    public X5Object read(ByteBuffer buffer, X5File file, PasswordSupplier passwordSupplier) throws IOException, X5Exception {
+        switch (sniff(buffer, file)) {
+            case PKCS12:
+                return readPkcs12(buffer.duplicate(), file, passwordSupplier);
+            case JKS:
+                return readJks(new ByteBufferInputStream(buffer.duplicate()), file, passwordSupplier);
+            case PEM:
+                final Supplier<PemScanner> scanner = () -> new PemScanner(buffer.duplicate());
+                return readPem(scanner.get(), Optional.of(scanner), file, passwordSupplier);
+            case BASE64:
+                return readBase64Certificate(new ByteBufferInputStream(buffer.duplicate()), file);
+            default:
+                throw new UnsupportedFileTypeException(file.path());
         }
     }
 
-    private X5Object read(BufferedInputStream in, byte[] headerBytes, X5File file, PasswordSupplier passwordSupplier) throws IOException,
-        X5Exception {
-        byte byte0 = headerBytes[0];
-        byte byte1 = headerBytes[1];
-        byte byte2 = headerBytes[2];
-        byte byte3 = headerBytes[3];
-        if (byte0 == 0x30 && (byte1 == (byte) 0x82 || byte1 == 0x56)) {
-            return readPkcs12(in, file, passwordSupplier);
+    private enum Format {
+        PKCS12,
+        JKS,
+        PEM,
+        BASE64
+    }
+
+    private static Format sniff(ByteBuffer buffer, X5File file) throws UnsupportedFileTypeException {
+        final ByteBuffer header = buffer.slice();
+        if (header.remaining() > 1024) {
+            header.limit(1024);
+        }
+        byte byte0 = byteAt(header, 0);
+        byte byte1 = byteAt(header, 1);
+        byte byte2 = byteAt(header, 2);
+        if (isPkcs12(header)) {
+            return Format.PKCS12;
         }
         if (byte0 == (byte) 0xFE && byte1 == (byte) 0xED) {
-            return readJks(in, file, passwordSupplier);
+            return Format.JKS;
         }
-        if (containsBytes(headerBytes, PEM_MARKER1) || containsBytes(headerBytes, PEM_MARKER2)) {
-            return readPem(in, file, passwordSupplier);
+        if (containsBytes(header, PEM_MARKER1) || containsBytes(header, PEM_MARKER2)) {
+            return Format.PEM;
         }
         if (byte0 == 'M' && byte1 == 'I' && byte2 == 'I') {
-            return readBase64Certificate(in, file);
+            return Format.BASE64;
         }
+        final byte[] headerBytes = new byte[header.remaining()];
+        header.get(headerBytes);
         Debug.printf("Cannot parse header bytes: [%s] (%x,%x)", Hex.toHexString(headerBytes), byte0, byte1);
         // TODO DER/BER/
         throw new UnsupportedFileTypeException(file.path());
     }
 
-    private X5Object readPkcs12(BufferedInputStream in, X5File file, PasswordSupplier passwordSupplier) throws FileReadException {
+    private X5Object readPkcs12(ByteBuffer buffer, X5File file, PasswordSupplier passwordSupplier) throws FileReadException {
         try {
-            in.mark((int) file.size());
+            // The PFX structure is decoded by the JCA keystore, and the parts that x5 reads itself are skimmed from the same bytes
+            final byte[] encoded = bytes(buffer);
             KeyStore keyStore = KeyStore.getInstance("PKCS12");
             Password password = passwordSupplier.get(file.path());
-            keyStore.load(in, password.chars());
+            keyStore.load(new ByteArrayInputStream(encoded), password.chars());
 
-            in.reset();
-            ASN1InputStream asn1 = new ASN1InputStream(in);
-            PKCS12PfxPdu pfx = new PKCS12PfxPdu(Pfx.getInstance(asn1.readObject()));
             final PathInfo source = new PathInfo(file.path(), 0, FileType.PKCS12);
-            Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(source, pfx.getMacAlgorithmID(), password);
-            return new Pkcs12KeyStore(keyStore, pfx, source, encryption);
+            final Pkcs12Contents contents = Pkcs12Contents.read(encoded, source, pemTranslator.keyDecryptor());
+            Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(source, contents.macAlgorithm(), password);
+            return new Pkcs12KeyStore(keyStore, contents, source, encryption);
         } catch (IOException | GeneralSecurityException e) {
             throw new FileReadException(file.path(), e);
         }
     }
 
-    private X5Object readJks(BufferedInputStream in, X5File file, PasswordSupplier passwordSupplier) throws FileReadException {
+    private static byte[] bytes(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.limit() == buffer.array().length) {
+            return buffer.array();
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private X5Object readJks(InputStream in, X5File file, PasswordSupplier passwordSupplier) throws FileReadException {
         try {
             final PathInfo source = new PathInfo(file.path(), 0, FileType.JKS);
             final Password password = passwordSupplier.get(file.path());
@@ -149,13 +230,15 @@ public class FileParser {
         }
     }
 
-    private X5Object readBase64Certificate(BufferedInputStream in, X5File file) throws X5Exception {
-        final Collection<? extends Certificate> certificates = readBase64Certificates(in, file);
-        final List<JavaX509Certificate> x5 = new ArrayList<>(certificates.size());
-        int index = 1;
-        for (Certificate c : certificates) {
-            final PathInfo source = new PathInfo(file.path(), index, FileType.TEXT);
-            x5.add(new JavaX509Certificate((java.security.cert.X509Certificate) c, source));
+    private X5Object readBase64Certificate(InputStream in, X5File file) throws X5Exception {
+        final byte[] der = readBase64(in, file);
+        List<X509Certificate> x5;
+        try {
+            x5 = splitCertificates(der, file);
+        } catch (DerParseException e) {
+            // Not a plain sequence of certificates (it may be a PKCS#7 bundle), so let the JCA decode it
+            Debug.error(e, "Cannot split %s into certificates", file.path());
+            x5 = decodeCertificates(der, file);
         }
         switch (x5.size()) {
             case 0:
@@ -167,43 +250,179 @@ public class FileParser {
         }
     }
 
-    private Collection<? extends Certificate> readBase64Certificates(BufferedInputStream in, X5File file) throws FileReadException {
+    private byte[] readBase64(InputStream in, X5File file) throws FileReadException {
+        try (var b64 = Base64.getMimeDecoder().wrap(in)) {
+            return b64.readAllBytes();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new FileReadException(file.path(), e);
+        }
+    }
+
+    /**
+     * Splits concatenated DER certificates, without fully decoding them (see {@link DerX509Certificate})
+     */
+    private List<X509Certificate> splitCertificates(byte[] der, X5File file) throws X5Exception {
+        final List<X509Certificate> certificates = new ArrayList<>();
+        final DerCursor cursor = new DerCursor(der);
+        while (cursor.hasNext()) {
+            cursor.next(DerCursor.SEQUENCE);
+            final PathInfo source = new PathInfo(file.path(), certificates.size() + 1, FileType.TEXT);
+            certificates.add(new DerX509Certificate(cursor.element(), source));
+        }
+        return certificates;
+    }
+
+    private List<X509Certificate> decodeCertificates(byte[] der, X5File file) throws FileReadException {
+        final Collection<? extends Certificate> certificates;
         try {
-            final CertificateFactory factory = CertificateFactory.getInstance("X509");
-            try (var b64 = Base64.getMimeDecoder().wrap(in)) {
-                return factory.generateCertificates(b64);
-            }
-        } catch (CertificateException | IOException e) {
+            certificates = CertificateFactory.getInstance("X509").generateCertificates(new ByteArrayInputStream(der));
+        } catch (CertificateException e) {
             throw new FileReadException(file.path(), e);
         }
+        final List<X509Certificate> x5 = new ArrayList<>(certificates.size());
+        for (Certificate c : certificates) {
+            final PathInfo source = new PathInfo(file.path(), x5.size() + 1, FileType.TEXT);
+            x5.add(new JavaX509Certificate((java.security.cert.X509Certificate) c, source));
+        }
+        return x5;
     }
 
-    private X5Object readPem(InputStream in, X5File file, PasswordSupplier passwordSupplier) throws IOException, X5Exception {
-        try (Reader reader = new InputStreamReader(in)) {
-            final PEMParser parser = new PEMParser(new TrimReader(reader));
-            final List<X5Object> objects = new ArrayList<>();
-            int index = 1;
-            while (true) {
-                Object pemObj = parser.readObject();
-                if (pemObj == null) {
-                    break;
+    /**
+     * @param reopen If present, then a large PEM file is read again each time that it is iterated, rather than retaining its objects
+     */
+    private X5Object readPem(PemScanner scanner, Optional<Supplier<PemScanner>> reopen, X5File file, PasswordSupplier passwordSupplier)
+        throws IOException, X5Exception {
+        // Reading the file again should not ask for the same password again
+        final PasswordSupplier passwords = reopen.isPresent() ? new RememberedPasswords(passwordSupplier) : passwordSupplier;
+        final PemSource source = new PemSource(new ScannedPemParser(scanner), file, passwords);
+        final List<X5Object> objects = new ArrayList<>();
+        while (true) {
+            final X5Object x5Obj = source.next();
+            if (x5Obj == null) {
+                break;
+            }
+            objects.add(x5Obj);
+            if (objects.size() > 1 && mayBeCertificateChain(objects) == false) {
+                // This cannot be a single object, or a certificate chain, so it will be a sequence. Read the rest of the objects on demand
+                if (reopen.isPresent()) {
+                    final Supplier<PemScanner> scanners = reopen.get();
+                    return new StreamingSequence(
+                        objects,
+                        source,
+                        () -> new PemSource(new ScannedPemParser(scanners.get()), file, passwords),
+                        file.path(),
+                        FileType.PEM
+                    );
+                } else {
+                    return new StreamingSequence(objects, source, file.path(), FileType.PEM);
                 }
-                X5Object x5Obj = pemTranslator.translatePem(pemObj, file.path(), index, passwordSupplier);
-                Debug.printf("(%d) Translated PEM object %s to X5 object %s", index, pemObj, x5Obj);
-                objects.add(x5Obj);
-                index++;
             }
-            switch (objects.size()) {
-                case 0:
-                    throw new BadFileContentException("PEM file " + file + " does not contain any objects", file.path());
-                case 1:
-                    return objects.get(0);
-                default:
-                    return handleObjectSequence(file, objects);
+        }
+        switch (objects.size()) {
+            case 0:
+                throw new BadFileContentException("PEM file " + file + " does not contain any objects", file.path());
+            case 1:
+                return objects.get(0);
+            default:
+                return handleObjectSequence(file, objects);
+        }
+    }
+
+    /**
+     * Uses BouncyCastle's translation of PEM objects (keys, etc), but reads the PEM blocks with a {@link PemScanner}.
+     * Certificates are returned as the raw {@link PemObject}, so that they are only decoded as far as necessary
+     * (see {@link PemTranslator}).
+     */
+    private static class ScannedPemParser extends PEMParser {
+        private final PemScanner scanner;
+        private PemObject pending;
+
+        private ScannedPemParser(PemScanner scanner) {
+            super(Reader.nullReader());
+            this.scanner = scanner;
+            this.pending = null;
+        }
+
+        @Override
+        public Object readObject() throws IOException {
+            final PemObject pem = scanner.next();
+            if (pem == null || PemTranslator.isCertificate(pem)) {
+                return pem;
+            }
+            pending = pem;
+            return super.readObject();
+        }
+
+        @Override
+        public PemObject readPemObject() throws IOException {
+            if (pending != null) {
+                final PemObject pem = pending;
+                pending = null;
+                return pem;
             }
+            return scanner.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            scanner.close();
         }
     }
 
+    private class PemSource implements StreamingSequence.Source {
+        private final PEMParser parser;
+        private final X5File file;
+        private final PasswordSupplier passwordSupplier;
+        private int index;
+
+        private PemSource(PEMParser parser, X5File file, PasswordSupplier passwordSupplier) {
+            this.parser = parser;
+            this.file = file;
+            this.passwordSupplier = passwordSupplier;
+            this.index = 0;
+        }
+
+        @Override
+        public X5Object next() throws IOException, X5Exception {
+            final Object pemObj;
+            try {
+                pemObj = parser.readObject();
+            } catch (InternalError e) {
+                // A mapped file that was truncated after it was mapped (see MappedFile)
+                throw new FileReadException(file.path(), e);
+            }
+            if (pemObj == null) {
+                return null;
+            }
+            index++;
+            X5Object x5Obj = pemTranslator.translatePem(pemObj, file.path(), index, passwordSupplier);
+            Debug.printf("(%d) Translated PEM object %s to X5 object %s", index, pemObj, x5Obj);
+            return x5Obj;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    /**
+     * Checks whether the most recently read object could continue a certificate chain
+     */
+    private static boolean mayBeCertificateChain(List<X5Object> objects) throws X5Exception {
+        final X5Object previous = objects.get(objects.size() - 2);
+        final X5Object current = objects.get(objects.size() - 1);
+        if (previous.getType() != X5Type.CERTIFICATE || current.getType() != X5Type.CERTIFICATE) {
+            return false;
+        }
+        final Optional<X509Certificate> issuer = previous.as(X509Certificate.class);
+        final Optional<X509Certificate> subject = current.as(X509Certificate.class);
+        if (issuer.isEmpty() || subject.isEmpty()) {
+            return false;
+        }
+        return subject.get().subject().isEqualTo(issuer.get().issuer());
+    }
+
     private X5Object handleObjectSequence(X5File file, List<? extends X5Object> objects) throws X5Exception {
         final Set<Optional<EncodingSyntax>> encodings = objects.stream()
             .map(X5Object::getSource)
@@ -241,9 +460,33 @@ public class FileParser {
         return true;
     }
 
-    private static boolean containsBytes(byte[] headerBytes, byte[] marker) {
-        for (int i = 0; i < headerBytes.length - marker.length; i++) {
-            if (Arrays.mismatch(headerBytes, i, i + marker.length, marker, 0, marker.length) == -1) {
+    /**
+     * Checks for a DER SEQUENCE (of any length) that starts with {@code INTEGER 3} (the PFX version)
+     */
+    private static boolean isPkcs12(ByteBuffer header) {
+        if (byteAt(header, 0) != 0x30) {
+            return false;
+        }
+        int offset = 2;
+        final byte length = byteAt(header, 1);
+        if ((length & 0x80) != 0) {
+            final int lengthBytes = length & 0x7F;
+            if (lengthBytes > 4) {
+                return false;
+            }
+            offset += lengthBytes;
+        }
+        return byteAt(header, offset) == 0x02 && byteAt(header, offset + 1) == 0x01 && byteAt(header, offset + 2) == 0x03;
+    }
+
+    private static byte byteAt(ByteBuffer buffer, int index) {
+        return index < buffer.limit() ? buffer.get(index) : 0;
+    }
+
+    private static boolean containsBytes(ByteBuffer header, byte[] marker) {
+        final ByteBuffer match = ByteBuffer.wrap(marker);
+        for (int i = 0; i <= header.limit() - marker.length; i++) {
+            if (header.slice(i, marker.length).equals(match)) {
                 return true;
             }
         }
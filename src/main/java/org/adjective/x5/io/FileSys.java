@@ -18,6 +18,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.List;
 
 import org.adjective.x5.io.password.PasswordSpec;
 import org.adjective.x5.types.X5File;
@@ -25,6 +26,11 @@ import org.adjective.x5.types.X5File;
 public interface FileSys {
     Path resolve(String path);
 
+    /**
+     * Resolves a path that may be a glob pattern or a directory into the (sorted) list of files that it refers to.
+     */
+    List<Path> expand(String path) throws IOException;
+
     X5File read(Path path, PasswordSpec password) throws FileNotFoundException;
 
     default X5File read(Path path) throws FileNotFoundException {
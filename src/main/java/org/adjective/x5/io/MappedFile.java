@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.adjective.x5.exception.FileReadException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+
+/**
+ * A regular file that is parsed directly from a {@link ByteBuffer}.
+ * Small files are copied onto the heap, and only files of at least {@link #MAPPING_THRESHOLD} bytes are memory mapped.
+ * A mapping is not released until its buffer is garbage collected, and if the file is truncated while it is mapped then reading
+ * the missing pages fails with an {@link InternalError}, which is reported as a {@link FileReadException}.
+ */
+public class MappedFile extends BaseFile implements X5File {
+
+    static final long MAPPING_THRESHOLD = 1024 * 1024;
+
+    private final long mappingThreshold;
+
+    public MappedFile(Path path, PasswordSupplier passwordSupplier) {
+        this(path, passwordSupplier, FileParser.getInstance(), MAPPING_THRESHOLD);
+    }
+
+    public MappedFile(Path path, PasswordSupplier passwordSupplier, FileParser parser) {
+        this(path, passwordSupplier, parser, MAPPING_THRESHOLD);
+    }
+
+    MappedFile(Path path, PasswordSupplier passwordSupplier, FileParser parser, long mappingThreshold) {
+        super(path, passwordSupplier, parser);
+        this.mappingThreshold = mappingThreshold;
+    }
+
+    @Override
+    protected X5Object parse(PasswordSupplier passwordSupplier) throws IOException, X5Exception {
+        try {
+            return parser().read(load(), this, passwordSupplier);
+        } catch (InternalError e) {
+            throw new FileReadException(path(), e);
+        }
+    }
+
+    private ByteBuffer load() throws IOException {
+        try (FileChannel channel = FileChannel.open(path(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size >= mappingThreshold) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // keep reading until the buffer is full, or the file ends early
+            }
+            return buffer.flip();
+        }
+    }
+
+    @Override
+    protected InputStream open() throws IOException {
+        return new ByteBufferInputStream(load());
+    }
+}
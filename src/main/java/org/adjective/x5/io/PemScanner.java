@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.bouncycastle.util.io.pem.PemHeader;
+import org.bouncycastle.util.io.pem.PemObject;
+
+/**
+ * Reads PEM blocks directly from bytes (rather than via a {@link java.io.Reader}).
+ * This follows the same rules as BouncyCastle's {@link org.bouncycastle.util.io.pem.PemReader}, and ignores any
+ * whitespace at the start or end of each line.
+ */
+class PemScanner implements Closeable {
+
+    private static final byte[] BEGIN = "-----BEGIN ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "-----END ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DASHES = "-----".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream input;
+    private ByteBuffer buffer;
+    private boolean eof;
+
+    private int lineStart;
+    private int lineEnd;
+
+    private byte[] base64;
+    private int base64Length;
+
+    PemScanner(InputStream input) {
+        this.input = input;
+        this.buffer = ByteBuffer.allocate(8 * 1024).flip();
+        this.eof = false;
+        this.base64 = new byte[4 * 1024];
+    }
+
+    PemScanner(ByteBuffer buffer) {
+        this.input = null;
+        this.buffer = buffer.slice();
+        this.eof = true;
+        this.base64 = new byte[4 * 1024];
+    }
+
+    /**
+     * @return The next PEM object, or {@code null} if there are no more objects
+     */
+    PemObject next() throws IOException {
+        while (nextLine()) {
+            if (lineStartsWith(BEGIN)) {
+                final int typeStart = lineStart + BEGIN.length;
+                final int typeEnd = lineEnd - DASHES.length;
+                if (typeEnd > typeStart && lineEndsWith(DASHES) && indexOf((byte) '-', typeStart, typeEnd) == -1) {
+                    return readObject(ascii(typeStart, typeEnd));
+                } else {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private PemObject readObject(String type) throws IOException {
+        final byte[] endMarker = (new String(END, StandardCharsets.US_ASCII) + type).getBytes(StandardCharsets.US_ASCII);
+        final List<PemHeader> headers = new ArrayList<>();
+        base64Length = 0;
+        while (nextLine()) {
+            final int colon = indexOf((byte) ':', lineStart, lineEnd);
+            if (colon != -1) {
+                headers.add(new PemHeader(ascii(lineStart, colon), ascii(colon + 1, lineEnd).trim()));
+            } else if (lineContains(endMarker)) {
+                return new PemObject(type, headers, decodeBase64());
+            } else {
+                appendBase64();
+            }
+        }
+        throw new IOException(new String(endMarker, StandardCharsets.US_ASCII) + " not found");
+    }
+
+    private void appendBase64() {
+        final int length = lineEnd - lineStart;
+        if (base64Length + length > base64.length) {
+            base64 = Arrays.copyOf(base64, Math.max(base64.length * 2, base64Length + length));
+        }
+        buffer.get(lineStart, base64, base64Length, length);
+        base64Length += length;
+    }
+
+    private byte[] decodeBase64() {
+        final ByteBuffer decoded = Base64.getMimeDecoder().decode(ByteBuffer.wrap(base64, 0, base64Length));
+        final byte[] bytes = decoded.array();
+        return decoded.remaining() == bytes.length ? bytes : Arrays.copyOf(bytes, decoded.remaining());
+    }
+
+    /**
+     * Finds the next line (trimmed of leading and trailing whitespace) and advances the buffer past it.
+     * Blank lines may be produced for CR-LF line endings.
+     */
+    private boolean nextLine() throws IOException {
+        int scan = buffer.position();
+        for (;;) {
+            for (int i = scan; i < buffer.limit(); i++) {
+                final byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    setLine(buffer.position(), i);
+                    buffer.position(i + 1);
+                    return true;
+                }
+            }
+            if (eof) {
+                if (buffer.hasRemaining()) {
+                    setLine(buffer.position(), buffer.limit());
+                    buffer.position(buffer.limit());
+                    return true;
+                }
+                return false;
+            }
+            scan = buffer.remaining();
+            fill();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        this.lineStart = start;
+        this.lineEnd = end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    /**
+     * Moves any unread bytes to the start of the buffer, and reads more data after them
+     */
+    private void fill() throws IOException {
+        buffer.compact();
+        if (buffer.hasRemaining() == false) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+        final int read = input.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (read == -1) {
+            eof = true;
+        } else {
+            buffer.position(buffer.position() + read);
+        }
+        buffer.flip();
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean lineStartsWith(byte[] prefix) {
+        return lineEnd - lineStart >= prefix.length && regionMatches(lineStart, prefix);
+    }
+
+    private boolean lineEndsWith(byte[] suffix) {
+        return lineEnd - lineStart >= suffix.length && regionMatches(lineEnd - suffix.length, suffix);
+    }
+
+    private boolean lineContains(byte[] marker) {
+        for (int i = lineStart; i <= lineEnd - marker.length; i++) {
+            if (regionMatches(i, marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String ascii(int start, int end) {
+        final byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (input != null) {
+            input.close();
+        }
+    }
+}
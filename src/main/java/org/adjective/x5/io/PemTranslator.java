@@ -16,15 +16,19 @@ package org.adjective.x5.io;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.Provider;
 import java.util.Optional;
 
 import org.adjective.x5.exception.BadFileContentException;
 import org.adjective.x5.exception.BadPasswordException;
+import org.adjective.x5.exception.DerParseException;
 import org.adjective.x5.exception.ExceptionInfo;
 import org.adjective.x5.exception.FileReadException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.exception.X5InputException;
+import org.adjective.x5.io.encrypt.CachedKeyDecryptor;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
 import org.adjective.x5.io.encrypt.EncryptionInfo;
 import org.adjective.x5.io.encrypt.Pkcs1EncryptionInfo;
 import org.adjective.x5.io.encrypt.Pkcs8EncryptionInfo;
@@ -36,6 +40,7 @@ import org.adjective.x5.types.FileType;
 import org.adjective.x5.types.PathInfo;
 import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.crypto.DerX509Certificate;
 import org.adjective.x5.types.crypto.PemCertificate;
 import org.adjective.x5.types.crypto.PemKeyPair;
 import org.adjective.x5.types.crypto.PemPrivateKey;
@@ -59,17 +64,46 @@ import org.bouncycastle.operator.InputDecryptorProvider;
 import org.bouncycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
 import org.bouncycastle.pkcs.PKCSException;
 import org.bouncycastle.pkcs.jcajce.JcePKCSPBEInputDecryptorProviderBuilder;
+import org.bouncycastle.util.io.pem.PemObject;
 
 class PemTranslator {
 
+    private static final String CERTIFICATE = "CERTIFICATE";
+    private static final String X509_CERTIFICATE = "X509 CERTIFICATE";
+
     private static final Unencrypted UNENCRYPTED = new Unencrypted();
     private final Provider securityProvider;
+    private final Optional<CachedKeyDecryptor> keyDecryptor;
 
     public PemTranslator() {
-        securityProvider = new BouncyCastleProvider();
+        this(new BouncyCastleProvider(), Optional.empty());
+    }
+
+    private PemTranslator(Provider securityProvider, Optional<CachedKeyDecryptor> keyDecryptor) {
+        this.securityProvider = securityProvider;
+        this.keyDecryptor = keyDecryptor;
+    }
+
+    PemTranslator withKeyCache(DerivedKeyCache keyCache) {
+        return new PemTranslator(securityProvider, Optional.of(new CachedKeyDecryptor(keyCache, securityProvider)));
+    }
+
+    Optional<CachedKeyDecryptor> keyDecryptor() {
+        return keyDecryptor;
+    }
+
+    /**
+     * Whether the PEM block is an (untrusted) certificate. These are the types that {@link org.bouncycastle.openssl.PEMParser} would
+     * decode as an {@link X509CertificateHolder}
+     */
+    static boolean isCertificate(PemObject pem) {
+        return pem.getType().equals(CERTIFICATE) || pem.getType().equals(X509_CERTIFICATE);
     }
 
     X5Object translatePem(Object pemObj, Path path, int index, PasswordSupplier passwordSupplier) throws X5Exception {
+        if (pemObj instanceof PemObject && isCertificate((PemObject) pemObj)) {
+            return readCertificate(((PemObject) pemObj).getContent(), path, new PathInfo(path, index, FileType.PEM));
+        }
         if (pemObj instanceof X509CertificateHolder) {
             final PathInfo source = new PathInfo(path, index, FileType.PEM);
             return new PemCertificate((X509CertificateHolder) pemObj, source);
@@ -110,9 +144,7 @@ class PemTranslator {
             final EncryptionInfo encryption = new Pkcs8EncryptionInfo(encryptionSource(source, EncodingSyntax.PKCS8), encrypted, password);
             Debug.printf("Read encrypted PKCS#8: %s", encryption);
             try {
-                InputDecryptorProvider decryptor = new JcePKCSPBEInputDecryptorProviderBuilder().setProvider(securityProvider)
-                    .build(password.chars());
-                final PrivateKeyInfo keyInfo = encrypted.decryptPrivateKeyInfo(decryptor);
+                final PrivateKeyInfo keyInfo = decrypt(encrypted, password);
                 return translatePrivateKey(source, keyInfo, encryption);
             } catch (PKCSException e) {
                 if (new ExceptionInfo(e).hasCauseOrSuppressed(javax.crypto.BadPaddingException.class)) {
@@ -138,6 +170,39 @@ class PemTranslator {
         throw new BadFileContentException("Unsupported PEM object " + pemObj.getClass() + " in " + path, path);
     }
 
+    private PrivateKeyInfo decrypt(PKCS8EncryptedPrivateKeyInfo encrypted, Password password) throws PKCSException {
+        if (keyDecryptor.isPresent()) {
+            try {
+                final Optional<PrivateKeyInfo> key = keyDecryptor.get().decrypt(encrypted.toASN1Structure(), password);
+                if (key.isPresent()) {
+                    return key.get();
+                }
+            } catch (GeneralSecurityException e) {
+                throw new PKCSException("Cannot decrypt PKCS#8 key: " + e.getMessage(), e);
+            }
+        }
+        InputDecryptorProvider decryptor = new JcePKCSPBEInputDecryptorProviderBuilder().setProvider(securityProvider)
+            .build(password.chars());
+        return encrypted.decryptPrivateKeyInfo(decryptor);
+    }
+
+    /**
+     * Reads the certificate from its header if possible, but falls back to fully decoding it if the header uses an encoding that
+     * {@link org.adjective.x5.util.DerCursor} does not support (BouncyCastle is more lenient)
+     */
+    private static X5Object readCertificate(byte[] encoded, Path path, PathInfo source) throws X5Exception {
+        try {
+            return new DerX509Certificate(encoded, source);
+        } catch (DerParseException e) {
+            Debug.error(e, "Cannot read the header of certificate %s", source.getSourceDescription());
+            try {
+                return new PemCertificate(new X509CertificateHolder(encoded), source);
+            } catch (IOException ioe) {
+                throw new FileReadException(path, ioe);
+            }
+        }
+    }
+
     private static Password readPassword(Path path, PasswordSupplier passwordSupplier) throws X5Exception {
         try {
             return passwordSupplier.get(path);
@@ -29,6 +29,10 @@ public class RawFile extends BaseFile implements X5File {
         super(path, passwordSupplier);
     }
 
+    public RawFile(Path path, PasswordSupplier passwordSupplier, FileParser parser) {
+        super(path, passwordSupplier, parser);
+    }
+
     @Override
     protected InputStream open() throws IOException {
         return Files.newInputStream(path(), StandardOpenOption.READ);
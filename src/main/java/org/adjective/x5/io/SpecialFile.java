@@ -11,8 +11,8 @@ import java.util.function.Supplier;
 public class SpecialFile extends BaseFile implements X5File {
     private final Supplier<InputStream> stream;
 
-    public SpecialFile(Path path, Supplier<InputStream> inputStream, PasswordSupplier passwords) {
-        super(path, passwords);
+    public SpecialFile(Path path, Supplier<InputStream> inputStream, PasswordSupplier passwords, FileParser parser) {
+        super(path, passwords, parser);
         this.stream = inputStream;
     }
 
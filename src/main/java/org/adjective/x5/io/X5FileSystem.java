@@ -15,22 +15,59 @@
 package org.adjective.x5.io;
 
 import java.io.FileNotFoundException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Optional;
 
+import org.adjective.x5.io.cache.ParseCache;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
 import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.io.password.RememberedPasswords;
 import org.adjective.x5.types.X5File;
 
 public class X5FileSystem extends BaseFileSystem {
 
+    private final Optional<ParseCache> cache;
+    private final FileParser parser;
+
     public X5FileSystem(PasswordSupplier passwordSupplier, StdIO stdio) {
         super(passwordSupplier, stdio);
+        this.cache = Optional.empty();
+        this.parser = FileParser.getInstance();
+    }
+
+    public X5FileSystem(
+        PasswordSupplier passwordSupplier,
+        StdIO stdio,
+        Path workingDirectory,
+        Optional<ParseCache> cache,
+        Optional<DerivedKeyCache> keyCache
+    ) {
+        super(passwordSupplier, stdio, workingDirectory);
+        this.cache = cache;
+        this.parser = keyCache.map(FileParser.getInstance()::withKeyCache).orElse(FileParser.getInstance());
     }
 
     @Override
     protected X5File readPath(Path path, PasswordSupplier passwords) throws FileNotFoundException {
         checkReadable(path);
-        return new RawFile(path, passwords);
+        if (Files.isRegularFile(path)) {
+            if (cache.isEmpty()) {
+                return new MappedFile(path, passwords, parser);
+            }
+            // The cache checks the password before it uses a cached store, and the file should not ask for it again if it is parsed
+            final PasswordSupplier remembered = new RememberedPasswords(passwords);
+            return cache.get().wrap(new MappedFile(path, remembered, parser), remembered);
+        } else {
+            // Pipes, devices, etc cannot be mapped
+            return new RawFile(path, passwords, parser);
+        }
+    }
+
+    @Override
+    protected FileParser parser() {
+        return parser;
     }
 
 }
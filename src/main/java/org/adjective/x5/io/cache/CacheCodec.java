@@ -0,0 +1,440 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.adjective.x5.exception.CryptoStoreException;
+import org.adjective.x5.exception.TypeConversionException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.EncodingSyntax;
+import org.adjective.x5.types.FileType;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.PathInfo;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.X5Type;
+import org.adjective.x5.types.crypto.CachedKeyStore;
+import org.adjective.x5.types.crypto.CachedX509Certificate;
+import org.adjective.x5.types.crypto.JavaKeyStore;
+import org.adjective.x5.types.crypto.X5CertificateChain;
+import org.adjective.x5.types.value.X5String;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Values;
+
+/**
+ * Converts the metadata of parsed objects to (and from) the binary form that is stored in the {@link ParseCache}.
+ * Only objects that consist entirely of public certificates are cached.
+ */
+final class CacheCodec {
+
+    private static final byte CERTIFICATE = 'C';
+    private static final byte CHAIN = 'H';
+    private static final byte SEQUENCE = 'S';
+    private static final byte STORE = 'K';
+
+    private static final byte ATTRIBUTE = 'A';
+    private static final byte ENTRY_VALUE = 'V';
+
+    private CacheCodec() {
+    }
+
+    /**
+     * @return {@code false} if the object cannot be cached (in which case the output should be discarded)
+     */
+    static boolean write(X5Object object, DataOutputStream out) throws IOException, X5Exception {
+        if (object instanceof X509Certificate) {
+            out.writeByte(CERTIFICATE);
+            return writeCertificate((X509Certificate) object, out);
+        } else if (object instanceof CryptoStore) {
+            out.writeByte(STORE);
+            return writeStore((CryptoStore) object, out);
+        } else if (object instanceof CertificateChain) {
+            out.writeByte(CHAIN);
+            return writeSequence((Sequence) object, out);
+        } else if (object instanceof Sequence) {
+            out.writeByte(SEQUENCE);
+            return writeSequence((Sequence) object, out);
+        } else {
+            return false;
+        }
+    }
+
+    interface PasswordCheck {
+        /**
+         * @return {@code true} if the password for the file passes the check of the given type (see {@link StorePasswordCheck})
+         */
+        boolean verify(byte type) throws IOException;
+    }
+
+    /**
+     * @return The cached object, or empty if the entry cannot be used because the password check failed
+     */
+    static Optional<X5Object> read(DataInputStream in, CheckedSupplier<X5Object, X5Exception> original, PasswordCheck passwordCheck)
+        throws IOException {
+        final byte type = in.readByte();
+        if (type == STORE) {
+            return readStore(in, original, passwordCheck);
+        }
+        return Optional.of(read(type, in, original));
+    }
+
+    private static X5Object read(byte type, DataInputStream in, CheckedSupplier<X5Object, X5Exception> original) throws IOException {
+        switch (type) {
+            case CERTIFICATE:
+                return readCertificate(in, () -> certificate(original.get()));
+            case CHAIN:
+            case SEQUENCE:
+                final X5StreamInfo source = readSource(in);
+                final int count = in.readInt();
+                final List<X509Certificate> certificates = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final int index = i;
+                    certificates.add(readCertificate(in, () -> certificate(item(original.get(), index))));
+                }
+                return type == CHAIN ? new X5CertificateChain(certificates, source) : new ObjectSequence(certificates, source);
+            default:
+                throw new IOException("Unexpected object type [" + (char) type + "] in cache");
+        }
+    }
+
+    private static boolean writeSequence(Sequence sequence, DataOutputStream out) throws IOException, X5Exception {
+        final SequenceWriter writer = new SequenceWriter();
+        for (X5Object item : sequence.items()) {
+            if (writer.add(item) == false) {
+                return false;
+            }
+        }
+        return writer.writeItems(sequence.getSource(), sequence.getSource().getSyntax(), out);
+    }
+
+    /**
+     * Writes the items of a {@link Sequence} one at a time, so that a sequence can be cached while it is being read
+     * (see {@link org.adjective.x5.types.StreamingSequence#observe}), without retaining its items.
+     */
+    static class SequenceWriter {
+        private final ByteArrayOutputStream items;
+        private final DataOutputStream out;
+        private final Set<Optional<EncodingSyntax>> syntax;
+        private int count;
+        private boolean cacheable;
+
+        SequenceWriter() {
+            this.items = new ByteArrayOutputStream();
+            this.out = new DataOutputStream(items);
+            this.syntax = new HashSet<>();
+            this.count = 0;
+            this.cacheable = true;
+        }
+
+        /**
+         * @return {@code false} if the item cannot be cached (in which case the sequence cannot be cached)
+         */
+        boolean add(X5Object item) throws IOException, X5Exception {
+            if (cacheable && item instanceof X509Certificate && writeCertificate((X509Certificate) item, out)) {
+                syntax.add(item.getSource().getSyntax());
+                count++;
+            } else {
+                cacheable = false;
+            }
+            return cacheable;
+        }
+
+        /**
+         * Writes a complete (uncached) sequence object, with every item that has been added
+         *
+         * @return {@code false} if the sequence cannot be cached (in which case the output should be discarded)
+         */
+        boolean writeSequence(X5StreamInfo source, DataOutputStream target) throws IOException {
+            // The syntax of a streamed sequence is determined by its items, so it is taken from the items that were written (rather than
+            // the source, which would need to read the items again)
+            target.writeByte(SEQUENCE);
+            return writeItems(source, syntax.size() == 1 ? syntax.iterator().next() : Optional.empty(), target);
+        }
+
+        private boolean writeItems(X5StreamInfo source, Optional<EncodingSyntax> sequenceSyntax, DataOutputStream target)
+            throws IOException {
+            if (cacheable == false || writeSource(source, sequenceSyntax, target) == false) {
+                return false;
+            }
+            target.writeInt(count);
+            out.flush();
+            items.writeTo(target);
+            return true;
+        }
+    }
+
+    private static boolean writeStore(CryptoStore store, DataOutputStream out) throws IOException, X5Exception {
+        if (store instanceof JavaKeyStore && hasKeyEntries(((JavaKeyStore) store).getKeyStore())) {
+            // Reading the entries would decrypt the keys, and we never want to write anything about private keys to the cache
+            return false;
+        }
+        final Optional<Byte> passwordCheck = StorePasswordCheck.type(store);
+        if (passwordCheck.isEmpty()) {
+            return false;
+        }
+        out.writeByte(passwordCheck.get());
+        if (writeSource(store.getSource(), out) == false) {
+            return false;
+        }
+        final List<StoreEntry> entries = store.entries();
+        final List<String> propertyNames = new ArrayList<>(store.properties().keySet());
+        out.writeInt(propertyNames.size());
+        for (String name : propertyNames) {
+            out.writeUTF(name);
+        }
+        out.writeInt(entries.size());
+        for (StoreEntry entry : entries) {
+            if (entry.value() instanceof X509Certificate == false) {
+                return false;
+            }
+            out.writeUTF(entry.name());
+            if (writeSource(entry.getSource(), out) == false) {
+                return false;
+            }
+            if (writeCertificate((X509Certificate) entry.value(), out) == false) {
+                return false;
+            }
+            final Map<String, ? extends X5Object> properties = new LinkedHashMap<>(entry.properties());
+            properties.remove("name");
+            properties.remove("value");
+            out.writeInt(properties.size());
+            for (var property : properties.entrySet()) {
+                out.writeUTF(property.getKey());
+                if (property.getValue() == entry.value()) {
+                    out.writeByte(ENTRY_VALUE);
+                } else if (property.getValue() instanceof X5String) {
+                    out.writeByte(ATTRIBUTE);
+                    out.writeUTF(((X5String) property.getValue()).value());
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasKeyEntries(KeyStore keyStore) throws X5Exception {
+        try {
+            final Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                if (keyStore.isKeyEntry(aliases.nextElement())) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (KeyStoreException e) {
+            throw new CryptoStoreException("Cannot read aliases from keystore", e);
+        }
+    }
+
+    private static Optional<X5Object> readStore(
+        DataInputStream in,
+        CheckedSupplier<X5Object, X5Exception> original,
+        PasswordCheck passwordCheck
+    ) throws IOException {
+        if (passwordCheck.verify(in.readByte()) == false) {
+            return Optional.empty();
+        }
+        final X5StreamInfo source = readSource(in);
+        final int propertyCount = in.readInt();
+        final List<String> propertyNames = new ArrayList<>(propertyCount);
+        for (int i = 0; i < propertyCount; i++) {
+            propertyNames.add(in.readUTF());
+        }
+        final CachedKeyStore store = new CachedKeyStore(source, propertyNames, () -> store(original.get()));
+        final int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            final String name = in.readUTF();
+            final X5StreamInfo entrySource = readSource(in);
+            final CachedX509Certificate certificate = readCertificate(in, () -> certificate(entry(original.get(), name)));
+            final int count = in.readInt();
+            final Map<String, X5Object> properties = new LinkedHashMap<>();
+            for (int p = 0; p < count; p++) {
+                final String key = in.readUTF();
+                final byte type = in.readByte();
+                if (type == ENTRY_VALUE) {
+                    properties.put(key, certificate);
+                } else if (type == ATTRIBUTE) {
+                    properties.put(key, Values.string(in.readUTF(), entrySource));
+                } else {
+                    throw new IOException("Unexpected property type [" + (char) type + "] in cache");
+                }
+            }
+            store.addCachedEntry(name, entrySource, certificate, properties);
+        }
+        return Optional.of(store);
+    }
+
+    private static boolean writeCertificate(X509Certificate certificate, DataOutputStream out) throws IOException, X5Exception {
+        if (writeSource(certificate.getSource(), out) == false) {
+            return false;
+        }
+        final CachedX509Certificate.Metadata metadata = CachedX509Certificate.Metadata.of(certificate);
+        out.writeUTF(metadata.type);
+        out.writeUTF(metadata.subject);
+        out.writeUTF(metadata.issuer);
+        writeBytes(metadata.serial.toByteArray(), out);
+        out.writeLong(metadata.notBefore.getEpochSecond());
+        out.writeInt(metadata.notBefore.getNano());
+        out.writeLong(metadata.notAfter.getEpochSecond());
+        out.writeInt(metadata.notAfter.getNano());
+        out.writeUTF(metadata.signatureAlgorithm);
+        writeBytes(metadata.signatureAlgorithmIdentifier, out);
+        out.writeBoolean(metadata.hasBasicConstraints);
+        out.writeBoolean(metadata.isCA);
+        writeBytes(metadata.pathLength == null ? null : metadata.pathLength.toByteArray(), out);
+        writeBytes(metadata.subjectAlternativeName, out);
+        writeBytes(metadata.sha1, out);
+        writeBytes(metadata.sha256, out);
+        return true;
+    }
+
+    private static CachedX509Certificate readCertificate(DataInputStream in, CheckedSupplier<X509Certificate, X5Exception> original)
+        throws IOException {
+        final X5StreamInfo source = readSource(in);
+        final String type = in.readUTF();
+        final String subject = in.readUTF();
+        final String issuer = in.readUTF();
+        final BigInteger serial = new BigInteger(readBytes(in));
+        final Instant notBefore = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        final Instant notAfter = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        final String signatureAlgorithm = in.readUTF();
+        final byte[] signatureAlgorithmIdentifier = readBytes(in);
+        final boolean hasBasicConstraints = in.readBoolean();
+        final boolean isCA = in.readBoolean();
+        final byte[] pathLength = readBytes(in);
+        final byte[] subjectAlternativeName = readBytes(in);
+        final byte[] sha1 = readBytes(in);
+        final byte[] sha256 = readBytes(in);
+        final CachedX509Certificate.Metadata metadata = new CachedX509Certificate.Metadata(
+            type,
+            subject,
+            issuer,
+            serial,
+            notBefore,
+            notAfter,
+            signatureAlgorithm,
+            signatureAlgorithmIdentifier,
+            hasBasicConstraints,
+            isCA,
+            pathLength == null ? null : new BigInteger(pathLength),
+            subjectAlternativeName,
+            sha1,
+            sha256
+        );
+        return new CachedX509Certificate(metadata, source, original);
+    }
+
+    private static boolean writeSource(X5StreamInfo source, DataOutputStream out) throws IOException {
+        return writeSource(source, source.getSyntax(), out);
+    }
+
+    private static boolean writeSource(X5StreamInfo source, Optional<EncodingSyntax> syntax, DataOutputStream out) throws IOException {
+        if (source.getPath().isEmpty() || source.getFileType().isEmpty()) {
+            return false;
+        }
+        out.writeUTF(source.getSourceDescription());
+        out.writeUTF(source.getPath().get().toString());
+        out.writeUTF(source.getFileType().get().name());
+        out.writeUTF(syntax.map(Enum::name).orElse(""));
+        return true;
+    }
+
+    private static X5StreamInfo readSource(DataInputStream in) throws IOException {
+        final String description = in.readUTF();
+        final String path = in.readUTF();
+        final String fileType = in.readUTF();
+        final String syntax = in.readUTF();
+        try {
+            return new PathInfo(
+                Paths.get(path),
+                description,
+                FileType.valueOf(fileType),
+                syntax.isEmpty() ? Optional.empty() : Optional.of(EncodingSyntax.valueOf(syntax))
+            );
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid source [" + description + "] in cache", e);
+        }
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream out) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static X509Certificate certificate(X5Object object) throws X5Exception {
+        return object.as(X509Certificate.class).orElseThrow(() -> new TypeConversionException(object, X5Type.CERTIFICATE));
+    }
+
+    private static CryptoStore store(X5Object object) throws X5Exception {
+        return object.as(CryptoStore.class).orElseThrow(() -> new TypeConversionException(object, X5Type.STORE));
+    }
+
+    private static X5Object item(X5Object object, int index) throws X5Exception {
+        final Sequence sequence = object.as(Sequence.class).orElseThrow(() -> new TypeConversionException(object, X5Type.SEQUENCE));
+        int i = 0;
+        for (X5Object item : sequence.items()) {
+            if (i == index) {
+                return item;
+            }
+            i++;
+        }
+        throw new TypeConversionException(object, X5Type.CERTIFICATE);
+    }
+
+    private static X5Object entry(X5Object object, String name) throws X5Exception {
+        final Optional<StoreEntry> entry = store(object).findEntry(name);
+        if (entry.isPresent()) {
+            return entry.get().value();
+        }
+        throw new TypeConversionException(object, X5Type.STORE_ENTRY);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Lazy;
+
+class CachedFile implements X5File {
+    private final X5File file;
+    private final Lazy<X5Object, X5Exception> object;
+
+    CachedFile(X5File file, PasswordSupplier passwords, ParseCache cache) {
+        this.file = file;
+        this.object = Lazy.lazy(() -> cache.read(file.path(), passwords, file::asObject));
+    }
+
+    @Override
+    public Path path() {
+        return file.path();
+    }
+
+    @Override
+    public long size() throws IOException {
+        return file.size();
+    }
+
+    @Override
+    public X5StreamInfo info() throws X5Exception {
+        return object.get().getSource();
+    }
+
+    @Override
+    public X5Object asObject() throws X5Exception {
+        return object.get();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.types.StreamingSequence;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Lazy;
+
+/**
+ * An on-disk cache of the metadata for parsed files (currently certificates, certificate chains and trust stores).
+ * <p>
+ * Each file has a cache entry that is keyed by its path and validated against its size, modification time and a digest of its content.
+ * When a file has a valid cache entry, it is restored from the cached metadata, and the file is only parsed if something that is not
+ * in the cache (such as a public key) is needed.
+ * </p>
+ */
+public class ParseCache {
+
+    private static final int MAGIC = 0x58354302; // "X5C" + format version
+
+    private final Path directory;
+
+    public ParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param passwords The passwords that {@code file} uses, which are checked before a cached keystore is used
+     */
+    public X5File wrap(X5File file, PasswordSupplier passwords) {
+        return new CachedFile(file, passwords, this);
+    }
+
+    X5Object read(Path path, PasswordSupplier passwords, CheckedSupplier<X5Object, X5Exception> parser) throws X5Exception {
+        final Lazy<X5Object, X5Exception> original = Lazy.lazy(parser);
+        final Path cacheFile = cacheFile(path);
+        final FileState state;
+        try {
+            state = FileState.of(path);
+        } catch (IOException e) {
+            Debug.error(e, "Cannot determine state of %s, the cache will not be used", path);
+            return original.get();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (state.matches(in)) {
+                final Optional<X5Object> object = CacheCodec.read(
+                    in,
+                    original,
+                    type -> StorePasswordCheck.verify(type, path, passwords.get(path))
+                );
+                if (object.isPresent()) {
+                    Debug.printf("Using cache entry %s for %s", cacheFile, path);
+                    return object.get();
+                }
+                // Parsing the file reports the same error as it would without a cache (or succeeds, if the store cannot be checked)
+                Debug.printf("Password check failed for cache entry %s, parsing %s", cacheFile, path);
+                return original.get();
+            }
+            Debug.printf("Cache entry %s is out of date for %s", cacheFile, path);
+        } catch (NoSuchFileException e) {
+            Debug.printf("No cache entry for %s", path);
+        } catch (IOException e) {
+            Debug.error(e, "Cannot read cache entry %s for %s", cacheFile, path);
+        }
+
+        try {
+            // The digest is taken before the file is parsed, so that a change during parsing invalidates the entry
+            state.digest();
+        } catch (IOException e) {
+            Debug.error(e, "Cannot read %s, the cache will not be used", path);
+            return original.get();
+        }
+        final X5Object object = original.get();
+        if (object instanceof StreamingSequence) {
+            // Reading the whole sequence here would defeat streaming, so the entry is written once something else has read it
+            ((StreamingSequence) object).observe(() -> new SequencePass(cacheFile, state, object));
+            return object;
+        }
+        try {
+            write(cacheFile, state, object, out -> CacheCodec.write(object, out));
+        } catch (IOException | X5Exception e) {
+            Debug.error(e, "Cannot write cache entry %s for %s", cacheFile, path);
+        }
+        return object;
+    }
+
+    private interface EntryWriter {
+        /**
+         * @return {@code false} if the object cannot be cached
+         */
+        boolean write(DataOutputStream out) throws IOException, X5Exception;
+    }
+
+    private void write(Path cacheFile, FileState state, X5Object object, EntryWriter writer) throws IOException, X5Exception {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            state.writeTo(out);
+            if (writer.write(out) == false) {
+                Debug.printf("Cannot cache %s", object.description());
+                return;
+            }
+        }
+
+        Files.createDirectories(directory);
+        final Path temp = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                buffer.writeTo(out);
+            }
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Debug.printf("Wrote cache entry %s for %s", cacheFile, state.path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path cacheFile(Path path) {
+        final String key = path.toAbsolutePath().normalize().toString();
+        return directory.resolve(HexFormat.of().formatHex(Digest.sha256(key.getBytes(StandardCharsets.UTF_8))) + ".x5c");
+    }
+
+    /**
+     * Writes a cache entry for a {@link StreamingSequence} from the items of an iteration that reads the whole sequence
+     */
+    private class SequencePass implements StreamingSequence.Pass {
+        private final Path cacheFile;
+        private final FileState state;
+        private final X5Object sequence;
+        private final CacheCodec.SequenceWriter writer;
+        private boolean cacheable;
+
+        private SequencePass(Path cacheFile, FileState state, X5Object sequence) {
+            this.cacheFile = cacheFile;
+            this.state = state;
+            this.sequence = sequence;
+            this.writer = new CacheCodec.SequenceWriter();
+            this.cacheable = true;
+        }
+
+        @Override
+        public void accept(X5Object item) {
+            try {
+                cacheable = cacheable && writer.add(item);
+            } catch (IOException | X5Exception e) {
+                Debug.error(e, "Cannot cache %s from %s", item.description(), state.path);
+                cacheable = false;
+            }
+        }
+
+        @Override
+        public void complete() {
+            if (cacheable == false) {
+                Debug.printf("Cannot cache %s", sequence.description());
+                return;
+            }
+            try {
+                write(cacheFile, state, sequence, out -> writer.writeSequence(sequence.getSource(), out));
+            } catch (IOException | X5Exception e) {
+                Debug.error(e, "Cannot write cache entry %s for %s", cacheFile, state.path);
+            }
+        }
+    }
+
+    /**
+     * The identity of a file, as recorded in the header of a cache entry.
+     * The digest of the file's content is only calculated if it is needed, which is when the size and modification time match a cache
+     * entry, or a new cache entry is written.
+     */
+    private static class FileState {
+        private static final int DIGEST_LENGTH = 32;
+
+        private final String path;
+        private final long size;
+        private final long modified;
+        private final Lazy<byte[], IOException> digest;
+
+        private FileState(Path path, long size, long modified) {
+            this.path = path.toString();
+            this.size = size;
+            this.modified = modified;
+            this.digest = Lazy.lazy(() -> digest(path));
+        }
+
+        static FileState of(Path path) throws IOException {
+            return new FileState(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+        }
+
+        private static byte[] digest(Path path) throws IOException {
+            final MessageDigest digest = Digest.SHA256.newInstance();
+            try (InputStream in = Files.newInputStream(path)) {
+                final byte[] buffer = new byte[16 * 1024];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return digest.digest();
+        }
+
+        byte[] digest() throws IOException {
+            return digest.get();
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            final byte[] bytes = digest();
+            out.writeInt(MAGIC);
+            out.writeUTF(path);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        boolean matches(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC) {
+                return false;
+            }
+            if (in.readUTF().equals(path) == false || in.readLong() != size || in.readLong() != modified) {
+                return false;
+            }
+            final int length = in.readInt();
+            if (length != DIGEST_LENGTH) {
+                throw new IOException("Invalid digest length [" + length + "] in cache entry for " + path);
+            }
+            final byte[] cached = new byte[length];
+            in.readFully(cached);
+            return Arrays.equals(cached, digest());
+        }
+    }
+}
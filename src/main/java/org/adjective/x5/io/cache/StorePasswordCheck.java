@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.io.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.crypto.JavaKeyStore;
+import org.adjective.x5.types.value.Password;
+import org.bouncycastle.operator.bc.BcDefaultDigestProvider;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCSException;
+import org.bouncycastle.pkcs.bc.BcPKCS12MacCalculatorBuilderProvider;
+
+/**
+ * A cached keystore is restored without loading the keystore file, so the password is checked against the file's integrity check
+ * (as loading the file would do) before the cache entry is used. If the check fails, the file is parsed so that it fails in the same
+ * way as it does without a cache.
+ */
+final class StorePasswordCheck {
+
+    static final byte JKS = 'J';
+    static final byte PKCS12 = 'P';
+
+    // The fixed salt of the JKS / JCEKS integrity check (see sun.security.provider.JavaKeyStore)
+    private static final byte[] JKS_SALT = "Mighty Aphrodite".getBytes(StandardCharsets.UTF_8);
+    private static final int JKS_DIGEST_LENGTH = 20;
+
+    private StorePasswordCheck() {
+    }
+
+    /**
+     * @return The type of check that applies to {@code store}, or empty if the password of the store cannot be checked
+     */
+    static Optional<Byte> type(CryptoStore store) {
+        if (store instanceof JavaKeyStore) {
+            final KeyStore keyStore = ((JavaKeyStore) store).getKeyStore();
+            if (keyStore.getType().equalsIgnoreCase("JKS") || keyStore.getType().equalsIgnoreCase("JCEKS")) {
+                return Optional.of(JKS);
+            }
+            if (keyStore.getType().equalsIgnoreCase("PKCS12")) {
+                return Optional.of(PKCS12);
+            }
+        }
+        return Optional.empty();
+    }
+
+    static boolean verify(byte type, Path path, Password password) throws IOException {
+        final char[] chars = password == null ? null : password.chars();
+        switch (type) {
+            case JKS:
+                return verifyJks(Files.readAllBytes(path), chars);
+            case PKCS12:
+                return verifyPkcs12(Files.readAllBytes(path), chars);
+            default:
+                throw new IOException("Unexpected password check [" + (char) type + "] in cache");
+        }
+    }
+
+    private static boolean verifyJks(byte[] content, char[] password) throws IOException {
+        if (password == null) {
+            // The JDK does not check the integrity of a JKS file that is loaded without a password
+            return true;
+        }
+        if (content.length < JKS_DIGEST_LENGTH) {
+            return false;
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (char c : password) {
+                digest.update((byte) (c >> 8));
+                digest.update((byte) c);
+            }
+            digest.update(JKS_SALT);
+            digest.update(content, 0, content.length - JKS_DIGEST_LENGTH);
+            return MessageDigest.isEqual(digest.digest(), Arrays.copyOfRange(content, content.length - JKS_DIGEST_LENGTH, content.length));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Cannot check JKS integrity", e);
+        }
+    }
+
+    private static boolean verifyPkcs12(byte[] content, char[] password) throws IOException {
+        if (password == null) {
+            return false;
+        }
+        try {
+            final PKCS12PfxPdu pfx = new PKCS12PfxPdu(content);
+            if (pfx.hasMac() == false) {
+                // The password is then only checked by decrypting the certificates, so the file needs to be parsed
+                return false;
+            }
+            return pfx.isMacValid(new BcPKCS12MacCalculatorBuilderProvider(BcDefaultDigestProvider.INSTANCE), password);
+        } catch (PKCSException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.encrypt;
+
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.adjective.x5.types.value.Password;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.pkcs.EncryptedPrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.PBES2Parameters;
+import org.bouncycastle.asn1.pkcs.PBKDF2Params;
+import org.bouncycastle.asn1.pkcs.PKCS12PBEParams;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.DefaultSecretKeySizeProvider;
+
+/**
+ * Decrypts PKCS#8 encrypted private keys with keys from a {@link DerivedKeyCache}.
+ * This supports PBES2 (with PBKDF2), and PKCS#12 PBE with 3-key triple DES (which is used for the keys in PKCS#12 files that are
+ * written by older JDKs and OpenSSL versions). Keys that use other schemes are left to the caller.
+ */
+public class CachedKeyDecryptor {
+
+    private static final Map<ASN1ObjectIdentifier, String> PBKDF2_ALGORITHMS = Map.of(
+        PKCSObjectIdentifiers.id_hmacWithSHA1,
+        "PBKDF2WithHmacSHA1",
+        PKCSObjectIdentifiers.id_hmacWithSHA224,
+        "PBKDF2WithHmacSHA224",
+        PKCSObjectIdentifiers.id_hmacWithSHA256,
+        "PBKDF2WithHmacSHA256",
+        PKCSObjectIdentifiers.id_hmacWithSHA384,
+        "PBKDF2WithHmacSHA384",
+        PKCSObjectIdentifiers.id_hmacWithSHA512,
+        "PBKDF2WithHmacSHA512"
+    );
+    private static final int TRIPLE_DES_KEY_BITS = 192;
+
+    private final DerivedKeyCache keyCache;
+    private final Provider securityProvider;
+
+    public CachedKeyDecryptor(DerivedKeyCache keyCache, Provider securityProvider) {
+        this.keyCache = keyCache;
+        this.securityProvider = securityProvider;
+    }
+
+    /**
+     * @return The decrypted key, or empty if its encryption scheme is not supported here
+     */
+    public Optional<PrivateKeyInfo> decrypt(EncryptedPrivateKeyInfo encrypted, Password password) throws GeneralSecurityException {
+        final Optional<Cipher> cipher = cipher(encrypted.getEncryptionAlgorithm(), password);
+        if (cipher.isEmpty()) {
+            return Optional.empty();
+        }
+        final byte[] decrypted = cipher.get().doFinal(encrypted.getEncryptedData());
+        try {
+            return Optional.of(PrivateKeyInfo.getInstance(decrypted));
+        } catch (IllegalArgumentException e) {
+            // The padding happened to be valid, but the password is wrong
+            throw new GeneralSecurityException("Cannot decrypt PKCS#8 key: " + e.getMessage(), e);
+        } finally {
+            Arrays.fill(decrypted, (byte) 0);
+        }
+    }
+
+    private Optional<Cipher> cipher(AlgorithmIdentifier algorithm, Password password) throws GeneralSecurityException {
+        if (algorithm.getAlgorithm().equals(PKCSObjectIdentifiers.id_PBES2)) {
+            return pbes2Cipher(PBES2Parameters.getInstance(algorithm.getParameters()), password);
+        }
+        if (algorithm.getAlgorithm().equals(PKCSObjectIdentifiers.pbeWithSHAAnd3_KeyTripleDES_CBC)) {
+            return Optional.of(pkcs12Cipher(PKCS12PBEParams.getInstance(algorithm.getParameters()), password));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Builds a cipher for PBES2 (PBKDF2) encryption.
+     * Returns empty if the parameters are not supported here, in which case they are left to Bouncy Castle.
+     */
+    private Optional<Cipher> pbes2Cipher(PBES2Parameters pbes2, Password password) throws GeneralSecurityException {
+        if (pbes2.getKeyDerivationFunc().getAlgorithm().equals(PKCSObjectIdentifiers.id_PBKDF2) == false) {
+            return Optional.empty();
+        }
+        final PBKDF2Params kdf = PBKDF2Params.getInstance(pbes2.getKeyDerivationFunc().getParameters());
+        final String kdfAlgorithm = PBKDF2_ALGORITHMS.get(kdf.getPrf().getAlgorithm());
+        final AlgorithmIdentifier scheme = AlgorithmIdentifier.getInstance(pbes2.getEncryptionScheme());
+        if (kdfAlgorithm == null || scheme.getParameters() instanceof ASN1OctetString == false) {
+            return Optional.empty();
+        }
+        final int keyLength = kdf.getKeyLength() != null
+            ? kdf.getKeyLength().intValueExact() * 8
+            : DefaultSecretKeySizeProvider.INSTANCE.getKeySize(scheme);
+        if (keyLength <= 0) {
+            return Optional.empty();
+        }
+        final byte[] key = keyCache.derive(password, kdf.getSalt(), kdf.getIterationCount().intValueExact(), keyLength, kdfAlgorithm);
+        try {
+            final String cipherName = scheme.getAlgorithm().getId();
+            final Cipher cipher = Cipher.getInstance(cipherName, securityProvider);
+            final byte[] iv = ASN1OctetString.getInstance(scheme.getParameters()).getOctets();
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, cipherName), new IvParameterSpec(iv));
+            return Optional.of(cipher);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private Cipher pkcs12Cipher(PKCS12PBEParams pbe, Password password) throws GeneralSecurityException {
+        final byte[] derived = keyCache.derive(
+            password,
+            pbe.getIV(),
+            pbe.getIterations().intValueExact(),
+            TRIPLE_DES_KEY_BITS,
+            DerivedKeyCache.PKCS12_SHA1
+        );
+        try {
+            final int keyLength = TRIPLE_DES_KEY_BITS / 8;
+            final Cipher cipher = Cipher.getInstance("DESede/CBC/PKCS5Padding", securityProvider);
+            cipher.init(
+                Cipher.DECRYPT_MODE,
+                new SecretKeySpec(derived, 0, keyLength, "DESede"),
+                new IvParameterSpec(derived, keyLength, derived.length - keyLength)
+            );
+            return cipher;
+        } finally {
+            Arrays.fill(derived, (byte) 0);
+        }
+    }
+}
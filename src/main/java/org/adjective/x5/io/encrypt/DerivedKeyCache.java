@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.encrypt;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.value.Password;
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.generators.PKCS12ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+/**
+ * A bounded cache of keys that have been derived from passwords (with PBKDF2, or the PKCS#12 key derivation function), for use within a
+ * single run. Encrypted keys (see {@link CachedKeyDecryptor}) that use the same password, salt and parameters (or a single file that is
+ * read more than once) only pay the cost of key derivation once.
+ * <p>
+ * Keys in JKS keystores, and PKCS#12 keys that use other encryption schemes, are decrypted by the JCA keystore implementation, which
+ * derives its own keys, so they do not use this cache. The number of hits is reported by the {@code --stats} option.
+ * </p>
+ * <p>
+ * Passwords are identified by their SHA-256 digest, and are not retained. Derived keys are wiped when they are evicted from the cache,
+ * and when the cache is closed.
+ */
+public class DerivedKeyCache implements Closeable {
+
+    public static final int DEFAULT_SIZE = 64;
+
+    /**
+     * The PKCS#12 key derivation function with SHA-1 (RFC 7292, appendix B).
+     * It derives the IV separately from the key, so the derived value is the key followed by an 8 byte IV.
+     */
+    public static final String PKCS12_SHA1 = "PKCS12WithSHA1";
+    private static final int PKCS12_IV_BITS = 64;
+
+    private final Map<CacheKey, byte[]> keys;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    public DerivedKeyCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    public DerivedKeyCache(int maxSize) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, byte[]> eldest) {
+                if (size() > maxSize) {
+                    Arrays.fill(eldest.getValue(), (byte) 0);
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+    }
+
+    /**
+     * @param algorithm The JCA name of the key derivation function, such as {@code PBKDF2WithHmacSHA256}, or {@link #PKCS12_SHA1}
+     * @return The (raw) derived key. The caller may modify the returned array.
+     */
+    public byte[] derive(Password password, byte[] salt, int iterations, int keyLengthBits, String algorithm)
+        throws GeneralSecurityException {
+        final CacheKey cacheKey = new CacheKey(digest(password), salt, iterations, keyLengthBits, algorithm);
+        synchronized (keys) {
+            final byte[] key = keys.get(cacheKey);
+            if (key != null) {
+                hits.incrementAndGet();
+                return key.clone();
+            }
+        }
+        misses.incrementAndGet();
+        // Derivation is (deliberately) slow, so it happens outside the lock
+        final byte[] key = generate(password, salt, iterations, keyLengthBits, algorithm);
+        synchronized (keys) {
+            keys.putIfAbsent(cacheKey, key.clone());
+        }
+        return key;
+    }
+
+    private static byte[] generate(Password password, byte[] salt, int iterations, int keyLengthBits, String algorithm)
+        throws GeneralSecurityException {
+        if (algorithm.equals(PKCS12_SHA1)) {
+            final byte[] passwordBytes = PBEParametersGenerator.PKCS12PasswordToBytes(password.chars());
+            try {
+                final PKCS12ParametersGenerator generator = new PKCS12ParametersGenerator(new SHA1Digest());
+                generator.init(passwordBytes, salt, iterations);
+                final ParametersWithIV parameters = (ParametersWithIV) generator.generateDerivedParameters(keyLengthBits, PKCS12_IV_BITS);
+                final byte[] key = ((KeyParameter) parameters.getParameters()).getKey();
+                final byte[] derived = Arrays.copyOf(key, key.length + parameters.getIV().length);
+                System.arraycopy(parameters.getIV(), 0, derived, key.length, parameters.getIV().length);
+                Arrays.fill(key, (byte) 0);
+                return derived;
+            } finally {
+                Arrays.fill(passwordBytes, (byte) 0);
+            }
+        }
+        final PBEKeySpec spec = new PBEKeySpec(password.chars(), salt, iterations, keyLengthBits);
+        try {
+            return SecretKeyFactory.getInstance(algorithm).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * A description of the cache's hits and misses
+     */
+    public String summary() {
+        return "Derived key cache: " + hits.get() + " hits, " + misses.get() + " misses";
+    }
+
+    @Override
+    public void close() {
+        Debug.printf("%s\n", summary());
+        synchronized (keys) {
+            keys.values().forEach(k -> Arrays.fill(k, (byte) 0));
+            keys.clear();
+        }
+    }
+
+    private static byte[] digest(Password password) {
+        final ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password.chars()));
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try {
+            return Digest.sha256(bytes);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+            if (buffer.hasArray()) {
+                Arrays.fill(buffer.array(), (byte) 0);
+            }
+        }
+    }
+
+    private static final class CacheKey {
+        private final byte[] password;
+        private final byte[] salt;
+        private final int iterations;
+        private final int keyLength;
+        private final String algorithm;
+
+        private CacheKey(byte[] password, byte[] salt, int iterations, int keyLength, String algorithm) {
+            this.password = password;
+            this.salt = salt;
+            this.iterations = iterations;
+            this.keyLength = keyLength;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) o;
+            return iterations == other.iterations
+                && keyLength == other.keyLength
+                && Arrays.equals(password, other.password)
+                && Arrays.equals(salt, other.salt)
+                && algorithm.equals(other.algorithm);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(password), Arrays.hashCode(salt), iterations, keyLength, algorithm);
+        }
+    }
+}
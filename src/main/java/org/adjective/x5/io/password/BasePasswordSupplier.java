@@ -17,7 +17,6 @@ package org.adjective.x5.io.password;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import org.adjective.x5.command.Command;
 import org.adjective.x5.command.Environment;
@@ -53,13 +52,13 @@ public abstract class BasePasswordSupplier implements PasswordSupplier {
             case ENV:
                 String env = environment.get(spec.text());
                 if (env == null) {
-                    throw new IllegalArgumentException("Environment variable " + env + " does not exist");
+                    throw new IllegalArgumentException("Environment variable " + spec.text() + " does not exist");
                 }
                 return new Password(env, Values.source("environment." + spec.text()));
             case LITERAL:
                 return new Password(spec.text(), Values.source("password literal"));
             case FILE: {
-                final Path path = Paths.get(spec.text());
+                final Path path = environment.resolve(spec.text());
                 String value = Files.readString(path);
                 if (value.endsWith(System.lineSeparator())) {
                     value = value.substring(0, value.length() - System.lineSeparator().length());
@@ -33,8 +33,11 @@ public class InteractivePasswordSupplier extends BasePasswordSupplier {
         super(environment);
     }
 
+    /**
+     * Synchronized, because files may be parsed in parallel by {@link org.adjective.x5.command.ReadCommand}, and prompts must not overlap
+     */
     @Override
-    protected Password input(String text) throws IOException {
+    protected synchronized Password input(String text) throws IOException {
         if (console == null) {
             throw new IOException("Cannot read password interactively because there is no attached console");
         }
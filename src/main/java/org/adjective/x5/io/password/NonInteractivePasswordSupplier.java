@@ -0,0 +1,38 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.password;
+
+import java.io.IOException;
+
+import org.adjective.x5.command.Environment;
+import org.adjective.x5.types.value.Password;
+
+/**
+ * Supports password specifications (files, environment variables and literals), but cannot ask for a password
+ */
+public class NonInteractivePasswordSupplier extends BasePasswordSupplier {
+
+    private final String reason;
+
+    public NonInteractivePasswordSupplier(Environment environment, String reason) {
+        super(environment);
+        this.reason = reason;
+    }
+
+    @Override
+    protected Password input(String text) throws IOException {
+        throw new IOException("Cannot read password for " + text + " " + reason);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.io.password;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adjective.x5.command.Command;
+import org.adjective.x5.types.value.Password;
+
+/**
+ * Remembers the password for each path, so that a file that is read more than once only asks for it once
+ */
+public class RememberedPasswords implements PasswordSupplier {
+    private final PasswordSupplier delegate;
+    private final Map<Path, Password> passwords;
+
+    public RememberedPasswords(PasswordSupplier delegate) {
+        this.delegate = delegate;
+        this.passwords = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Password get(Path path) throws IOException {
+        final Password password = passwords.get(path);
+        if (password != null) {
+            return password;
+        }
+        final Password input = delegate.get(path);
+        passwords.put(path, input);
+        return input;
+    }
+
+    @Override
+    public Password forCommand(Command command) throws IOException {
+        return delegate.forCommand(command);
+    }
+
+    @Override
+    public Password forSpec(PasswordSpec spec) throws IOException {
+        return delegate.forSpec(spec);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.adjective.x5.io.Debug;
+
+/**
+ * Waits for changes to a set of files and directories.
+ * Changes are debounced: a burst of changes (such as an editor writing a file in several steps, or a tool replacing a set of
+ * certificates) is reported as a single set of changed paths once no further changes have occurred for a quiet period.
+ * Any event in the directory of a watched file causes that file to be checked, because a file can change without an event that
+ * names it. For example, Kubernetes updates a mounted secret by replacing the {@code ..data} symlink that each file links through.
+ */
+public class FileWatcher implements Closeable {
+
+    private final WatchService service;
+    private final Map<WatchKey, Path> keys;
+    private final Map<Path, FileState> files;
+    private final Set<Path> directories;
+
+    public FileWatcher() throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.keys = new HashMap<>();
+        this.files = new HashMap<>();
+        this.directories = new HashSet<>();
+    }
+
+    /**
+     * Watches for changes to the provided files, and for any file being added to, changed or removed from the provided directories.
+     * This is in addition to anything that is already being watched.
+     * Each file is compared to its current state on disk, so this should be called just after the files have been read.
+     */
+    public void watch(Collection<Path> files, Collection<Path> directories) throws IOException {
+        for (Path file : files) {
+            this.files.put(file, FileState.of(file));
+            register(file.getParent());
+        }
+        for (Path dir : directories) {
+            this.directories.add(dir);
+            register(dir);
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        if (keys.containsValue(dir) == false) {
+            Debug.printf("Watching %s\n", dir);
+            keys.put(dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+        }
+    }
+
+    /**
+     * Blocks until at least one watched path has changed, and then until no more changes occur for the {@code quietPeriod}
+     *
+     * @return The paths that changed
+     */
+    public Set<Path> awaitChanges(Duration quietPeriod) throws InterruptedException {
+        final Set<Path> changed = new HashSet<>();
+        while (changed.isEmpty()) {
+            collect(service.take(), changed);
+        }
+        for (WatchKey key = poll(quietPeriod); key != null; key = poll(quietPeriod)) {
+            collect(key, changed);
+        }
+        Debug.printf("Changed: %s\n", changed);
+        return changed;
+    }
+
+    private WatchKey poll(Duration timeout) throws InterruptedException {
+        return service.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        final Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null) {
+                continue;
+            }
+            if (event.kind() == OVERFLOW) {
+                // Some events were lost, so assume that everything in the directory changed
+                changed.add(dir);
+                continue;
+            }
+            final Path path = dir.resolve((Path) event.context());
+            if (files.containsKey(path) || directories.contains(dir)) {
+                changed.add(path);
+            }
+        }
+        if (dir != null) {
+            checkFiles(dir, changed);
+        }
+        if (key.reset() == false) {
+            // The directory is no longer accessible (e.g. it was deleted)
+            keys.remove(key);
+            if (dir != null) {
+                changed.add(dir);
+            }
+        }
+    }
+
+    private void checkFiles(Path dir, Set<Path> changed) {
+        for (Map.Entry<Path, FileState> entry : files.entrySet()) {
+            if (dir.equals(entry.getKey().getParent())) {
+                final FileState state = FileState.of(entry.getKey());
+                if (state.equals(entry.getValue()) == false) {
+                    Debug.printf("File %s changed from %s to %s\n", entry.getKey(), entry.getValue(), state);
+                    entry.setValue(state);
+                    changed.add(entry.getKey());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+
+    private static final class FileState {
+        private static final FileState MISSING = new FileState(null, null, -1, null);
+
+        private final Path realPath;
+        private final FileTime lastModified;
+        private final long size;
+        private final Object fileKey;
+
+        private FileState(Path realPath, FileTime lastModified, long size, Object fileKey) {
+            this.realPath = realPath;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.fileKey = fileKey;
+        }
+
+        private static FileState of(Path file) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(file.toRealPath(), attributes.lastModifiedTime(), attributes.size(), attributes.fileKey());
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            final FileState that = (FileState) other;
+            return size == that.size
+                && Objects.equals(realPath, that.realPath)
+                && Objects.equals(lastModified, that.lastModified)
+                && Objects.equals(fileKey, that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(realPath, lastModified, size, fileKey);
+        }
+
+        @Override
+        public String toString() {
+            return this == MISSING ? "<missing>" : realPath + " (" + size + " bytes, modified " + lastModified + ")";
+        }
+    }
+}
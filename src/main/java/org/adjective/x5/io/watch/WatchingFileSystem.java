@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.watch;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.FileSys;
+import org.adjective.x5.io.password.PasswordSpec;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+
+/**
+ * A file system that records which files (and directories) are read, so that they can be watched for changes.
+ * Files that are read without an explicit password are kept, so that when the same command line is run again, only the files that
+ * have {@link #changed(Collection) changed} since the previous run need to be parsed again.
+ * Files that were parsed as a {@link CryptoStore} are not kept, because commands (such as {@code import}) modify the store, and each run
+ * needs to start from the content of the file.
+ */
+public class WatchingFileSystem implements FileSys {
+
+    private final FileSys delegate;
+    private final Set<Path> files;
+    private final Set<Path> directories;
+    private final Map<Path, ReusableFile> cache;
+
+    public WatchingFileSystem(FileSys delegate) {
+        this.delegate = delegate;
+        this.files = ConcurrentHashMap.newKeySet();
+        this.directories = ConcurrentHashMap.newKeySet();
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Path resolve(String path) {
+        return delegate.resolve(path);
+    }
+
+    @Override
+    public List<Path> expand(String path) throws IOException {
+        final List<Path> expanded = delegate.expand(path);
+        final Path resolved = resolve(path);
+        if (expanded.equals(List.of(resolved)) == false) {
+            // A glob or directory, so files that are added to (or removed from) the directory change the result
+            if (Files.isDirectory(resolved)) {
+                directories.add(resolved);
+            }
+            for (Path p : expanded) {
+                directories.add(p.getParent());
+            }
+        }
+        return expanded;
+    }
+
+    @Override
+    public X5File read(Path path, PasswordSpec password) throws FileNotFoundException {
+        if (Files.isRegularFile(path) == false) {
+            // stdin, pipes, etc
+            return delegate.read(path, password);
+        }
+        files.add(path);
+        if (password != null) {
+            return delegate.read(path, password);
+        }
+        final ReusableFile cached = cache.get(path);
+        if (cached != null && cached.isReusable()) {
+            Debug.printf("Reusing %s\n", path);
+            return cached;
+        }
+        final ReusableFile file = new ReusableFile(delegate.read(path, null));
+        cache.put(path, file);
+        return file;
+    }
+
+    @Override
+    public OutputStream writeTo(Path path, boolean overwrite) throws IOException {
+        return delegate.writeTo(path, overwrite);
+    }
+
+    /**
+     * The files that have been read
+     */
+    public Set<Path> files() {
+        return Set.copyOf(files);
+    }
+
+    /**
+     * The directories that have been searched for files (e.g. by a glob pattern)
+     */
+    public Set<Path> directories() {
+        return Set.copyOf(directories);
+    }
+
+    /**
+     * Discards the previously read content of the provided paths (or any files within them, if they are directories)
+     */
+    public void changed(Collection<Path> paths) {
+        for (Path path : paths) {
+            cache.keySet().removeIf(p -> p.startsWith(path));
+        }
+    }
+
+    private static class ReusableFile implements X5File {
+        private final X5File file;
+        private volatile boolean mutable;
+
+        private ReusableFile(X5File file) {
+            this.file = file;
+            this.mutable = false;
+        }
+
+        boolean isReusable() {
+            return mutable == false;
+        }
+
+        @Override
+        public Path path() {
+            return file.path();
+        }
+
+        @Override
+        public X5StreamInfo info() throws X5Exception {
+            return file.info();
+        }
+
+        @Override
+        public X5Object asObject() throws X5Exception {
+            final X5Object object = file.asObject();
+            if (object instanceof CryptoStore) {
+                mutable = true;
+            }
+            return object;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+    }
+}
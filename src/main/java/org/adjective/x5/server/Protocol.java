@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The wire protocol between {@link X5Client} and {@link X5Server}.
+ * <p>
+ * The client sends a request (the working directory, environment variables and the command line arguments), and then the server sends
+ * a series of frames (each a type byte followed by a length-prefixed payload) until it sends an exit frame.
+ * If the command reads from stdin, the server sends an input frame, and the client responds with data frames containing its stdin,
+ * followed by an empty data frame.
+ * </p>
+ */
+final class Protocol {
+
+    static final int VERSION = 2;
+
+    static final byte STDOUT = 'O';
+    static final byte STDERR = 'E';
+    static final byte INPUT = 'I';
+    static final byte DATA = 'D';
+    static final byte EXIT = 'X';
+
+    private Protocol() {
+    }
+
+    static final class Request {
+        final String workingDirectory;
+        final Map<String, String> environment;
+        final List<String> args;
+
+        Request(String workingDirectory, Map<String, String> environment, List<String> args) {
+            this.workingDirectory = workingDirectory;
+            this.environment = environment;
+            this.args = args;
+        }
+    }
+
+    static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(VERSION);
+        writeString(out, request.workingDirectory);
+        out.writeInt(request.environment.size());
+        for (Map.Entry<String, String> variable : request.environment.entrySet()) {
+            writeString(out, variable.getKey());
+            writeString(out, variable.getValue());
+        }
+        out.writeInt(request.args.size());
+        for (String arg : request.args) {
+            writeString(out, arg);
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version " + version + " (expected " + VERSION + ")");
+        }
+        final String workingDirectory = readString(in);
+        final int variables = in.readInt();
+        final Map<String, String> environment = new HashMap<>(variables);
+        for (int i = 0; i < variables; i++) {
+            environment.put(readString(in), readString(in));
+        }
+        final int count = in.readInt();
+        final List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            args.add(readString(in));
+        }
+        return new Request(workingDirectory, environment, args);
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes, int offset, int length) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+            out.flush();
+        }
+    }
+
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(Integer.BYTES);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    static byte[] readPayload(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readPayload(in), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A thin client that sends a command line to a running {@link X5Server}, and relays the output (and exit code) of that command.
+ */
+public class X5Client {
+
+    public static int connect(Path socket, List<String> args) throws IOException {
+        return connect(socket, args, System.getenv(), System.in, System.out, System.err);
+    }
+
+    /**
+     * Runs the command line on the server, and relays its output to the provided streams
+     *
+     * @return the exit code of the command
+     */
+    public static int connect(
+        Path socket,
+        List<String> args,
+        Map<String, String> environment,
+        InputStream stdin,
+        PrintStream stdout,
+        PrintStream stderr
+    ) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            Protocol.writeRequest(out, new Protocol.Request(Paths.get("").toAbsolutePath().toString(), environment, args));
+            for (;;) {
+                final byte type = in.readByte();
+                switch (type) {
+                    case Protocol.STDOUT:
+                        stdout.write(Protocol.readPayload(in));
+                        stdout.flush();
+                        break;
+                    case Protocol.STDERR:
+                        stderr.write(Protocol.readPayload(in));
+                        stderr.flush();
+                        break;
+                    case Protocol.INPUT:
+                        Protocol.readPayload(in);
+                        sendInput(stdin, out);
+                        break;
+                    case Protocol.EXIT:
+                        in.readInt();
+                        return in.readInt();
+                    default:
+                        throw new IOException("Unexpected frame type [" + (char) type + "] from server");
+                }
+            }
+        }
+    }
+
+    private static void sendInput(InputStream input, DataOutputStream out) throws IOException {
+        final byte[] buffer = new byte[8 * 1024];
+        for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+            Protocol.writeFrame(out, Protocol.DATA, buffer, 0, read);
+        }
+        Protocol.writeFrame(out, Protocol.DATA, buffer, 0, 0);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.adjective.x5.Main;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.StdIO;
+
+/**
+ * A resident x5 process that runs command lines received on a unix domain socket (see {@link X5Client}).
+ * Requests are processed one at a time, and each one behaves as if it were a separate invocation of x5 (in the client's working
+ * directory), but they share the same JVM, command registry and security providers.
+ * Options that would change the server process itself (such as {@code --debug}) are rejected (see {@link Main#runRequest}).
+ * <p>
+ * The socket is only accessible to the user that runs the server (where the file system supports POSIX permissions), since requests
+ * can read any file that the server can read.
+ * </p>
+ */
+public class X5Server implements Closeable {
+
+    private final Main main;
+    private final Path socket;
+    private final ServerSocketChannel server;
+
+    public X5Server(Main main, Path socket) throws IOException {
+        this.main = main;
+        this.socket = socket;
+        removeStaleSocket(socket);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            bind(server, socket);
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a socket that was left behind by a server that did not shut down cleanly.
+     * Anything else at that path (including a socket that has a running server) is not touched.
+     */
+    private static void removeStaleSocket(Path socket) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        // Sockets are neither regular files, directories nor symbolic links
+        if (attributes.isOther() == false) {
+            throw new FileAlreadyExistsException(socket.toString(), null, "the file exists and is not a socket");
+        }
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            throw new FileAlreadyExistsException(socket.toString(), null, "a server is already listening on the socket");
+        } catch (ConnectException e) {
+            Debug.printf("Deleting stale socket %s", socket);
+            Files.delete(socket);
+        }
+    }
+
+    /**
+     * Binds to the socket in a private directory, and then moves it into place once its permissions have been restricted, so that
+     * there is no point at which another user could connect to it.
+     */
+    private static void bind(ServerSocketChannel server, Path socket) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix") == false) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+        final Path parent = socket.toAbsolutePath().getParent();
+        final Path directory = Files.createTempDirectory(
+            parent,
+            ".x5-server-",
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))
+        );
+        try {
+            final Path temp = directory.resolve("x5.sock");
+            server.bind(UnixDomainSocketAddress.of(temp));
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            Files.move(temp, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Accepts and processes requests until this server is {@link #close() closed}
+     */
+    public void run() throws IOException {
+        final Thread cleanup = new Thread(this::deleteSocket);
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        Debug.printf("Listening on %s", socket);
+        try {
+            while (server.isOpen()) {
+                try (SocketChannel client = server.accept()) {
+                    handle(client);
+                } catch (ClosedChannelException e) {
+                    break;
+                } catch (IOException e) {
+                    Debug.error(e, "Failed to process request on %s", socket);
+                }
+            }
+        } finally {
+            close();
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Files.deleteIfExists(socket);
+    }
+
+    private void deleteSocket() {
+        try {
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            Debug.error(e, "Failed to delete socket %s", socket);
+        }
+    }
+
+    private void handle(SocketChannel client) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+        final Protocol.Request request = Protocol.readRequest(in);
+
+        final PrintStream stdout = new PrintStream(new FrameOutputStream(out, Protocol.STDOUT), true);
+        final PrintStream stderr = new PrintStream(new FrameOutputStream(out, Protocol.STDERR), true);
+        final StdIO stdio = new StdIO(stdout, new RemoteInputStream(in, out));
+
+        int exitCode;
+        try {
+            exitCode = main.runRequest(
+                request.args.toArray(new String[0]),
+                stdio,
+                stderr,
+                Paths.get(request.workingDirectory),
+                request.environment
+            );
+        } catch (IOException | RuntimeException e) {
+            // Matches the behaviour of the JVM for an uncaught exception
+            stderr.print("Exception in thread \"main\" ");
+            e.printStackTrace(stderr);
+            exitCode = 1;
+        }
+        stdout.flush();
+        stderr.flush();
+        Protocol.writeExit(out, exitCode);
+    }
+
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        private FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                Protocol.writeFrame(out, type, b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Requests the client's stdin on the first read, and then reads it from the data frames that the client sends.
+     */
+    private static class RemoteInputStream extends InputStream {
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private boolean requested;
+        private boolean eof;
+        private byte[] buffer;
+        private int position;
+
+        private RemoteInputStream(DataInputStream in, DataOutputStream out) {
+            this.in = in;
+            this.out = out;
+            this.requested = false;
+            this.eof = false;
+            this.buffer = new byte[0];
+            this.position = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position >= buffer.length) {
+                if (eof) {
+                    return -1;
+                }
+                fill();
+            }
+            final int count = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        private void fill() throws IOException {
+            if (requested == false) {
+                Protocol.writeFrame(out, Protocol.INPUT, new byte[0], 0, 0);
+                requested = true;
+            }
+            final byte type = in.readByte();
+            if (type != Protocol.DATA) {
+                throw new IOException("Unexpected frame type [" + (char) type + "] from client");
+            }
+            buffer = Protocol.readPayload(in);
+            position = 0;
+            if (buffer.length == 0) {
+                eof = true;
+            }
+        }
+    }
+}
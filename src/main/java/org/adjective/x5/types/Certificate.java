@@ -14,6 +14,8 @@
 
 package org.adjective.x5.types;
 
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Digest;
 import org.adjective.x5.types.value.X5String;
 
 public interface Certificate extends PublicCredential, CryptoElement, BinaryEncoded {
@@ -22,6 +24,13 @@ public interface Certificate extends PublicCredential, CryptoElement, BinaryEnco
 
     X5String certificateType();
 
+    /**
+     * The fingerprint of this certificate's {@link #encodedValue() encoded form}, using the provided digest
+     */
+    default byte[] fingerprint(Digest digest) throws X5Exception {
+        return digest.digest(encodedValue());
+    }
+
     @Override
     default X5Type getType() {
         return X5Type.CERTIFICATE;
@@ -14,15 +14,19 @@
 
 package org.adjective.x5.types;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.Digest;
 import org.adjective.x5.io.encrypt.EncryptionInfo;
 import org.adjective.x5.types.crypto.EncryptedObject;
+import org.adjective.x5.types.value.DN;
+import org.adjective.x5.util.LazyMap;
 import org.adjective.x5.util.Values;
 
 public interface CryptoStore extends X5Object, EncryptedObject, Sequence {
@@ -33,6 +37,36 @@ public interface CryptoStore extends X5Object, EncryptedObject, Sequence {
         return entries().stream().filter(e -> e.name().equals(name)).findAny();
     }
 
+    /**
+     * Finds the entries whose {@link StoreEntry#certificate() certificate} has the provided SHA-256 fingerprint
+     */
+    default List<StoreEntry> findByFingerprint(byte[] sha256) throws X5Exception {
+        final List<StoreEntry> found = new ArrayList<>();
+        for (StoreEntry entry : entries()) {
+            final Optional<Certificate> certificate = entry.certificate();
+            if (certificate.isPresent() && Arrays.equals(certificate.get().fingerprint(Digest.SHA256), sha256)) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the entries whose {@link StoreEntry#certificate() certificate} has the provided subject
+     */
+    default List<StoreEntry> findBySubject(DN subject) throws X5Exception {
+        final List<StoreEntry> found = new ArrayList<>();
+        for (StoreEntry entry : entries()) {
+            final Optional<Certificate> certificate = entry.certificate();
+            if (certificate.isPresent()
+                && certificate.get() instanceof X509Certificate
+                && ((X509Certificate) certificate.get()).subject().isEqualTo(subject)) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
     void addEntry(StoreEntry entry, Optional<EncryptionInfo> encryption) throws X5Exception;
 
     Optional<EncryptionInfo> getEncryption(StoreEntry entry);
@@ -40,7 +74,12 @@ public interface CryptoStore extends X5Object, EncryptedObject, Sequence {
     @Override
     default Map<String, X5Object> properties() {
         try {
-            return entries().stream().collect(Collectors.toMap(e -> "entry." + e.name(), StoreEntry::value));
+            // Entry values may need to be decrypted, so they are only loaded if they are used
+            final LazyMap<String, X5Object> properties = new LazyMap<>();
+            for (StoreEntry entry : entries()) {
+                properties.putLazy("entry." + entry.name(), entry::value);
+            }
+            return properties;
         } catch (X5Exception e) {
             Debug.error(e, "Cannot read entries of %s", this.description());
             return Map.of("error", Values.error(e));
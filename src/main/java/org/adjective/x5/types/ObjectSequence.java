@@ -43,19 +43,21 @@ public class ObjectSequence implements Sequence {
 
     @Override
     public <X extends X5Object> Optional<X> as(Class<X> type) {
-        return Sequence.super.as(type).or(() -> {
-            List<? extends X5Object> matches = objects.stream().filter(type::isInstance).collect(Collectors.toList());
+        return Sequence.super.as(type).or(() -> findSingle(objects, type));
+    }
+
+    static <X extends X5Object> Optional<X> findSingle(List<? extends X5Object> objects, Class<X> type) {
+        List<? extends X5Object> matches = objects.stream().filter(type::isInstance).collect(Collectors.toList());
+        if (matches.size() == 1) {
+            return Optional.of(type.cast(matches.get(0)));
+        } else {
+            matches = objects.stream().map(o -> o.as(type)).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
             if (matches.size() == 1) {
                 return Optional.of(type.cast(matches.get(0)));
             } else {
-                matches = objects.stream().map(o -> o.as(type)).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
-                if (matches.size() == 1) {
-                    return Optional.of(type.cast(matches.get(0)));
-                } else {
-                    return Optional.empty();
-                }
+                return Optional.empty();
             }
-        });
+        }
     }
 
     @Override
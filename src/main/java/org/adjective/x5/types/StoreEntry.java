@@ -18,12 +18,35 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.adjective.x5.exception.X5Exception;
+
 public interface StoreEntry extends X5Object {
 
     String name();
 
     CryptoValue value();
 
+    /**
+     * The certificate in this entry (for a key pair, the first certificate in its chain), if there is one
+     */
+    default Optional<Certificate> certificate() throws X5Exception {
+        return certificate(value());
+    }
+
+    private static Optional<Certificate> certificate(X5Object value) {
+        if (value instanceof Certificate) {
+            return Optional.of((Certificate) value);
+        }
+        if (value instanceof CertificateChain) {
+            final List<? extends Certificate> certificates = ((CertificateChain) value).certificates();
+            return certificates.isEmpty() ? Optional.empty() : Optional.of(certificates.get(0));
+        }
+        if (value instanceof KeyPair) {
+            return certificate(((KeyPair) value).publicCredential());
+        }
+        return Optional.empty();
+    }
+
     @Override
     default <X extends X5Object> Optional<X> as(Class<X> type) {
         if (type.isInstance(this)) {
@@ -0,0 +1,485 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.adjective.x5.exception.UncheckedException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Iterables;
+
+/**
+ * A sequence of objects that are read from an underlying source on demand.
+ * <p>
+ * If the source can be reopened (for example, it reads from a buffer) then objects are not retained. Each iteration reads from its own
+ * source, and an iteration after the first one reads the source again from the start. A single pass over a large file therefore needs
+ * a constant amount of memory, but each pass pays the full cost of parsing the file, and produces new objects. State that an object
+ * computes on demand (such as a certificate's fingerprint, or a decrypted key) is not shared with the objects of another pass, so a
+ * caller that needs the same objects more than once should copy them into a list.
+ * If the source cannot be reopened (for example, it reads from a pipe) then objects are retained once they have been read, so that the
+ * sequence can be iterated more than once.
+ * </p>
+ * <p>
+ * A source is closed once it has been exhausted (or fails). Iterators are {@link Closeable}, so that a caller that stops early can
+ * release the source that the iterator was reading, and {@link #close() closing} the sequence releases every open source.
+ * </p>
+ * <p>
+ * A caller that needs to process every object (such as a cache) can {@link #observe observe} the iterations that other callers perform,
+ * rather than iterating the sequence itself.
+ * </p>
+ * <p>
+ * The type name and syntax of the sequence are recorded by the first iteration that reads every object, so they only read the source if
+ * no such iteration has happened yet.
+ * </p>
+ */
+public class StreamingSequence implements Sequence, Closeable {
+
+    public interface Source extends Closeable {
+        /**
+         * @return The next object, or {@code null} if the source is exhausted
+         */
+        X5Object next() throws IOException, X5Exception;
+    }
+
+    /**
+     * Receives the objects of a single iteration, in order, as they are read (see {@link #observe})
+     */
+    public interface Pass {
+        void accept(X5Object object);
+
+        /**
+         * Called once the iteration has read every object. It is not called if the iteration stops early or fails.
+         */
+        void complete();
+    }
+
+    private static final Pass UNOBSERVED = new Pass() {
+        @Override
+        public void accept(X5Object object) {
+        }
+
+        @Override
+        public void complete() {
+        }
+    };
+
+    private final X5StreamInfo info;
+    private final Optional<CheckedSupplier<Source, IOException>> reopen;
+    private final Set<Source> open;
+
+    // The objects that have been read so far. When the source can be reopened, these are handed to the first iterator, and not retained
+    private List<X5Object> objects;
+    private Source source;
+    private Supplier<Pass> observer;
+    // The types and syntaxes of the objects, once an iteration has read all of them
+    private volatile Summary summary;
+
+    /**
+     * A sequence that retains its objects, because the source can only be read once
+     */
+    public StreamingSequence(List<? extends X5Object> initial, Source source, Path path, FileType fileType) {
+        this(initial, source, Optional.empty(), path, fileType);
+    }
+
+    /**
+     * A sequence that does not retain its objects, and calls {@code reopen} to read them again
+     */
+    public StreamingSequence(
+        List<? extends X5Object> initial,
+        Source source,
+        CheckedSupplier<Source, IOException> reopen,
+        Path path,
+        FileType fileType
+    ) {
+        this(initial, source, Optional.of(reopen), path, fileType);
+    }
+
+    private StreamingSequence(
+        List<? extends X5Object> initial,
+        Source source,
+        Optional<CheckedSupplier<Source, IOException>> reopen,
+        Path path,
+        FileType fileType
+    ) {
+        this.objects = new ArrayList<>(initial);
+        this.source = source;
+        this.reopen = reopen;
+        this.open = ConcurrentHashMap.newKeySet();
+        this.open.add(source);
+        this.observer = null;
+        this.info = new PathInfo(path, 0, fileType) {
+            @Override
+            public Optional<EncodingSyntax> getSyntax() {
+                final Set<Optional<EncodingSyntax>> syntax = summary().syntaxes;
+                return syntax.size() == 1 ? syntax.iterator().next() : Optional.empty();
+            }
+        };
+    }
+
+    /**
+     * Whether objects are retained (because the source cannot be read again)
+     */
+    public boolean isRetained() {
+        return reopen.isEmpty();
+    }
+
+    /**
+     * Observes each iteration that starts after this method is called, until one of them has read every object.
+     */
+    public synchronized void observe(Supplier<Pass> observer) {
+        this.observer = observer;
+    }
+
+    private synchronized Pass startPass() {
+        return observer == null ? UNOBSERVED : observer.get();
+    }
+
+    private void completePass(Pass pass) {
+        if (pass != UNOBSERVED) {
+            synchronized (this) {
+                observer = null;
+            }
+            pass.complete();
+        }
+    }
+
+    private synchronized boolean load(int index) throws IOException, X5Exception {
+        while (objects.size() <= index && source != null) {
+            X5Object next = null;
+            try {
+                next = read(source);
+            } finally {
+                if (next == null) {
+                    source = null;
+                }
+            }
+            if (next != null) {
+                objects.add(next);
+            }
+        }
+        return index < objects.size();
+    }
+
+    /**
+     * Reads the next object from {@code from}, and closes it if it is exhausted or fails
+     */
+    private X5Object read(Source from) throws IOException, X5Exception {
+        final X5Object next;
+        try {
+            next = from.next();
+        } catch (IOException | X5Exception | RuntimeException e) {
+            close(from);
+            throw e;
+        }
+        if (next == null) {
+            close(from);
+        }
+        return next;
+    }
+
+    private void close(Source from) throws IOException {
+        if (open.remove(from)) {
+            from.close();
+        }
+    }
+
+    private UncheckedException readFailure(int index, Exception cause) {
+        return new UncheckedException("Failed to read object #" + (index + 1) + " from " + info.getSourceDescription(), cause);
+    }
+
+    private Summary summary() {
+        if (summary == null) {
+            // The iterator records the summary once it has read every object
+            final Iterator<? extends X5Object> iterator = items().iterator();
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+        }
+        return summary;
+    }
+
+    private void complete(Summary read) {
+        if (summary == null) {
+            summary = read;
+        }
+    }
+
+    /**
+     * Finds the single object of {@code type} (see {@link ObjectSequence#findSingle}) in one pass, without retaining the objects
+     */
+    private <X extends X5Object> Optional<X> findSingle(Class<X> type) {
+        X instance = null;
+        int instances = 0;
+        X converted = null;
+        int conversions = 0;
+        final Iterator<? extends X5Object> iterator = items().iterator();
+        try {
+            // Once there are 2 of each, neither can be the single match
+            while ((instances < 2 || conversions < 2) && iterator.hasNext()) {
+                final X5Object obj = iterator.next();
+                if (type.isInstance(obj) && instances++ == 0) {
+                    instance = type.cast(obj);
+                }
+                if (conversions < 2) {
+                    final Optional<X> as = obj.as(type);
+                    if (as.isPresent() && conversions++ == 0) {
+                        converted = as.get();
+                    }
+                }
+            }
+        } finally {
+            try {
+                Iterables.close(iterator);
+            } catch (IOException e) {
+                Debug.error(e, "Failed to close %s", info.getSourceDescription());
+            }
+        }
+        if (instances == 1) {
+            return Optional.of(instance);
+        }
+        return conversions == 1 ? Optional.of(converted) : Optional.empty();
+    }
+
+    @Override
+    public Iterable<? extends X5Object> items() {
+        return () -> reopen.isPresent() ? new ReadingIterator() : new RetainedIterator();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Source s : List.copyOf(open)) {
+            try {
+                close(s);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Iterates over the retained objects, reading more of them from the source as needed
+     */
+    private class RetainedIterator implements Iterator<X5Object>, Closeable {
+        private int index = 0;
+        private Pass pass = startPass();
+        private Summary read = new Summary();
+
+        @Override
+        public boolean hasNext() {
+            final boolean hasNext;
+            try {
+                hasNext = load(index);
+            } catch (IOException | X5Exception e) {
+                pass = UNOBSERVED;
+                read = null;
+                throw readFailure(index, e);
+            }
+            if (hasNext == false) {
+                completePass(pass);
+                pass = UNOBSERVED;
+                if (read != null) {
+                    complete(read);
+                    read = null;
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public X5Object next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            final X5Object value;
+            synchronized (StreamingSequence.this) {
+                value = objects.get(index++);
+            }
+            pass.accept(value);
+            if (read != null) {
+                read.add(value);
+            }
+            return value;
+        }
+
+        @Override
+        public void close() {
+            // The source is shared with other iterators, so it remains open
+            pass = UNOBSERVED;
+            read = null;
+        }
+    }
+
+    /**
+     * Reads objects from its own source, without retaining them
+     */
+    private class ReadingIterator implements Iterator<X5Object>, Closeable {
+        private Iterator<X5Object> initial;
+        private Source from;
+        private boolean exhausted;
+        private X5Object next;
+        private int count;
+        private Pass pass;
+        private Summary read;
+
+        private ReadingIterator() {
+            synchronized (StreamingSequence.this) {
+                // The first iterator takes over the objects that have already been read (and the source that they were read from).
+                // Later iterators start again from the beginning
+                this.initial = objects.iterator();
+                this.from = source;
+                objects = Collections.emptyList();
+                source = null;
+            }
+            this.exhausted = false;
+            this.next = null;
+            this.count = 0;
+            this.pass = startPass();
+            this.read = new Summary();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            if (initial.hasNext()) {
+                next = initial.next();
+                return true;
+            }
+            try {
+                if (from == null) {
+                    from = reopen.get().get();
+                    open.add(from);
+                }
+                next = read(from);
+            } catch (IOException | X5Exception e) {
+                exhausted = true;
+                from = null;
+                pass = UNOBSERVED;
+                read = null;
+                throw readFailure(count, e);
+            }
+            if (next == null) {
+                exhausted = true;
+                from = null;
+                completePass(pass);
+                pass = UNOBSERVED;
+                if (read != null) {
+                    complete(read);
+                    read = null;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public X5Object next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            final X5Object value = next;
+            next = null;
+            count++;
+            pass.accept(value);
+            if (read != null) {
+                read.add(value);
+            }
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            exhausted = true;
+            next = null;
+            pass = UNOBSERVED;
+            read = null;
+            initial = Collections.emptyIterator();
+            if (from != null) {
+                final Source s = from;
+                from = null;
+                StreamingSequence.this.close(s);
+            }
+        }
+    }
+
+    @Override
+    public <X extends X5Object> Optional<X> as(Class<X> type) {
+        return Sequence.super.as(type).or(() -> findSingle(type));
+    }
+
+    @Override
+    public boolean isEqualTo(String str) {
+        return false;
+    }
+
+    @Override
+    public X5StreamInfo getSource() {
+        return info;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "Sequence{" + String.join("|", summary().typeNames) + "}";
+    }
+
+    @Override
+    public X5Type<Sequence> getType() {
+        return X5Type.SEQUENCE;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException, X5Exception {
+        for (X5Object o : items()) {
+            o.writeTo(out);
+        }
+    }
+
+    private static class Summary {
+        private final Set<String> typeNames = new TreeSet<>();
+        private final Set<Optional<EncodingSyntax>> syntaxes = new HashSet<>();
+
+        private void add(X5Object object) {
+            typeNames.add(object.getTypeName());
+            syntaxes.add(object.getSource().getSyntax());
+        }
+    }
+}
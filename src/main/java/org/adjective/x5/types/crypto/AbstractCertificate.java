@@ -14,12 +14,11 @@
 
 package org.adjective.x5.types.crypto;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import org.adjective.x5.exception.UncheckedException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.Digest;
 import org.adjective.x5.types.Certificate;
@@ -28,13 +27,19 @@ import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5PublicKey;
 import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.X5Value;
+import org.adjective.x5.util.LazyMap;
 import org.adjective.x5.util.Values;
 
 abstract class AbstractCertificate implements Certificate {
     protected final X5StreamInfo source;
+    /**
+     * Fingerprints are calculated when first requested, indexed by {@link Digest#ordinal()}
+     */
+    private final AtomicReferenceArray<byte[]> fingerprints;
 
     public AbstractCertificate(X5StreamInfo source) {
         this.source = source;
+        this.fingerprints = new AtomicReferenceArray<>(Digest.values().length);
     }
 
     @Override
@@ -44,17 +49,27 @@ abstract class AbstractCertificate implements Certificate {
 
     @Override
     public Map<String, ? extends X5Object> properties() {
-        try {
-            byte[] encoded = encodedValue();
-            Map<String, X5Object> map = new LinkedHashMap<>();
-            map.put("type", this.certificateType());
-            map.put("key", this.publicKey());
-            map.put("fingerprint.sha1", Values.hexString(Digest.sha1(encoded), source, true));
-            map.put("fingerprint.sha256", Values.hexString(Digest.sha256(encoded), source, true));
-            return map;
-        } catch (X5Exception e) {
-            throw new UncheckedException("Failed to get properties for " + description(), e);
+        final LazyMap<String, X5Object> map = new LazyMap<>();
+        map.putLazy("type", this::certificateType);
+        map.putLazy("key", this::publicKey);
+        map.putLazy("fingerprint.sha1", () -> Values.hexString(fingerprint(Digest.SHA1), source, true));
+        map.putLazy("fingerprint.sha256", () -> Values.hexString(fingerprint(Digest.SHA256), source, true));
+        return map;
+    }
+
+    @Override
+    public byte[] fingerprint(Digest digest) throws X5Exception {
+        byte[] fingerprint = fingerprints.get(digest.ordinal());
+        if (fingerprint == null) {
+            // Concurrent callers may both calculate the fingerprint, but they will produce the same value
+            fingerprint = calculateFingerprint(digest);
+            fingerprints.set(digest.ordinal(), fingerprint);
         }
+        return fingerprint.clone();
+    }
+
+    protected byte[] calculateFingerprint(Digest digest) throws X5Exception {
+        return digest.digest(encodedValue());
     }
 
     @Override
@@ -16,25 +16,42 @@ package org.adjective.x5.types.crypto;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
+import org.adjective.x5.exception.UncheckedException;
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.IO;
 import org.adjective.x5.types.CryptoStore;
 import org.adjective.x5.types.CryptoValue;
 import org.adjective.x5.types.StoreEntry;
 import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Lazy;
+import org.adjective.x5.util.LazyMap;
 import org.adjective.x5.util.Values;
 
 public abstract class AbstractStoreEntry implements StoreEntry {
     protected final String name;
-    protected final CryptoValue value;
+    private final Lazy<CryptoValue, RuntimeException> value;
 
     public AbstractStoreEntry(String name, CryptoValue value) {
         this.name = name;
-        this.value = value;
+        this.value = Lazy.uncheckedLazy(() -> value);
+    }
+
+    /**
+     * Constructs an entry whose value is only loaded (e.g. decrypted) when it is first used
+     */
+    protected AbstractStoreEntry(String name, CheckedSupplier<? extends CryptoValue, X5Exception> value) {
+        this.name = name;
+        this.value = Lazy.uncheckedLazy(() -> {
+            try {
+                return value.get();
+            } catch (X5Exception e) {
+                throw new UncheckedException("Cannot load value of entry [" + name + "]", e);
+            }
+        });
     }
 
     @Override
@@ -49,12 +66,12 @@ public abstract class AbstractStoreEntry implements StoreEntry {
 
     @Override
     public CryptoValue value() {
-        return this.value;
+        return this.value.get();
     }
 
     @Override
     public String description() {
-        return getTypeName() + "[" + name + "]=" + value.description();
+        return getTypeName() + "[" + name + "]=" + value().description();
     }
 
     @Override
@@ -62,14 +79,14 @@ public abstract class AbstractStoreEntry implements StoreEntry {
         IO.writeUtf8("Bag Attributes\n    friendlyName: ", out);
         IO.writeUtf8(name, out);
         out.write('\n');
-        value.writeTo(out);
+        value().writeTo(out);
     }
 
     @Override
     public Map<String, ? extends X5Object> properties() {
-        Map<String, X5Object> properties = new LinkedHashMap<>();
+        LazyMap<String, X5Object> properties = new LazyMap<>();
         properties.put("name", Values.string(name));
-        properties.put("value", value);
+        properties.putLazy("value", this::value);
         return properties;
     }
 
@@ -85,7 +102,7 @@ public abstract class AbstractStoreEntry implements StoreEntry {
             if (other instanceof AbstractStoreEntry && this.keyStore() == ((AbstractStoreEntry) other).keyStore()) {
                 return true;
             }
-            return this.value.equals(other.value());
+            return this.value().equals(other.value());
         }
         return false;
     }
@@ -27,6 +27,7 @@ import org.adjective.x5.types.X5Record;
 import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.value.DN;
 import org.adjective.x5.util.Lazy;
+import org.adjective.x5.util.LazyMap;
 import org.adjective.x5.util.Values;
 
 public abstract class AbstractX509Certificate extends AbstractCertificate implements X509Certificate {
@@ -34,17 +35,18 @@ public abstract class AbstractX509Certificate extends AbstractCertificate implem
 
     public AbstractX509Certificate(X5StreamInfo source) {
         super(source);
-        this.properties = Lazy.lazy(() -> {
-            Map<String, X5Object> map = new LinkedHashMap<>();
+        this.properties = Lazy.<Map<String, X5Object>>uncheckedLazy(() -> {
+            // Each property is only calculated when it is needed
+            LazyMap<String, X5Object> map = new LazyMap<>();
             map.putAll(super.properties());
-            map.put("subject", subject());
-            map.put("issuer", issuer());
-            map.put("serial", serialNumber());
-            map.put("validity.not_before", notBefore());
-            map.put("validity.not_after", notAfter());
-            map.put("signature.algorithm", signatureAlgorithm());
-            map.put("basic-constraints", basicConstraints());
-            map.put("subject-alternative-name", subjectAlternativeName());
+            map.putLazy("subject", this::subject);
+            map.putLazy("issuer", this::issuer);
+            map.putLazy("serial", this::serialNumber);
+            map.putLazy("validity.not_before", this::notBefore);
+            map.putLazy("validity.not_after", this::notAfter);
+            map.putLazy("signature.algorithm", this::signatureAlgorithm);
+            map.putLazy("basic-constraints", this::basicConstraints);
+            map.putLazy("subject-alternative-name", this::subjectAlternativeName);
             return map;
         }).unchecked();
     }
@@ -40,7 +40,7 @@ public class BasicStoreEntry extends AbstractStoreEntry {
 
     @Override
     public X5StreamInfo getSource() {
-        return value.getSource().withDescriptionPrefix("entry from");
+        return value().getSource().withDescriptionPrefix("entry from");
     }
 
 }
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.adjective.x5.exception.UncheckedException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.encrypt.EncryptionInfo;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.CryptoValue;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Lazy;
+import org.adjective.x5.util.LazyMap;
+
+/**
+ * A store that was restored from previously cached entries.
+ * The entries (and their properties) are available without loading the original store. Anything else (including any modification to
+ * the store) is handled by the original store, which is loaded when first needed.
+ */
+public class CachedKeyStore implements CryptoStore {
+    private static final String ENTRY_PREFIX = "entry.";
+
+    private final X5StreamInfo source;
+    private final List<String> propertyNames;
+    private final List<StoreEntry> entries;
+    private final Lazy<CryptoStore, X5Exception> store;
+    private volatile boolean modified;
+
+    public CachedKeyStore(X5StreamInfo source, List<String> propertyNames, CheckedSupplier<CryptoStore, X5Exception> store) {
+        this.source = source;
+        this.propertyNames = List.copyOf(propertyNames);
+        this.entries = new ArrayList<>();
+        this.store = Lazy.lazy(store);
+        this.modified = false;
+    }
+
+    public void addCachedEntry(String name, X5StreamInfo entrySource, CryptoValue value, Map<String, X5Object> properties) {
+        this.entries.add(new CachedEntry(name, entrySource, value, properties));
+    }
+
+    private CryptoStore store() {
+        try {
+            return store.get();
+        } catch (X5Exception e) {
+            throw new UncheckedException("Cannot load " + source.getSourceDescription(), e);
+        }
+    }
+
+    @Override
+    public X5StreamInfo getSource() {
+        return source;
+    }
+
+    @Override
+    public List<StoreEntry> entries() throws X5Exception {
+        if (modified) {
+            return store.get().entries();
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    public Map<String, X5Object> properties() {
+        if (modified) {
+            return Collections.unmodifiableMap(store().properties());
+        }
+        final Map<String, X5Object> values = new LinkedHashMap<>();
+        entries.forEach(e -> values.put(ENTRY_PREFIX + e.name(), e.value()));
+
+        final LazyMap<String, X5Object> map = new LazyMap<>();
+        for (String name : propertyNames) {
+            if (values.containsKey(name)) {
+                map.put(name, values.get(name));
+            } else {
+                map.putLazy(name, () -> store.get().properties().get(name));
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public void addEntry(StoreEntry entry, Optional<EncryptionInfo> encryption) throws X5Exception {
+        store.get().addEntry(entry, encryption);
+        this.modified = true;
+    }
+
+    @Override
+    public Optional<EncryptionInfo> getEncryption(StoreEntry entry) {
+        return store().getEncryption(entry);
+    }
+
+    @Override
+    public EncryptionInfo encryption() {
+        return store().encryption();
+    }
+
+    @Override
+    public EncryptedObject withEncryption(EncryptionInfo encryption, boolean recurse) throws X5Exception {
+        return store.get().withEncryption(encryption, recurse);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException, X5Exception {
+        store.get().writeTo(out);
+    }
+
+    @Override
+    public boolean isEqualTo(X5Object other) throws X5Exception {
+        if (other instanceof CachedKeyStore) {
+            other = ((CachedKeyStore) other).store.get();
+        }
+        return store.get().isEqualTo(other);
+    }
+
+    private final class CachedEntry extends AbstractStoreEntry {
+        private final X5StreamInfo source;
+        private final Map<String, X5Object> properties;
+
+        private CachedEntry(String name, X5StreamInfo source, CryptoValue value, Map<String, X5Object> properties) {
+            super(name, value);
+            this.source = source;
+            this.properties = new LinkedHashMap<>();
+            this.properties.putAll(super.properties());
+            this.properties.putAll(properties);
+        }
+
+        @Override
+        protected Optional<CachedKeyStore> keyStore() {
+            return Optional.of(CachedKeyStore.this);
+        }
+
+        @Override
+        public X5StreamInfo getSource() {
+            return this.source;
+        }
+
+        @Override
+        public Map<String, X5Object> properties() {
+            return this.properties;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.adjective.x5.exception.DnParseException;
+import org.adjective.x5.exception.UncheckedException;
+import org.adjective.x5.exception.UnencodableObjectException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5PublicKey;
+import org.adjective.x5.types.X5Record;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Algorithm;
+import org.adjective.x5.types.value.DN;
+import org.adjective.x5.types.value.OID;
+import org.adjective.x5.types.value.X5Boolean;
+import org.adjective.x5.types.value.X5Date;
+import org.adjective.x5.types.value.X5Number;
+import org.adjective.x5.types.value.X5String;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Lazy;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.asn1.ASN1Object;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralNames;
+
+/**
+ * A certificate that was restored from previously cached {@link Metadata}.
+ * The metadata properties are available without decoding the original certificate, anything else (such as the public key or the
+ * encoded form) is obtained from the original certificate, which is loaded when first needed.
+ */
+public class CachedX509Certificate extends AbstractX509Certificate {
+
+    /**
+     * The parts of a certificate that are stored in the cache, in a form that is cheap to serialize and restore
+     */
+    public static final class Metadata {
+        public final String type;
+        public final String subject;
+        public final String issuer;
+        public final BigInteger serial;
+        public final Instant notBefore;
+        public final Instant notAfter;
+        public final String signatureAlgorithm;
+        /** The encoded {@link AlgorithmIdentifier}, or {@code null} if the algorithm is only known by its OID */
+        public final byte[] signatureAlgorithmIdentifier;
+        public final boolean hasBasicConstraints;
+        public final boolean isCA;
+        public final BigInteger pathLength;
+        /** The encoded {@link GeneralNames} for the subject alternative name, or {@code null} if there are none */
+        public final byte[] subjectAlternativeName;
+        public final byte[] sha1;
+        public final byte[] sha256;
+
+        public Metadata(
+            String type,
+            String subject,
+            String issuer,
+            BigInteger serial,
+            Instant notBefore,
+            Instant notAfter,
+            String signatureAlgorithm,
+            byte[] signatureAlgorithmIdentifier,
+            boolean hasBasicConstraints,
+            boolean isCA,
+            BigInteger pathLength,
+            byte[] subjectAlternativeName,
+            byte[] sha1,
+            byte[] sha256
+        ) {
+            this.type = type;
+            this.subject = subject;
+            this.issuer = issuer;
+            this.serial = serial;
+            this.notBefore = notBefore;
+            this.notAfter = notAfter;
+            this.signatureAlgorithm = signatureAlgorithm;
+            this.signatureAlgorithmIdentifier = signatureAlgorithmIdentifier;
+            this.hasBasicConstraints = hasBasicConstraints;
+            this.isCA = isCA;
+            this.pathLength = pathLength;
+            this.subjectAlternativeName = subjectAlternativeName;
+            this.sha1 = sha1;
+            this.sha256 = sha256;
+        }
+
+        public static Metadata of(X509Certificate certificate) throws X5Exception {
+            final byte[] encoded = certificate.encodedValue();
+            final org.bouncycastle.asn1.x509.Certificate asn1 = org.bouncycastle.asn1.x509.Certificate.getInstance(encoded);
+
+            final Algorithm algorithm = certificate.signatureAlgorithm();
+            final X5Record constraints = certificate.basicConstraints();
+            final X5Object pathLength = constraints == null ? null : constraints.properties().get("Path Length");
+            final GeneralNames names = asn1.getTBSCertificate().getExtensions() == null
+                ? null
+                : GeneralNames.fromExtensions(asn1.getTBSCertificate().getExtensions(), Extension.subjectAlternativeName);
+
+            return new Metadata(
+                certificate.certificateType().value(),
+                certificate.subject().value(),
+                certificate.issuer().value(),
+                bigInteger(certificate.serialNumber()),
+                certificate.notBefore().value().toInstant(),
+                certificate.notAfter().value().toInstant(),
+                algorithm.oid().value(),
+                algorithm.identifier().isPresent() ? encode(algorithm.identifier().get()) : null,
+                constraints != null,
+                constraints != null && ((X5Boolean) constraints.properties().get("CA")).value(),
+                pathLength instanceof X5Number ? bigInteger((X5Number<?>) pathLength) : null,
+                names == null ? null : encode(names),
+                certificate.fingerprint(Digest.SHA1),
+                certificate.fingerprint(Digest.SHA256)
+            );
+        }
+
+        private static BigInteger bigInteger(X5Number<?> number) {
+            final Number value = number.value();
+            return value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(value.longValue());
+        }
+
+        private static byte[] encode(ASN1Object object) throws X5Exception {
+            try {
+                return object.getEncoded();
+            } catch (IOException e) {
+                throw new UnencodableObjectException("Cannot encode " + object, e);
+            }
+        }
+    }
+
+    private final Metadata metadata;
+    private final Lazy<X509Certificate, X5Exception> certificate;
+
+    public CachedX509Certificate(Metadata metadata, X5StreamInfo source, CheckedSupplier<X509Certificate, X5Exception> certificate) {
+        super(source);
+        this.metadata = metadata;
+        this.certificate = Lazy.lazy(certificate);
+    }
+
+    @Override
+    public DN subject() throws DnParseException {
+        return DN.parse(metadata.subject, source);
+    }
+
+    @Override
+    public DN issuer() throws DnParseException {
+        return DN.parse(metadata.issuer, source);
+    }
+
+    @Override
+    public X5Date notBefore() {
+        return new X5Date(metadata.notBefore.atZone(ZoneOffset.UTC), source);
+    }
+
+    @Override
+    public X5Date notAfter() {
+        return new X5Date(metadata.notAfter.atZone(ZoneOffset.UTC), source);
+    }
+
+    @Override
+    public X5Number<?> serialNumber() {
+        return Values.number(metadata.serial, 16, source);
+    }
+
+    @Override
+    public Algorithm signatureAlgorithm() {
+        if (metadata.signatureAlgorithmIdentifier == null) {
+            return new Algorithm(new OID(metadata.signatureAlgorithm, source));
+        } else {
+            return new Algorithm(AlgorithmIdentifier.getInstance(metadata.signatureAlgorithmIdentifier), source);
+        }
+    }
+
+    @Override
+    public X5Record basicConstraints() {
+        if (metadata.hasBasicConstraints == false) {
+            return null;
+        }
+        return basicConstraints(metadata.isCA, metadata.pathLength);
+    }
+
+    @Override
+    public X5Record subjectAlternativeName() {
+        final GeneralNames names = metadata.subjectAlternativeName == null
+            ? null
+            : GeneralNames.getInstance(metadata.subjectAlternativeName);
+        return new GeneralNamesRecord(names, source.withDescriptionPrefix("subject-alternative-name of"));
+    }
+
+    @Override
+    public X5String certificateType() {
+        return Values.string(metadata.type, source);
+    }
+
+    @Override
+    protected byte[] calculateFingerprint(Digest digest) throws X5Exception {
+        switch (digest) {
+            case SHA1:
+                return metadata.sha1;
+            case SHA256:
+                return metadata.sha256;
+            default:
+                return super.calculateFingerprint(digest);
+        }
+    }
+
+    @Override
+    public X5PublicKey publicKey() {
+        try {
+            return certificate.get().publicKey();
+        } catch (X5Exception e) {
+            throw new UncheckedException("Cannot load public key for " + description(), e);
+        }
+    }
+
+    @Override
+    public byte[] encodedValue() throws X5Exception {
+        return certificate.get().encodedValue();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException, X5Exception {
+        certificate.get().writeTo(out);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.adjective.x5.exception.DerParseException;
+import org.adjective.x5.util.DerCursor;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+
+/**
+ * The leading fields of a certificate's {@code TBSCertificate} (serial number, issuer, validity and subject), read directly from its DER
+ * encoding.
+ * Nothing after the subject (the public key, extensions and signature) is decoded, so this is much cheaper than a full decode for
+ * queries that only need these fields. The position of the extensions is recorded, so that a single extension can be found without
+ * decoding the others.
+ */
+final class CertificateHeader {
+
+    private static final int EXPLICIT_VERSION = 0xA0;
+    private static final int EXPLICIT_EXTENSIONS = 0xA3;
+
+    private final byte[] encoded;
+    private final BigInteger serialNumber;
+    private final int issuerStart;
+    private final int issuerEnd;
+    private final long notBefore;
+    private final long notAfter;
+    private final int subjectStart;
+    private final int subjectEnd;
+    private final int extensionsStart;
+    private final int extensionsEnd;
+
+    private CertificateHeader(
+        byte[] encoded,
+        BigInteger serialNumber,
+        int issuerStart,
+        int issuerEnd,
+        long notBefore,
+        long notAfter,
+        int subjectStart,
+        int subjectEnd,
+        int extensionsStart,
+        int extensionsEnd
+    ) {
+        this.encoded = encoded;
+        this.serialNumber = serialNumber;
+        this.issuerStart = issuerStart;
+        this.issuerEnd = issuerEnd;
+        this.notBefore = notBefore;
+        this.notAfter = notAfter;
+        this.subjectStart = subjectStart;
+        this.subjectEnd = subjectEnd;
+        this.extensionsStart = extensionsStart;
+        this.extensionsEnd = extensionsEnd;
+    }
+
+    /**
+     * Reads the header of a DER encoded {@code Certificate}.
+     * The provided array is retained (not copied), and must not be modified.
+     */
+    static CertificateHeader read(byte[] encoded) throws DerParseException {
+        DerCursor der = new DerCursor(encoded);
+        der.next(DerCursor.SEQUENCE); // Certificate
+        der = der.content();
+        der.next(DerCursor.SEQUENCE); // TBSCertificate
+        der = der.content();
+
+        if (der.next() == EXPLICIT_VERSION) {
+            der.next(DerCursor.INTEGER);
+        }
+        final BigInteger serialNumber = der.integer();
+        der.next(DerCursor.SEQUENCE); // signature algorithm
+
+        der.next(DerCursor.SEQUENCE);
+        final int issuerStart = der.elementStart();
+        final int issuerEnd = der.elementEnd();
+
+        der.next(DerCursor.SEQUENCE);
+        final DerCursor validity = der.content();
+        validity.next();
+        final long notBefore = validity.time();
+        validity.next();
+        final long notAfter = validity.time();
+
+        der.next(DerCursor.SEQUENCE);
+        final int subjectStart = der.elementStart();
+        final int subjectEnd = der.elementEnd();
+
+        der.next(DerCursor.SEQUENCE); // subject public key info
+        // Followed by the optional issuer and subject unique identifiers, and then the optional extensions
+        int extensionsStart = -1;
+        int extensionsEnd = -1;
+        while (der.hasNext()) {
+            if (der.next() == EXPLICIT_EXTENSIONS) {
+                extensionsStart = der.elementStart();
+                extensionsEnd = der.elementEnd();
+            }
+        }
+
+        return new CertificateHeader(
+            encoded,
+            serialNumber,
+            issuerStart,
+            issuerEnd,
+            notBefore,
+            notAfter,
+            subjectStart,
+            subjectEnd,
+            extensionsStart,
+            extensionsEnd
+        );
+    }
+
+    /**
+     * A copy of the encoded certificate
+     */
+    byte[] encoded() {
+        return encoded.clone();
+    }
+
+    /**
+     * The encoded certificate (not a copy), which must not be modified
+     */
+    byte[] encodedForm() {
+        return encoded;
+    }
+
+    BigInteger serialNumber() {
+        return serialNumber;
+    }
+
+    X500Name issuer() {
+        return X500Name.getInstance(Arrays.copyOfRange(encoded, issuerStart, issuerEnd));
+    }
+
+    Date notBefore() {
+        return new Date(notBefore);
+    }
+
+    Date notAfter() {
+        return new Date(notAfter);
+    }
+
+    X500Name subject() {
+        return X500Name.getInstance(Arrays.copyOfRange(encoded, subjectStart, subjectEnd));
+    }
+
+    /**
+     * The value (the content of the {@code extnValue} OCTET STRING) of the extension with the provided OID
+     *
+     * @return The encoded extension value, or {@code null} if the certificate does not have the extension
+     */
+    byte[] extensionValue(ASN1ObjectIdentifier oid) throws DerParseException {
+        if (extensionsStart == -1) {
+            return null;
+        }
+        final byte[] encodedOid;
+        try {
+            encodedOid = oid.getEncoded();
+        } catch (IOException e) {
+            throw new DerParseException("Cannot encode OID " + oid, e);
+        }
+        DerCursor der = new DerCursor(encoded, extensionsStart, extensionsEnd - extensionsStart);
+        der.next(EXPLICIT_EXTENSIONS);
+        der = der.content();
+        der.next(DerCursor.SEQUENCE);
+        der = der.content();
+        while (der.hasNext()) {
+            der.next(DerCursor.SEQUENCE);
+            final DerCursor extension = der.content();
+            extension.next(DerCursor.OBJECT_IDENTIFIER);
+            if (extension.elementEquals(encodedOid)) {
+                if (extension.next() == DerCursor.BOOLEAN) {
+                    // critical
+                    extension.next();
+                }
+                if (extension.tag() != DerCursor.OCTET_STRING) {
+                    throw new DerParseException("Invalid value for extension " + oid);
+                }
+                return extension.contentBytes();
+            }
+        }
+        return null;
+    }
+}
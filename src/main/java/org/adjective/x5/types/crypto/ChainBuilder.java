@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.adjective.x5.exception.DerParseException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.X509Certificate;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+
+/**
+ * Assembles certificate chains from an unordered collection of certificates.
+ * Certificates are indexed by subject and by subject key identifier, so the issuer of each certificate is found with a hash lookup
+ * rather than by comparing it to every other certificate in the collection.
+ */
+public final class ChainBuilder {
+
+    private static final class Node {
+        private final X509Certificate certificate;
+        private final List<List<String>> subject;
+        private final List<List<String>> issuer;
+        private final ByteBuffer subjectKeyId;
+        private final ByteBuffer authorityKeyId;
+        private Node issuerNode;
+        private boolean isIssuer;
+
+        private Node(X509Certificate certificate) throws X5Exception {
+            this.certificate = certificate;
+            this.subject = StoreIndex.subjectKey(certificate.subject());
+            this.issuer = StoreIndex.subjectKey(certificate.issuer());
+
+            final SubjectKeyIdentifier ski;
+            final AuthorityKeyIdentifier aki;
+            final Optional<CertificateHeader> header = header(certificate);
+            if (header.isPresent()) {
+                ski = SubjectKeyIdentifier.getInstance(header.get().extensionValue(Extension.subjectKeyIdentifier));
+                aki = AuthorityKeyIdentifier.getInstance(header.get().extensionValue(Extension.authorityKeyIdentifier));
+            } else {
+                final Extensions extensions = Certificate.getInstance(certificate.encodedValue()).getTBSCertificate().getExtensions();
+                ski = extensions == null ? null : SubjectKeyIdentifier.fromExtensions(extensions);
+                aki = extensions == null ? null : AuthorityKeyIdentifier.fromExtensions(extensions);
+            }
+            this.subjectKeyId = ski == null ? null : ByteBuffer.wrap(ski.getKeyIdentifier());
+            this.authorityKeyId = aki == null || aki.getKeyIdentifier() == null ? null : ByteBuffer.wrap(aki.getKeyIdentifier());
+        }
+
+        private boolean isSelfIssued() {
+            return subject.equals(issuer) && (authorityKeyId == null || subjectKeyId == null || authorityKeyId.equals(subjectKeyId));
+        }
+
+        private boolean canIssue(Node child) {
+            return this != child
+                && subject.equals(child.issuer)
+                && (child.authorityKeyId == null || subjectKeyId == null || subjectKeyId.equals(child.authorityKeyId));
+        }
+    }
+
+    private final List<Node> nodes;
+    private final Set<ByteBuffer> fingerprints;
+    private final Map<List<List<String>>, List<Node>> bySubject;
+    private final Map<ByteBuffer, List<Node>> byKeyId;
+
+    public ChainBuilder() {
+        this.nodes = new ArrayList<>();
+        this.fingerprints = new HashSet<>();
+        this.bySubject = new HashMap<>();
+        this.byKeyId = new HashMap<>();
+    }
+
+    /**
+     * @return {@code true} if the certificate was added, or {@code false} if the same certificate had already been added
+     */
+    public boolean add(X509Certificate certificate) throws X5Exception {
+        if (fingerprints.add(ByteBuffer.wrap(certificate.fingerprint(Digest.SHA256))) == false) {
+            return false;
+        }
+        final Node node = new Node(certificate);
+        nodes.add(node);
+        bySubject.computeIfAbsent(node.subject, k -> new ArrayList<>(1)).add(node);
+        if (node.subjectKeyId != null) {
+            byKeyId.computeIfAbsent(node.subjectKeyId, k -> new ArrayList<>(1)).add(node);
+        }
+        return true;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Builds a chain for every leaf certificate (a certificate that did not issue any of the other certificates),
+     * in the order that the leaves were added. Each chain runs from the leaf to the furthest issuer that is available.
+     */
+    public List<CertificateChain> build() {
+        for (Node node : nodes) {
+            node.issuerNode = findIssuer(node);
+            if (node.issuerNode != null) {
+                node.issuerNode.isIssuer = true;
+            }
+        }
+        final List<CertificateChain> chains = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.isIssuer == false) {
+                chains.add(chain(node));
+            }
+        }
+        return chains;
+    }
+
+    private Node findIssuer(Node node) {
+        if (node.isSelfIssued()) {
+            return null;
+        }
+        if (node.authorityKeyId != null) {
+            for (Node candidate : byKeyId.getOrDefault(node.authorityKeyId, List.of())) {
+                if (candidate.canIssue(node)) {
+                    return candidate;
+                }
+            }
+        }
+        for (Node candidate : bySubject.getOrDefault(node.issuer, List.of())) {
+            if (candidate.canIssue(node)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private CertificateChain chain(Node leaf) {
+        final List<X509Certificate> certificates = new ArrayList<>();
+        // Cross-signed certificates can form a loop
+        final Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node node = leaf; node != null && visited.add(node); node = node.issuerNode) {
+            certificates.add(node.certificate);
+        }
+        return new X5CertificateChain(certificates, leaf.certificate.getSource().withDescriptionPrefix("chain for"));
+    }
+
+    /**
+     * The key identifiers are read from the certificate's header (see {@link CertificateHeader#extensionValue}), which does not decode
+     * the rest of the certificate. Certificates whose header cannot be read that way are decoded in full.
+     */
+    private static Optional<CertificateHeader> header(X509Certificate certificate) throws X5Exception {
+        if (certificate instanceof DerX509Certificate) {
+            return Optional.of(((DerX509Certificate) certificate).header());
+        }
+        try {
+            return Optional.of(CertificateHeader.read(certificate.encodedValue()));
+        } catch (DerParseException e) {
+            Debug.printf("Cannot read header of %s: %s", certificate.description(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import org.adjective.x5.exception.DerParseException;
+import org.adjective.x5.exception.DnParseException;
+import org.adjective.x5.exception.UncheckedException;
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.exception.X5InputException;
+import org.adjective.x5.io.PemOutput;
+import org.adjective.x5.types.X5PublicKey;
+import org.adjective.x5.types.X5Record;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Algorithm;
+import org.adjective.x5.types.value.DN;
+import org.adjective.x5.types.value.X5Date;
+import org.adjective.x5.types.value.X5Number;
+import org.adjective.x5.types.value.X5String;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.util.io.pem.PemObject;
+
+/**
+ * An X.509 certificate that only retains its DER encoding.
+ * The subject, issuer, serial number and validity are read from the {@link CertificateHeader header}, and the other properties decode
+ * the certificate (without keeping the decoded form). No BouncyCastle or JCA certificate objects are retained, so large inventories of
+ * certificates need much less memory.
+ * Small values are kept once they have been decoded. For the subject and issuer, only the string form is kept, because a {@link DN} is
+ * several times larger than the encoded certificate. Each call returns a new DN that decodes its RDNs from the encoding if they are
+ * needed. The subject alternative names keep the encoded extension, and the public key is decoded on each call.
+ */
+public class DerX509Certificate extends AbstractX509Certificate {
+    private static final String PEM_TYPE = "CERTIFICATE";
+
+    private final CertificateHeader header;
+
+    // Each of these is calculated when first needed. Concurrent callers may calculate the same value more than once, which is harmless
+    private volatile X5Date notBefore;
+    private volatile X5Date notAfter;
+    private volatile X5Number<?> serialNumber;
+    private volatile Algorithm signatureAlgorithm;
+    private volatile Optional<X5Record> basicConstraints;
+    private volatile String subject;
+    private volatile String issuer;
+    private volatile Optional<byte[]> subjectAlternativeName;
+
+    /**
+     * @param encoded The DER encoded certificate. This array is retained (not copied), and must not be modified.
+     */
+    public DerX509Certificate(byte[] encoded, X5StreamInfo source) throws X5Exception {
+        super(source);
+        this.header = CertificateHeader.read(encoded);
+    }
+
+    CertificateHeader header() {
+        return header;
+    }
+
+    private Certificate decode() {
+        try {
+            return Certificate.getInstance(header.encodedForm());
+        } catch (IllegalArgumentException e) {
+            throw new UncheckedException("Cannot decode " + source.getSourceDescription(), new X5InputException("Invalid certificate", e));
+        }
+    }
+
+    @Override
+    public DN subject() throws DnParseException {
+        final String text = subject;
+        if (text == null) {
+            final DN dn = Values.dn(header.subject(), source);
+            subject = dn.value();
+            return dn;
+        }
+        return DN.of(text, header::subject, source);
+    }
+
+    @Override
+    public DN issuer() throws DnParseException {
+        final String text = issuer;
+        if (text == null) {
+            final DN dn = Values.dn(header.issuer(), source);
+            issuer = dn.value();
+            return dn;
+        }
+        return DN.of(text, header::issuer, source);
+    }
+
+    @Override
+    public X5Date notBefore() {
+        X5Date date = notBefore;
+        if (date == null) {
+            notBefore = date = Values.date(header.notBefore(), source);
+        }
+        return date;
+    }
+
+    @Override
+    public X5Date notAfter() {
+        X5Date date = notAfter;
+        if (date == null) {
+            notAfter = date = Values.date(header.notAfter(), source);
+        }
+        return date;
+    }
+
+    @Override
+    public X5Number<?> serialNumber() {
+        X5Number<?> serial = serialNumber;
+        if (serial == null) {
+            serialNumber = serial = Values.number(header.serialNumber(), 16, source);
+        }
+        return serial;
+    }
+
+    @Override
+    public Algorithm signatureAlgorithm() {
+        Algorithm algorithm = signatureAlgorithm;
+        if (algorithm == null) {
+            signatureAlgorithm = algorithm = new Algorithm(decode().getSignatureAlgorithm(), source);
+        }
+        return algorithm;
+    }
+
+    @Override
+    public X5Record basicConstraints() {
+        Optional<X5Record> record = basicConstraints;
+        if (record == null) {
+            // Most end-entity certificates do not have this extension, so the absence of the extension is kept as well
+            final BasicConstraints constraints = BasicConstraints.fromExtensions(decode().getTBSCertificate().getExtensions());
+            record = Optional.ofNullable(constraints).map(c -> basicConstraints(c.isCA(), c.getPathLenConstraint()));
+            basicConstraints = record;
+        }
+        return record.orElse(null);
+    }
+
+    @Override
+    public X5Record subjectAlternativeName() {
+        Optional<byte[]> value = subjectAlternativeName;
+        if (value == null) {
+            try {
+                value = Optional.ofNullable(header.extensionValue(Extension.subjectAlternativeName));
+            } catch (DerParseException e) {
+                throw new UncheckedException("Cannot read subject-alternative-name of " + source.getSourceDescription(), e);
+            }
+            subjectAlternativeName = value;
+        }
+        final GeneralNames names = value.map(GeneralNames::getInstance).orElse(null);
+        return new GeneralNamesRecord(names, source.withDescriptionPrefix("subject-alternative-name of"));
+    }
+
+    @Override
+    public X5PublicKey publicKey() {
+        return new PemPublicKey(decode().getSubjectPublicKeyInfo(), source.withDescriptionPrefix("public key for"));
+    }
+
+    @Override
+    public X5String certificateType() {
+        return Values.string("X.509", source);
+    }
+
+    @Override
+    public byte[] encodedValue() {
+        return header.encoded();
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        PemOutput.write(new PemObject(PEM_TYPE, header.encodedForm()), out);
+    }
+}
@@ -23,13 +23,14 @@ import java.security.KeyStoreException;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.crypto.SecretKey;
 
@@ -42,15 +43,17 @@ import org.adjective.x5.types.CryptoStore;
 import org.adjective.x5.types.CryptoValue;
 import org.adjective.x5.types.KeyPair;
 import org.adjective.x5.types.PrivateCredential;
-import org.adjective.x5.types.PublicCredential;
 import org.adjective.x5.types.StoreEntry;
 import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.DN;
 import org.adjective.x5.types.value.OID;
+import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.CheckedSupplier;
 import org.adjective.x5.util.KeyStoreIterator;
 import org.adjective.x5.util.Lazy;
+import org.adjective.x5.util.LazyMap;
 import org.adjective.x5.util.ObjectIdentifiers;
-import org.adjective.x5.util.Tuple;
 import org.adjective.x5.util.Values;
 
 public class JavaKeyStore implements CryptoStore {
@@ -59,14 +62,14 @@ public class JavaKeyStore implements CryptoStore {
     private final EncryptionInfo encryption;
     private final Map<String, EncryptionInfo> encryptionByEntry;
 
-    private final Lazy<List<StoreEntry>, X5Exception> entries;
+    private final Lazy<StoreIndex, X5Exception> entries;
 
     public JavaKeyStore(KeyStore keyStore, X5StreamInfo source, EncryptionInfo encryption) {
         this(keyStore, source, encryption, new HashMap<>());
     }
 
-    private EncryptionInfo getKeyEncryption(KeyStoreIterator.Entry entry) {
-        return encryptionByEntry.getOrDefault(entry.getAlias(), encryption);
+    private EncryptionInfo getKeyEncryption(String alias) {
+        return encryptionByEntry.getOrDefault(alias, encryption);
     }
 
     protected JavaKeyStore(
@@ -84,17 +87,9 @@ public class JavaKeyStore implements CryptoStore {
                 final List<StoreEntry> list = new ArrayList<>(keyStore.size());
                 final KeyStoreIterator itr = new KeyStoreIterator(this.keyStore);
                 while (itr.hasNext()) {
-                    final KeyStoreIterator.Entry entry = itr.next();
-                    entry.getCertificate().ifPresent(c -> list.add(certificateEntry(entry.getAlias(), c)));
-
-                    final EncryptionInfo entryEncryption = getKeyEncryption(entry);
-                    final Optional<Tuple<Key, Certificate[]>> keyPair = entry.getKeyPair(entryEncryption.password());
-                    if (keyPair.isPresent()) {
-                        final Tuple<Key, Certificate[]> tup = keyPair.get();
-                        list.add(keyEntry(entry.getAlias(), tup.v1, tup.v2));
-                    }
+                    list.addAll(readEntries(itr.next().getAlias()));
                 }
-                return list;
+                return new StoreIndex(list);
             } catch (GeneralSecurityException e) {
                 throw new CryptoStoreException("Cannot process " + source.getSourceDescription(), e);
             }
@@ -126,7 +121,22 @@ public class JavaKeyStore implements CryptoStore {
 
     @Override
     public List<StoreEntry> entries() throws X5Exception {
-        return Collections.unmodifiableList(this.entries.get());
+        return this.entries.get().entries();
+    }
+
+    @Override
+    public Optional<StoreEntry> findEntry(String name) throws X5Exception {
+        return this.entries.get().byName(name);
+    }
+
+    @Override
+    public List<StoreEntry> findByFingerprint(byte[] sha256) throws X5Exception {
+        return this.entries.get().byFingerprint(sha256);
+    }
+
+    @Override
+    public List<StoreEntry> findBySubject(DN subject) throws X5Exception {
+        return this.entries.get().bySubject(subject);
     }
 
     @Override
@@ -142,7 +152,16 @@ public class JavaKeyStore implements CryptoStore {
                 "Cannot store entry " + entry + " with type " + entry.value().getTypeName() + " in " + this
             );
         }
-        this.entries.clear();
+        // Update the existing view (if any) rather than re-reading (and re-decrypting) every entry in the keystore
+        if (this.entries.isSet()) {
+            try {
+                final String alias = storedAlias(entry.name());
+                this.entries.get().replace(alias, readEntries(alias));
+            } catch (KeyStoreException e) {
+                this.entries.clear();
+                throw new CryptoStoreException("Cannot read entry " + entry.name() + " from " + this, e);
+            }
+        }
     }
 
     private void addKeyPair(String name, KeyPair pair, Optional<EncryptionInfo> encryption) throws X5Exception {
@@ -154,7 +173,7 @@ public class JavaKeyStore implements CryptoStore {
                 Objects.requireNonNull(entryEncryption.password(), "Encryption <" + entryEncryption + "> has no password").chars(),
                 JCAConversion.chain(pair.publicCredential())
             );
-            this.encryptionByEntry.put(name, entryEncryption);
+            this.encryptionByEntry.put(storedAlias(name), entryEncryption);
         } catch (KeyStoreException e) {
             throw new CryptoStoreException("Failed to store entry " + name + " of " + pair, e);
         }
@@ -163,11 +182,31 @@ public class JavaKeyStore implements CryptoStore {
     private void addCertificateEntry(String name, org.adjective.x5.types.Certificate certificate) throws X5Exception {
         try {
             this.keyStore.setCertificateEntry(name, JCAConversion.certificate(certificate));
+            this.encryptionByEntry.remove(storedAlias(name));
         } catch (KeyStoreException e) {
             throw new CryptoStoreException("Failed to store entry " + name + " of " + certificate, e);
         }
     }
 
+    /**
+     * The alias that the KeyStore holds {@code name} under.
+     * JKS and PKCS#12 aliases are case insensitive (and are listed in lower case) but other KeyStore types are case sensitive,
+     * so the alias is taken from the KeyStore rather than assuming either. This only compares alias strings, it does not read any entries.
+     */
+    private String storedAlias(String name) throws KeyStoreException {
+        String match = null;
+        for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements();) {
+            final String alias = aliases.nextElement();
+            if (alias.equals(name)) {
+                return alias;
+            }
+            if (match == null && alias.equalsIgnoreCase(name)) {
+                match = alias;
+            }
+        }
+        return match == null ? name : match;
+    }
+
     @Override
     public EncryptionInfo encryption() {
         return this.encryption;
@@ -188,7 +227,7 @@ public class JavaKeyStore implements CryptoStore {
                 KeyStoreIterator itr = new KeyStoreIterator(this.keyStore);
                 while (itr.hasNext()) {
                     final KeyStoreIterator.Entry entry = itr.next();
-                    final EncryptionInfo keyEncryption = getKeyEncryption(entry);
+                    final EncryptionInfo keyEncryption = getKeyEncryption(entry.getAlias());
                     entry.copyTo(ks, keyEncryption.password(), withEncryption.password());
                     if (entry.isKey()) {
                         encryptionByKey.put(entry.getAlias(), keyEncryption);
@@ -209,62 +248,170 @@ public class JavaKeyStore implements CryptoStore {
         return new JavaKeyStore(ks, source, encryption, encryptionByEntry);
     }
 
+    private List<StoreEntry> readEntries(String alias) throws KeyStoreException {
+        if (keyStore.isCertificateEntry(alias)) {
+            return List.of(certificateEntry(alias, keyStore.getCertificate(alias)));
+        } else if (keyStore.isKeyEntry(alias)) {
+            return List.of(keyEntry(alias));
+        } else {
+            return List.of();
+        }
+    }
+
     private KeyStoreEntry certificateEntry(String name, Certificate certificate) {
         final X5StreamInfo entrySource = entrySource(name);
         JavaCertificate<?> certObj = JavaCertificate.create(certificate, entrySource);
-        final Map<String, X5Object> properties = readProperties(name, entrySource);
+        final LazyMap<String, X5Object> properties = new LazyMap<>();
+        properties.putAllLazy(() -> readProperties(name, entrySource));
         properties.put("certificate", certObj);
-        return new KeyStoreEntry(name, entrySource, certObj, properties);
+        return new KeyStoreEntry(name, entrySource, () -> certObj, Optional.of(certObj), properties);
     }
 
-    private KeyStoreEntry keyEntry(String name, Key key, Certificate[] certificates) throws CryptoStoreException {
+    /**
+     * Key entries are not decrypted until their private key is needed.
+     * The name and certificate chain of the entry are available without decryption, as are its attributes if they can be read from the
+     * keystore file (see {@link #bagAttributes}). Otherwise the JCA API only provides the attributes with the decrypted key, so they are
+     * loaded (and the key is decrypted) when a property that is not otherwise known is requested, or the properties are listed.
+     */
+    private KeyStoreEntry keyEntry(String name) throws KeyStoreException {
         final X5StreamInfo entrySource = entrySource(name);
-        final Map<String, X5Object> properties = readProperties(name, entrySource);
+        final EncryptionInfo entryEncryption = getKeyEncryption(name);
 
-        final PublicCredential publicCredential;
-        final PrivateCredential privateCredential;
+        final Certificate[] certificates = keyStore.getCertificateChain(name);
+        final JavaCertificateChain publicCredential;
         if (certificates == null || certificates.length == 0) {
             publicCredential = null;
         } else {
             publicCredential = new JavaCertificateChain(certificates, entrySource);
         }
+        // The key and its attributes are read together, so that the key is only decrypted once
+        final Lazy<DecryptedKey, X5Exception> decrypted = Lazy.lazy(() -> decrypt(name, publicCredential != null, entryEncryption));
+        final Lazy<PrivateCredential, X5Exception> privateCredential = Lazy.lazy(
+            () -> privateCredential(decrypted.get().key, entrySource)
+        );
+
+        final LazyMap<String, X5Object> properties = new LazyMap<>();
+        properties.putLazy("private", privateCredential);
+        properties.put("public", publicCredential == null ? Values.nullValue(source) : publicCredential);
+        final Optional<Set<KeyStore.Entry.Attribute>> attributes = bagAttributes(name);
+        if (attributes.isPresent()) {
+            properties.putAll(readProperties(attributes.get(), entrySource));
+        } else {
+            // If the key cannot be decrypted (e.g. the password is wrong) then the attributes fail, rather than being empty
+            properties.putAllLazy(() -> readProperties(decrypted.get().attributes, entrySource));
+        }
+        if (publicCredential == null) {
+            return new KeyStoreEntry(name, entrySource, privateCredential, Optional.empty(), properties);
+        } else {
+            return new KeyStoreEntry(
+                name,
+                entrySource,
+                () -> new BasicKeyPair(privateCredential.get(), publicCredential, entrySource),
+                Optional.of(publicCredential.certificates().get(0)),
+                properties
+            );
+        }
+    }
+
+    private DecryptedKey decrypt(String name, boolean hasChain, EncryptionInfo entryEncryption) throws CryptoStoreException {
+        Debug.printf("Decrypting key entry [%s] in %s\n", name, source.getSourceDescription());
+        final char[] password = entryEncryption.password().chars();
+        try {
+            final Optional<Key> bagKey = decryptKeyBag(name, entryEncryption.password());
+            if (bagKey.isPresent()) {
+                return new DecryptedKey(bagKey.get(), bagAttributes(name).orElse(Set.of()));
+            }
+            // Entries may be decrypted concurrently (e.g. by "parallel-each"), and KeyStore implementations are not thread safe
+            synchronized (keyStore) {
+                if (hasChain || keyStore.entryInstanceOf(name, KeyStore.SecretKeyEntry.class)) {
+                    final KeyStore.Entry entry = keyStore.getEntry(name, new KeyStore.PasswordProtection(password));
+                    if (entry instanceof KeyStore.PrivateKeyEntry) {
+                        return new DecryptedKey(((KeyStore.PrivateKeyEntry) entry).getPrivateKey(), entry.getAttributes());
+                    } else if (entry instanceof KeyStore.SecretKeyEntry) {
+                        return new DecryptedKey(((KeyStore.SecretKeyEntry) entry).getSecretKey(), entry.getAttributes());
+                    } else if (entry == null) {
+                        throw new KeyStoreException("Entry [" + name + "] no longer exists");
+                    } else {
+                        throw new KeyStoreException("Unsupported entry type " + entry.getClass().getName());
+                    }
+                } else {
+                    // A KeyStore.PrivateKeyEntry requires a certificate chain, so getEntry fails for a private key without one
+                    final Key key = keyStore.getKey(name, password);
+                    if (key == null) {
+                        throw new KeyStoreException("Entry [" + name + "] no longer exists");
+                    }
+                    return new DecryptedKey(key, Set.of());
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new CryptoStoreException("Cannot read key [" + name + "] from " + source.getSourceDescription(), e);
+        }
+    }
+
+    private PrivateCredential privateCredential(Key key, X5StreamInfo entrySource) {
         if (key instanceof PrivateKey) {
-            privateCredential = new JavaPrivateKey((PrivateKey) key, entrySource, encryption);
+            return new JavaPrivateKey((PrivateKey) key, entrySource, encryption);
         } else if (key instanceof SecretKey) {
-            privateCredential = new JavaSecretKey((SecretKey) key, entrySource);
+            return new JavaSecretKey((SecretKey) key, entrySource);
         } else {
-            privateCredential = new GenericPrivateCredential(key, entrySource);
+            return new GenericPrivateCredential(key, entrySource);
         }
+    }
 
-        properties.put("private", privateCredential);
-        if (publicCredential == null) {
-            properties.put("public", Values.nullValue(source));
-            return new KeyStoreEntry(name, entrySource, privateCredential, properties);
-        } else {
-            properties.put("public", publicCredential);
-            return new KeyStoreEntry(name, entrySource, new BasicKeyPair(privateCredential, publicCredential, entrySource), properties);
+    private static class DecryptedKey {
+        private final Key key;
+        private final Set<KeyStore.Entry.Attribute> attributes;
+
+        private DecryptedKey(Key key, Set<KeyStore.Entry.Attribute> attributes) {
+            this.key = key;
+            this.attributes = attributes;
         }
     }
 
+    /**
+     * Decrypts a key entry from the keystore file without using the JCA keystore, if the format allows it
+     *
+     * @return The key, or empty if it must be read from the JCA keystore
+     */
+    protected Optional<Key> decryptKeyBag(String alias, Password password) throws GeneralSecurityException {
+        return Optional.empty();
+    }
+
+    /**
+     * The attributes of a key entry, if they are available without decrypting the key
+     */
+    protected Optional<Set<KeyStore.Entry.Attribute>> bagAttributes(String alias) {
+        final String type = keyStore.getType();
+        if (type.equalsIgnoreCase("JKS") || type.equalsIgnoreCase("JCEKS")) {
+            // These formats do not store attributes
+            return Optional.of(Set.of());
+        }
+        return Optional.empty();
+    }
+
     private Map<String, X5Object> readProperties(String name, X5StreamInfo entrySource) {
-        final Map<String, X5Object> properties = new LinkedHashMap<>();
         try {
-            KeyStore.PasswordProtection protection = keyStore.isKeyEntry(name)
-                ? new KeyStore.PasswordProtection(encryption.password().chars())
-                : null;
-            KeyStore.Entry e = keyStore.getEntry(name, protection);
-            for (KeyStore.Entry.Attribute attribute : e.getAttributes()) {
-                String attrName = attribute.getName();
-                OID oid = new OID(attrName, source.withDescriptionPrefix("attribute in"));
-                Optional<String> oidName = ObjectIdentifiers.name(oid);
-                if (oidName.isPresent()) {
-                    attrName = oidName.get();
-                }
-                properties.put(attrName, Values.string(attribute.getValue(), entrySource));
+            final KeyStore.Entry entry;
+            synchronized (keyStore) {
+                entry = keyStore.getEntry(name, null);
             }
+            return readProperties(entry.getAttributes(), entrySource);
         } catch (GeneralSecurityException e) {
             Debug.error(e, "Failed to read attributes for " + entrySource.getSourceDescription());
-            // Ignore
+            return Map.of();
+        }
+    }
+
+    private Map<String, X5Object> readProperties(Set<KeyStore.Entry.Attribute> attributes, X5StreamInfo entrySource) {
+        final Map<String, X5Object> properties = new LinkedHashMap<>();
+        for (KeyStore.Entry.Attribute attribute : attributes) {
+            String attrName = attribute.getName();
+            OID oid = new OID(attrName, source.withDescriptionPrefix("attribute in"));
+            Optional<String> oidName = ObjectIdentifiers.name(oid);
+            if (oidName.isPresent()) {
+                attrName = oidName.get();
+            }
+            properties.put(attrName, Values.string(attribute.getValue(), entrySource));
         }
         return properties;
     }
@@ -275,12 +422,20 @@ public class JavaKeyStore implements CryptoStore {
 
     public final class KeyStoreEntry extends AbstractStoreEntry {
         private final X5StreamInfo source;
+        private final Optional<org.adjective.x5.types.Certificate> certificate;
         private final Map<String, X5Object> properties;
 
-        private KeyStoreEntry(String name, X5StreamInfo source, CryptoValue value, Map<String, X5Object> properties) {
+        private KeyStoreEntry(
+            String name,
+            X5StreamInfo source,
+            CheckedSupplier<? extends CryptoValue, X5Exception> value,
+            Optional<org.adjective.x5.types.Certificate> certificate,
+            LazyMap<String, X5Object> properties
+        ) {
             super(name, value);
             this.source = source;
-            this.properties = new LinkedHashMap<>();
+            this.certificate = certificate;
+            this.properties = new LazyMap<>();
             this.properties.putAll(super.properties());
             this.properties.putAll(properties);
         }
@@ -300,5 +455,11 @@ public class JavaKeyStore implements CryptoStore {
             return this.properties;
         }
 
+        @Override
+        public Optional<org.adjective.x5.types.Certificate> certificate() {
+            // Available without decrypting the key
+            return this.certificate;
+        }
+
     }
 }
@@ -0,0 +1,332 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PKCS12Attribute;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.adjective.x5.exception.DerParseException;
+import org.adjective.x5.io.Debug;
+import org.adjective.x5.io.encrypt.CachedKeyDecryptor;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.DerCursor;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.ContentInfo;
+import org.bouncycastle.asn1.pkcs.EncryptedPrivateKeyInfo;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.Pfx;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.pkcs.PKCS12SafeBag;
+import org.bouncycastle.pkcs.PKCS12SafeBagFactory;
+import org.bouncycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
+
+/**
+ * The parts of a PKCS#12 (PFX) file that are read directly from the file, rather than through the JCA keystore.
+ * The file is decoded by the keystore, so these parts are skimmed from its encoding (with a {@link DerCursor}) rather than decoded a
+ * second time. Files that use an encoding that the cursor does not support (such as indefinite length BER) are decoded with
+ * BouncyCastle instead.
+ * <p>
+ * Shrouded key bags that use an encryption scheme that {@link CachedKeyDecryptor} supports are decrypted here (rather than by the
+ * keystore), so that they use the run's {@link org.adjective.x5.io.encrypt.DerivedKeyCache}.
+ * </p>
+ */
+public class Pkcs12Contents {
+
+    private static final int EXPLICIT_CONTENT = 0xA0;
+
+    private static final byte[] DATA = encode(PKCSObjectIdentifiers.data);
+    private static final byte[] KEY_BAG = encode(PKCSObjectIdentifiers.keyBag);
+    private static final byte[] SHROUDED_KEY_BAG = encode(PKCSObjectIdentifiers.pkcs8ShroudedKeyBag);
+
+    private final X5StreamInfo source;
+    private final ASN1ObjectIdentifier macAlgorithm;
+    private final Optional<CachedKeyDecryptor> keyDecryptor;
+    // One of these is set until the key bags are read (the encoded file, or the decoded PFX), and then both are released
+    private byte[] encoded;
+    private PKCS12PfxPdu pfx;
+    private int authSafeStart;
+    private int authSafeEnd;
+    private Map<String, KeyBag> keyBags;
+
+    private Pkcs12Contents(X5StreamInfo source, ASN1ObjectIdentifier macAlgorithm, Optional<CachedKeyDecryptor> keyDecryptor) {
+        this.source = source;
+        this.macAlgorithm = macAlgorithm;
+        this.keyDecryptor = keyDecryptor;
+    }
+
+    /**
+     * Reads the PFX structure from {@code encoded}, which must not be modified while the contents are in use.
+     */
+    public static Pkcs12Contents read(byte[] encoded, X5StreamInfo source, Optional<CachedKeyDecryptor> keyDecryptor)
+        throws IOException {
+        try {
+            return skim(encoded, source, keyDecryptor);
+        } catch (DerParseException e) {
+            Debug.error(e, "Cannot skim PKCS#12 file %s", source.getSourceDescription());
+            return of(decode(encoded), source, keyDecryptor);
+        }
+    }
+
+    private static PKCS12PfxPdu decode(byte[] encoded) throws IOException {
+        try (ASN1InputStream asn1 = new ASN1InputStream(encoded, true)) {
+            return new PKCS12PfxPdu(Pfx.getInstance(asn1.readObject()));
+        }
+    }
+
+    public static Pkcs12Contents of(PKCS12PfxPdu pfx, X5StreamInfo source, Optional<CachedKeyDecryptor> keyDecryptor)
+        throws IOException {
+        final AlgorithmIdentifier mac = pfx.getMacAlgorithmID();
+        if (mac == null) {
+            throw new IOException("PKCS#12 file " + source.getSourceDescription() + " does not have a MAC");
+        }
+        final Pkcs12Contents contents = new Pkcs12Contents(source, mac.getAlgorithm(), keyDecryptor);
+        contents.pfx = pfx;
+        return contents;
+    }
+
+    private static Pkcs12Contents skim(byte[] encoded, X5StreamInfo source, Optional<CachedKeyDecryptor> keyDecryptor)
+        throws DerParseException {
+        DerCursor der = new DerCursor(encoded);
+        der.next(DerCursor.SEQUENCE); // PFX
+        der = der.content();
+        der.next(DerCursor.INTEGER); // version
+        der.next(DerCursor.SEQUENCE); // authSafe
+        final int authSafeStart = der.elementStart();
+        final int authSafeEnd = der.elementEnd();
+        if (der.hasNext() == false) {
+            throw new DerParseException("PKCS#12 file does not have a MAC");
+        }
+        der.next(DerCursor.SEQUENCE); // macData
+        der = der.content();
+        der.next(DerCursor.SEQUENCE); // mac (DigestInfo)
+        der = der.content();
+        der.next(DerCursor.SEQUENCE); // digestAlgorithm
+        der = der.content();
+        der.next(DerCursor.OBJECT_IDENTIFIER);
+        final ASN1ObjectIdentifier macAlgorithm = ASN1ObjectIdentifier.getInstance(der.element());
+
+        final Pkcs12Contents contents = new Pkcs12Contents(source, macAlgorithm, keyDecryptor);
+        contents.encoded = encoded;
+        contents.authSafeStart = authSafeStart;
+        contents.authSafeEnd = authSafeEnd;
+        return contents;
+    }
+
+    /**
+     * The digest algorithm of the file's MAC
+     */
+    public ASN1ObjectIdentifier macAlgorithm() {
+        return macAlgorithm;
+    }
+
+    /**
+     * The attributes of the key bag for {@code alias}, if it is not inside an encrypted safe.
+     * Bags without a friendly name, or that share a name, cannot be matched to a keystore entry, so they are not available.
+     */
+    public Optional<Set<KeyStore.Entry.Attribute>> keyBagAttributes(String alias) {
+        return Optional.ofNullable(keyBags().get(alias.toLowerCase(Locale.ENGLISH))).map(bag -> bag.attributes);
+    }
+
+    /**
+     * Decrypts the key in the (shrouded) key bag for {@code alias}, using the key cache.
+     *
+     * @return The key, or empty if there is no such bag (see {@link #keyBagAttributes}), or its encryption scheme is not supported by
+     * {@link CachedKeyDecryptor} (in which case the key should be read from the keystore)
+     */
+    public Optional<PrivateKeyInfo> decryptKey(String alias, Password password) throws GeneralSecurityException {
+        if (keyDecryptor.isEmpty()) {
+            return Optional.empty();
+        }
+        final KeyBag bag = keyBags().get(alias.toLowerCase(Locale.ENGLISH));
+        if (bag == null || bag.encryptedKey == null) {
+            return Optional.empty();
+        }
+        return keyDecryptor.get().decrypt(EncryptedPrivateKeyInfo.getInstance(bag.encryptedKey), password);
+    }
+
+    private synchronized Map<String, KeyBag> keyBags() {
+        if (keyBags == null) {
+            final Map<String, KeyBag> map = new HashMap<>();
+            final Set<String> duplicates = new HashSet<>();
+            try {
+                if (encoded != null) {
+                    try {
+                        skimKeyBags(map, duplicates);
+                    } catch (DerParseException e) {
+                        Debug.error(e, "Cannot skim key bags in %s", source.getSourceDescription());
+                        map.clear();
+                        duplicates.clear();
+                        pfx = decode(encoded);
+                    }
+                }
+                if (pfx != null) {
+                    readKeyBags(map, duplicates);
+                }
+                duplicates.forEach(map::remove);
+                keyBags = map;
+            } catch (IOException | RuntimeException e) {
+                Debug.error(e, "Cannot read key bags from %s", source.getSourceDescription());
+                keyBags = Map.of();
+            }
+            encoded = null;
+            pfx = null;
+        }
+        return keyBags;
+    }
+
+    private void skimKeyBags(Map<String, KeyBag> map, Set<String> duplicates) throws DerParseException, IOException {
+        DerCursor der = new DerCursor(encoded, authSafeStart, authSafeEnd - authSafeStart);
+        der.next(DerCursor.SEQUENCE); // ContentInfo
+        der = der.content();
+        der.next(DerCursor.OBJECT_IDENTIFIER);
+        if (der.elementEquals(DATA) == false) {
+            // The safe is signed (public key integrity mode), so leave it to the keystore
+            return;
+        }
+        DerCursor safes = dataContent(der);
+        safes.next(DerCursor.SEQUENCE); // AuthenticatedSafe
+        safes = safes.content();
+        while (safes.hasNext()) {
+            safes.next(DerCursor.SEQUENCE);
+            final DerCursor info = safes.content();
+            info.next(DerCursor.OBJECT_IDENTIFIER);
+            if (info.elementEquals(DATA) == false) {
+                // Encrypted safe contents cannot be read without the password
+                continue;
+            }
+            DerCursor bags = dataContent(info);
+            bags.next(DerCursor.SEQUENCE); // SafeContents
+            bags = bags.content();
+            while (bags.hasNext()) {
+                bags.next(DerCursor.SEQUENCE);
+                final DerCursor bag = bags.content();
+                bag.next(DerCursor.OBJECT_IDENTIFIER);
+                final boolean shrouded = bag.elementEquals(SHROUDED_KEY_BAG);
+                if (shrouded == false && bag.elementEquals(KEY_BAG) == false) {
+                    continue;
+                }
+                bag.next(EXPLICIT_CONTENT); // bagValue
+                final byte[] encryptedKey = shrouded ? encryptedKey(bag) : null;
+                if (bag.hasNext() == false) {
+                    continue;
+                }
+                bag.next(DerCursor.SET);
+                final DerCursor attributes = bag.content();
+                final List<Attribute> list = new ArrayList<>();
+                while (attributes.hasNext()) {
+                    attributes.next(DerCursor.SEQUENCE);
+                    list.add(Attribute.getInstance(ASN1Sequence.getInstance(attributes.element())));
+                }
+                addKeyBag(list, encryptedKey, map, duplicates);
+            }
+        }
+    }
+
+    /**
+     * The encoded EncryptedPrivateKeyInfo within the value of a shrouded key bag
+     */
+    private static byte[] encryptedKey(DerCursor bag) throws DerParseException {
+        final DerCursor value = bag.content();
+        value.next(DerCursor.SEQUENCE);
+        return value.element();
+    }
+
+    /**
+     * A cursor over the octets of a ContentInfo with the {@code data} content type
+     */
+    private static DerCursor dataContent(DerCursor contentInfo) throws DerParseException {
+        contentInfo.next(EXPLICIT_CONTENT);
+        final DerCursor content = contentInfo.content();
+        content.next(DerCursor.OCTET_STRING);
+        return content.content();
+    }
+
+    private void readKeyBags(Map<String, KeyBag> map, Set<String> duplicates) throws IOException {
+        for (ContentInfo info : pfx.getContentInfos()) {
+            if (PKCSObjectIdentifiers.data.equals(info.getContentType()) == false) {
+                // Encrypted safe contents cannot be read without the password
+                continue;
+            }
+            for (PKCS12SafeBag bag : new PKCS12SafeBagFactory(info).getSafeBags()) {
+                if (isKeyBag(bag) == false || bag.getAttributes() == null) {
+                    continue;
+                }
+                final byte[] encryptedKey = bag.getType().equals(PKCSObjectIdentifiers.pkcs8ShroudedKeyBag)
+                    ? ((PKCS8EncryptedPrivateKeyInfo) bag.getBagValue()).getEncoded()
+                    : null;
+                addKeyBag(List.of(bag.getAttributes()), encryptedKey, map, duplicates);
+            }
+        }
+    }
+
+    private static boolean isKeyBag(PKCS12SafeBag bag) {
+        return bag.getType().equals(PKCSObjectIdentifiers.pkcs8ShroudedKeyBag) || bag.getType().equals(PKCSObjectIdentifiers.keyBag);
+    }
+
+    private static void addKeyBag(List<Attribute> bagAttributes, byte[] encryptedKey, Map<String, KeyBag> map, Set<String> duplicates)
+        throws IOException {
+        String name = null;
+        final Set<KeyStore.Entry.Attribute> attributes = new LinkedHashSet<>();
+        for (Attribute attribute : bagAttributes) {
+            if (attribute.getAttrType().equals(PKCSObjectIdentifiers.pkcs_9_at_friendlyName)
+                && attribute.getAttrValues().size() == 1
+                && attribute.getAttrValues().getObjectAt(0) instanceof ASN1String) {
+                name = ((ASN1String) attribute.getAttrValues().getObjectAt(0)).getString();
+            }
+            attributes.add(new PKCS12Attribute(attribute.getEncoded()));
+        }
+        // The keystore's alias is the friendly name, so without one the bag cannot be matched to its entry
+        if (name != null && map.put(name.toLowerCase(Locale.ENGLISH), new KeyBag(attributes, encryptedKey)) != null) {
+            duplicates.add(name.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    private static class KeyBag {
+        private final Set<KeyStore.Entry.Attribute> attributes;
+        // The encoded EncryptedPrivateKeyInfo, for a shrouded key bag
+        private final byte[] encryptedKey;
+
+        private KeyBag(Set<KeyStore.Entry.Attribute> attributes, byte[] encryptedKey) {
+            this.attributes = attributes;
+            this.encryptedKey = encryptedKey;
+        }
+    }
+
+    private static byte[] encode(ASN1ObjectIdentifier oid) {
+        try {
+            return oid.getEncoded();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot encode OID " + oid, e);
+        }
+    }
+}
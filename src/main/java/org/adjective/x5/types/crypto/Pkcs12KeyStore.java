@@ -14,37 +14,58 @@
 
 package org.adjective.x5.types.crypto;
 
+import java.security.GeneralSecurityException;
+import java.security.Key;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
+import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.encrypt.EncryptionInfo;
 import org.adjective.x5.io.encrypt.Pkcs12EncryptionInfo;
+import org.adjective.x5.types.StoreEntry;
 import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Password;
 import org.adjective.x5.util.Lazy;
 import org.adjective.x5.util.Values;
-import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.openssl.PEMException;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 
 public class Pkcs12KeyStore extends JavaKeyStore {
-    private final PKCS12PfxPdu pfx;
     private final Supplier<Map<String, X5Object>> properties;
+    // The key bags in the file, excluding entries that have since been replaced
+    private final Optional<Pkcs12Contents> contents;
+    private final Set<String> replaced;
 
-    public Pkcs12KeyStore(KeyStore keyStore, PKCS12PfxPdu pfx, X5StreamInfo source, Pkcs12EncryptionInfo encryption) {
-        this(keyStore, pfx, source, encryption, new HashMap<>());
+    public Pkcs12KeyStore(KeyStore keyStore, Pkcs12Contents contents, X5StreamInfo source, Pkcs12EncryptionInfo encryption) {
+        this(keyStore, source, encryption, new HashMap<>(), Optional.of(contents));
+    }
+
+    /**
+     * A keystore that was not read from a file (so its entries do not have key bags)
+     */
+    public Pkcs12KeyStore(KeyStore keyStore, X5StreamInfo source, Pkcs12EncryptionInfo encryption) {
+        this(keyStore, source, encryption, new HashMap<>(), Optional.empty());
     }
 
     private Pkcs12KeyStore(
         KeyStore keyStore,
-        PKCS12PfxPdu pfx,
         X5StreamInfo source,
         Pkcs12EncryptionInfo encryption,
-        Map<String, EncryptionInfo> encryptionByEntry
+        Map<String, EncryptionInfo> encryptionByEntry,
+        Optional<Pkcs12Contents> contents
     ) {
         super(keyStore, source, encryption, encryptionByEntry);
-        this.pfx = pfx;
+        this.contents = contents;
+        this.replaced = ConcurrentHashMap.newKeySet();
         this.properties = Lazy.uncheckedLazy(() -> {
             Map<String, X5Object> map = new LinkedHashMap<>();
             map.put("encrypted", Values.bool(encryption.isEncrypted(), source));
@@ -59,7 +80,16 @@ public class Pkcs12KeyStore extends JavaKeyStore {
     @Override
     protected Pkcs12KeyStore newStore(KeyStore ks, EncryptionInfo encryption, Map<String, EncryptionInfo> encryptionByEntry) {
         if (encryption instanceof Pkcs12EncryptionInfo) {
-            return new Pkcs12KeyStore(ks, pfx, this.getSource(), (Pkcs12EncryptionInfo) encryption, encryptionByEntry);
+            // A copied keystore does not have the same key bags as the file
+            final Pkcs12KeyStore store = new Pkcs12KeyStore(
+                ks,
+                this.getSource(),
+                (Pkcs12EncryptionInfo) encryption,
+                encryptionByEntry,
+                ks == getKeyStore() ? contents : Optional.empty()
+            );
+            store.replaced.addAll(this.replaced);
+            return store;
         } else {
             throw new IllegalArgumentException(
                 "Encryption for PKCS#12 Keystore must be "
@@ -71,6 +101,50 @@ public class Pkcs12KeyStore extends JavaKeyStore {
         }
     }
 
+    @Override
+    public void addEntry(StoreEntry entry, Optional<EncryptionInfo> encryption) throws X5Exception {
+        replaced.add(entry.name().toLowerCase(Locale.ENGLISH));
+        super.addEntry(entry, encryption);
+    }
+
+    /**
+     * Key bags are encrypted individually, so (unless the whole safe is encrypted) their attributes can be read without the password
+     */
+    @Override
+    protected Optional<Set<KeyStore.Entry.Attribute>> bagAttributes(String alias) {
+        return contentsFor(alias).flatMap(c -> c.keyBagAttributes(alias));
+    }
+
+    /**
+     * Shrouded key bags are decrypted with the run's derived key cache if their encryption scheme allows it
+     */
+    @Override
+    protected Optional<Key> decryptKeyBag(String alias, Password password) throws GeneralSecurityException {
+        final Optional<Pkcs12Contents> file = contentsFor(alias);
+        if (file.isEmpty()) {
+            return Optional.empty();
+        }
+        final Optional<PrivateKeyInfo> key = file.get().decryptKey(alias, password);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new JcaPEMKeyConverter().getPrivateKey(key.get()));
+        } catch (PEMException e) {
+            throw new GeneralSecurityException("Cannot convert key [" + alias + "]: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The contents of the file, if the entry for {@code alias} is still the one that was read from it
+     */
+    private Optional<Pkcs12Contents> contentsFor(String alias) {
+        if (replaced.contains(alias.toLowerCase(Locale.ENGLISH))) {
+            return Optional.empty();
+        }
+        return contents;
+    }
+
     @Override
     public Map<String, X5Object> properties() {
         return properties.get();
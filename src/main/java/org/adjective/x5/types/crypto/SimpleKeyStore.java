@@ -32,6 +32,7 @@ import org.adjective.x5.io.encrypt.Unencrypted;
 import org.adjective.x5.types.CryptoStore;
 import org.adjective.x5.types.StoreEntry;
 import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.DN;
 
 public class SimpleKeyStore implements CryptoStore {
 
@@ -39,12 +40,14 @@ public class SimpleKeyStore implements CryptoStore {
     private final EncryptionInfo storeEncryption;
     private final List<StoreEntry> entries;
     private final Map<StoreEntry, EncryptionInfo> entryEncryption;
+    private final StoreIndex index;
 
     public SimpleKeyStore(X5StreamInfo source) {
         this.source = source;
         this.storeEncryption = Unencrypted.INSTANCE;
         this.entries = new ArrayList<>();
         this.entryEncryption = new HashMap<>();
+        this.index = new StoreIndex();
     }
 
     public SimpleKeyStore(
@@ -57,6 +60,7 @@ public class SimpleKeyStore implements CryptoStore {
         this.storeEncryption = storeEncryption;
         this.entries = entries;
         this.entryEncryption = entryEncryption;
+        this.index = new StoreIndex(entries);
     }
 
     @Override
@@ -71,6 +75,22 @@ public class SimpleKeyStore implements CryptoStore {
         }
         entries.add(entry);
         entryEncryption.put(entry, encryption.orElse(storeEncryption));
+        index.add(entry);
+    }
+
+    @Override
+    public Optional<StoreEntry> findEntry(String name) {
+        return index.byName(name);
+    }
+
+    @Override
+    public List<StoreEntry> findByFingerprint(byte[] sha256) throws X5Exception {
+        return index.byFingerprint(sha256);
+    }
+
+    @Override
+    public List<StoreEntry> findBySubject(DN subject) throws X5Exception {
+        return index.bySubject(subject);
     }
 
     @Override
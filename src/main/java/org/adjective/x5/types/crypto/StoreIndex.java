@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.Certificate;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.value.AVA;
+import org.adjective.x5.types.value.DN;
+import org.adjective.x5.types.value.RDN;
+
+/**
+ * Indexes the entries in a store by name, and by the SHA-256 fingerprint and subject of their certificate.
+ * Calculating fingerprints and subjects requires reading every certificate in the store, so those indexes are only built the first time
+ * they are used, and are then maintained as entries are added and replaced.
+ */
+final class StoreIndex {
+
+    // Kept in the order that the entries were added, and a replaced entry keeps its position (as it does in a PKCS#12 KeyStore)
+    private final Map<String, List<StoreEntry>> byName;
+    private final CertificateIndex<ByteBuffer> byFingerprint;
+    private final CertificateIndex<List<List<String>>> bySubject;
+
+    StoreIndex() {
+        this.byName = new LinkedHashMap<>();
+        this.byFingerprint = new CertificateIndex<>(certificate -> Optional.of(ByteBuffer.wrap(certificate.fingerprint(Digest.SHA256))));
+        this.bySubject = new CertificateIndex<>(certificate -> {
+            if (certificate instanceof X509Certificate) {
+                return Optional.of(subjectKey(((X509Certificate) certificate).subject()));
+            }
+            return Optional.empty();
+        });
+    }
+
+    StoreIndex(List<StoreEntry> entries) {
+        this();
+        entries.forEach(this::add);
+    }
+
+    synchronized void add(StoreEntry entry) {
+        byName.computeIfAbsent(entry.name(), k -> new ArrayList<>(1)).add(entry);
+        byFingerprint.add(entry);
+        bySubject.add(entry);
+    }
+
+    /**
+     * Replaces any existing entries with the given name
+     */
+    synchronized void replace(String name, List<StoreEntry> replacements) {
+        final List<StoreEntry> previous = byName.get(name);
+        if (previous != null) {
+            for (StoreEntry entry : previous) {
+                byFingerprint.remove(entry);
+                bySubject.remove(entry);
+            }
+        }
+        if (replacements.isEmpty()) {
+            byName.remove(name);
+        } else {
+            byName.put(name, new ArrayList<>(replacements));
+            for (StoreEntry entry : replacements) {
+                byFingerprint.add(entry);
+                bySubject.add(entry);
+            }
+        }
+    }
+
+    synchronized List<StoreEntry> entries() {
+        // A copy, so that callers can add entries to the store while iterating over it
+        final List<StoreEntry> entries = new ArrayList<>(byName.size());
+        byName.values().forEach(entries::addAll);
+        return Collections.unmodifiableList(entries);
+    }
+
+    synchronized Optional<StoreEntry> byName(String name) {
+        final List<StoreEntry> entries = byName.get(name);
+        return entries == null ? Optional.empty() : Optional.of(entries.get(0));
+    }
+
+    synchronized List<StoreEntry> byFingerprint(byte[] sha256) throws X5Exception {
+        return byFingerprint.get(ByteBuffer.wrap(sha256), byName.values());
+    }
+
+    synchronized List<StoreEntry> bySubject(DN subject) throws X5Exception {
+        return bySubject.get(subjectKey(subject), byName.values());
+    }
+
+    /**
+     * The attribute names and values of each RDN, in order.
+     * This is stricter than {@link DN#isEqualTo}, which also treats attributes with different names but the same OID as equal,
+     * but the DNs of certificates always name each attribute type the same way, so matching on names finds the same certificates.
+     */
+    static List<List<String>> subjectKey(DN dn) {
+        final List<List<String>> key = new ArrayList<>(dn.rdnList().size());
+        for (RDN rdn : dn.rdnList()) {
+            final List<String> attributes = new ArrayList<>(rdn.getAttributes().size() * 2);
+            for (AVA ava : rdn.getAttributes()) {
+                attributes.add(ava.getAttributeName());
+                attributes.add(ava.getAttributeValue());
+            }
+            key.add(attributes);
+        }
+        return key;
+    }
+
+    private interface CertificateKey<K> {
+        Optional<K> of(Certificate certificate) throws X5Exception;
+    }
+
+    /**
+     * An index of entries by a key that is calculated from their certificate. It is built when it is first used.
+     */
+    private static final class CertificateIndex<K> {
+        private final CertificateKey<K> key;
+        private Map<K, List<StoreEntry>> entries;
+
+        private CertificateIndex(CertificateKey<K> key) {
+            this.key = key;
+        }
+
+        List<StoreEntry> get(K value, Collection<List<StoreEntry>> all) throws X5Exception {
+            if (entries == null) {
+                final Map<K, List<StoreEntry>> map = new HashMap<>();
+                for (List<StoreEntry> list : all) {
+                    for (StoreEntry entry : list) {
+                        final Optional<K> k = key(entry);
+                        if (k.isPresent()) {
+                            map.computeIfAbsent(k.get(), ignore -> new ArrayList<>(1)).add(entry);
+                        }
+                    }
+                }
+                entries = map;
+            }
+            return List.copyOf(entries.getOrDefault(value, List.of()));
+        }
+
+        void add(StoreEntry entry) {
+            if (entries != null) {
+                try {
+                    final Optional<K> k = key(entry);
+                    if (k.isPresent()) {
+                        entries.computeIfAbsent(k.get(), ignore -> new ArrayList<>(1)).add(entry);
+                    }
+                } catch (X5Exception e) {
+                    // Rebuilt (and the error reported) when next used
+                    entries = null;
+                }
+            }
+        }
+
+        void remove(StoreEntry entry) {
+            if (entries != null) {
+                try {
+                    final Optional<K> k = key(entry);
+                    if (k.isPresent()) {
+                        final List<StoreEntry> list = entries.get(k.get());
+                        if (list != null) {
+                            list.remove(entry);
+                            if (list.isEmpty()) {
+                                entries.remove(k.get());
+                            }
+                        }
+                    }
+                } catch (X5Exception e) {
+                    entries = null;
+                }
+            }
+        }
+
+        private Optional<K> key(StoreEntry entry) throws X5Exception {
+            final Optional<Certificate> certificate = entry.certificate();
+            if (certificate.isPresent()) {
+                return key.of(certificate.get());
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.adjective.x5.types.value;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.adjective.x5.exception.DnParseException;
 import org.adjective.x5.exception.X5Exception;
@@ -26,16 +27,29 @@ import org.adjective.x5.types.X5Object;
 import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.X5Type;
 import org.adjective.x5.util.DnStringParser;
+import org.adjective.x5.util.Lazy;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.DERUniversalString;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.X500NameStyle;
 import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.util.encoders.Hex;
 
 public class AVA extends AbstractValueType<String> {
 
+    private final Supplier<String> text;
     private final Optional<OID> oid;
     private final String providedName;
     private final String attributeValue;
+    private final boolean parsed;
 
-    private AVA(String value, X5StreamInfo source, OID oid, String providedName, String attributeValue) {
-        super(value, source);
+    private AVA(Supplier<String> text, X5StreamInfo source, OID oid, String providedName, String attributeValue, boolean parsed) {
+        super(null, source);
+        this.text = text;
+        this.parsed = parsed;
         this.oid = Optional.ofNullable(oid);
         this.providedName = providedName;
         this.attributeValue = attributeValue;
@@ -46,51 +60,94 @@ public class AVA extends AbstractValueType<String> {
         final String name = IETFUtils.canonicalize(parseName(parser));
         final String value = parseValue(parser);
         // TODO : OID
-        return new AVA(parser.text(start), source, null, name, value);
+        final String text = parser.text(start, parser.tokenStart());
+        return new AVA(() -> text, source, null, name, value, true);
+    }
+
+    /**
+     * Constructs an AVA directly from its ASN.1 form, retaining the attribute OID.
+     * The string form (as it would be rendered by {@code style}) is only produced if it is needed.
+     */
+    static AVA of(AttributeTypeAndValue atv, X500NameStyle style, X5StreamInfo source) {
+        final ASN1ObjectIdentifier type = atv.getType();
+        final String symbol = style.oidToDisplayName(type);
+        final String name = symbol == null ? type.getId() : IETFUtils.canonicalize(symbol);
+        final Supplier<String> text = Lazy.uncheckedLazy(
+            () -> (symbol == null ? type.getId() : symbol) + "=" + IETFUtils.valueToString(atv.getValue())
+        ).unchecked();
+        return new AVA(text, source, new OID(type, source), name, attributeValue(atv.getValue()), false);
+    }
+
+    /**
+     * The unescaped form of {@link IETFUtils#valueToString}
+     */
+    private static String attributeValue(ASN1Encodable value) {
+        if (value instanceof ASN1String && (value instanceof DERUniversalString) == false) {
+            return ((ASN1String) value).getString();
+        }
+        try {
+            return "#" + Hex.toHexString(value.toASN1Primitive().getEncoded(ASN1Encoding.DER));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Other value has no encoded form", e);
+        }
+    }
+
+    @Override
+    public String value() {
+        return text.get();
     }
 
     private static String parseName(DnStringParser parser) throws DnParseException {
         final int start = parser.pos();
-        final StringBuilder str = new StringBuilder();
+        // Only needed if the name contains escape sequences, otherwise the name is taken directly from the input
+        StringBuilder str = null;
         while (parser.hasNext()) {
-            final DnStringParser.Element element = parser.next();
-            if (element.type == DnStringParser.ElementType.AVA_ASSIGN) {
-                return str.toString();
+            final DnStringParser.ElementType type = parser.next();
+            if (type == DnStringParser.ElementType.AVA_ASSIGN) {
+                return str == null ? parser.text(start, parser.tokenStart()) : str.toString();
             }
-            if (element.type.isSpecial()) {
-                Debug.printf("Illegal unescaped character [" + element.value + "] in [" + parser.text(start) + "]");
+            if (type.isSpecial()) {
+                Debug.printf("Illegal unescaped character [" + parser.currentChar() + "] in [" + parser.text(start) + "]");
             }
-            str.append(element.value);
+            str = append(parser, type, start, str);
         }
         throw new DnParseException("Unterminated AVA [" + parser.text(start) + "] expecting '='");
     }
 
     private static String parseValue(DnStringParser parser) throws DnParseException {
-        final StringBuilder str = new StringBuilder();
+        final int start = parser.pos();
+        StringBuilder str = null;
         while (true) {
-            final DnStringParser.Element element = parser.next();
-            switch (element.type) {
+            final DnStringParser.ElementType type = parser.next();
+            switch (type) {
                 case RDN_PLUS:
                 case DN_COMMA:
                 case END_STR:
-                    return str.toString();
+                    return str == null ? parser.text(start, parser.tokenStart()) : str.toString();
                 default:
-                    str.append(element.value);
+                    str = append(parser, type, start, str);
             }
         }
     }
 
+    private static StringBuilder append(DnStringParser parser, DnStringParser.ElementType type, int start, StringBuilder str) {
+        if (str == null) {
+            if (type.isEscape() == false) {
+                return null;
+            }
+            str = parser.appendText(new StringBuilder(parser.tokenStart() - start + 8), start, parser.tokenStart());
+        }
+        return str.append(parser.currentChar());
+    }
+
     @Override
     public boolean isEqualTo(String val) {
         // TODO : Implement AVA comparison rules
-        return value.equals(val);
+        return value().equals(val);
     }
 
     @Override
     public boolean isEqualTo(X5Object other) throws X5Exception {
-        if (super.isEqualTo(other)) {
-            return true;
-        }
         if (other instanceof AVA) {
             AVA that = (AVA) other;
             if (this.attributeValue.equals(that.attributeValue)) {
@@ -101,8 +158,10 @@ public class AVA extends AbstractValueType<String> {
                     return this.oid.get().isEqualTo(that.oid.get());
                 }
             }
+            // Only compare the text if neither AVA would need to render it
+            return this.parsed && that.parsed && super.isEqualTo(other);
         }
-        return false;
+        return super.isEqualTo(other);
     }
 
     @Override
@@ -112,7 +171,7 @@ public class AVA extends AbstractValueType<String> {
 
     @Override
     public void writeTo(OutputStream out) throws IOException, X5Exception {
-        IO.writeUtf8(value, out);
+        IO.writeUtf8(value(), out);
     }
 
     public Optional<OID> getAttributeId() {
@@ -40,7 +40,7 @@ public abstract class AbstractValueType<T> implements X5Value<T> {
 
     @Override
     public boolean isEqualTo(X5Object other) throws X5Exception {
-        return other instanceof X5Value && Objects.deepEquals(this.value, ((X5Value) other).value());
+        return other instanceof X5Value && Objects.deepEquals(this.value(), ((X5Value) other).value());
     }
 
     @Override
@@ -55,7 +55,8 @@ public abstract class AbstractValueType<T> implements X5Value<T> {
 
     @Override
     public <X extends X5Object> Optional<X> as(X5Type<X> type) {
-        if (type == X5Type.STRING && this.value instanceof CharSequence) {
+        final T value = this.value();
+        if (type == X5Type.STRING && value instanceof CharSequence) {
             return Optional.of(type.cast(Values.string(String.valueOf(value), source)));
         }
         return X5Value.super.as(type);
@@ -63,6 +64,6 @@ public abstract class AbstractValueType<T> implements X5Value<T> {
 
     @Override
     public String toString() {
-        return String.valueOf(value);
+        return String.valueOf(value());
     }
 }
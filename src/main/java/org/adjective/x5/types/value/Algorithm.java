@@ -35,12 +35,14 @@ import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 public class Algorithm extends AbstractValueType<OID> {
 
     private final Optional<String> name;
+    private final Optional<AlgorithmIdentifier> identifier;
     private final Supplier<Map<String, X5Object>> properties;
     private final CheckedConsumer<OutputStream, IOException> writer;
 
     public Algorithm(AlgorithmIdentifier algorithm, X5StreamInfo source) {
         super(new OID(algorithm.getAlgorithm(), source), source);
         name = ObjectIdentifiers.name(value());
+        identifier = Optional.of(algorithm);
         this.properties = Lazy.uncheckedLazy(() -> {
             Map<String, X5Object> map = new LinkedHashMap<>();
             name.ifPresent(n -> map.put("name", Values.string(n, getSource())));
@@ -61,6 +63,7 @@ public class Algorithm extends AbstractValueType<OID> {
     public Algorithm(OID oid, Optional<String> name) {
         super(oid, oid.source);
         this.name = name;
+        this.identifier = Optional.empty();
         this.properties = Lazy.uncheckedLazy(() -> {
             Map<String, X5Object> map = new LinkedHashMap<>();
             name.ifPresent(n -> map.put("name", Values.string(n, getSource())));
@@ -73,6 +76,13 @@ public class Algorithm extends AbstractValueType<OID> {
         return value();
     }
 
+    /**
+     * @return The full ASN.1 identifier (including parameters), if this algorithm was constructed from one
+     */
+    public Optional<AlgorithmIdentifier> identifier() {
+        return identifier;
+    }
+
     @Override
     public boolean isEqualTo(String val) {
         return val.equals(this.value.toString());
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.adjective.x5.exception.DnParseException;
 import org.adjective.x5.exception.X5Exception;
@@ -31,20 +32,67 @@ import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.X5Type;
 import org.adjective.x5.util.DnStringParser;
 import org.adjective.x5.util.Equals;
+import org.adjective.x5.util.Lazy;
 import org.adjective.x5.util.Strings;
-import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.RFC4519Style;
 
 public class DN extends AbstractValueType<String> {
 
-    private RDN[] rdn;
+    private final Supplier<String> text;
+    private final Supplier<RDN[]> rdn;
+    private final boolean parsed;
 
     public static DN parse(String value, X5StreamInfo source) throws DnParseException {
-        return new DN(value, parseRDNs(value, source.withDescriptionPrefix("rdn of")), source);
+        final RDN[] rdn = parseRDNs(value, source.withDescriptionPrefix("rdn of"));
+        return new DN(() -> value, () -> rdn, true, source);
     }
 
-    private DN(String value, RDN[] rdn, X5StreamInfo source) {
-        super(value, source);
+    /**
+     * Constructs a DN directly from the RDNs in {@code name}, without rendering it as a string and then parsing it.
+     * The string form is rendered (in the same form as {@link RFC4519Style#toString}) when it is first needed.
+     */
+    public static DN of(X500Name name, X5StreamInfo source) {
+        final RDN[] rdn = rdns(name, source);
+        return new DN(Lazy.uncheckedLazy(() -> join(rdn)).unchecked(), () -> rdn, false, source);
+    }
+
+    /**
+     * Constructs a DN from its string form (as previously returned by {@link #value()} for a DN that was constructed from {@code name}),
+     * and only decodes the RDNs from {@code name} if they are needed.
+     * This allows the (much smaller) string form of a DN to be kept instead of the DN itself.
+     */
+    public static DN of(String text, Supplier<X500Name> name, X5StreamInfo source) {
+        return new DN(() -> text, Lazy.uncheckedLazy(() -> rdns(name.get(), source)).unchecked(), false, source);
+    }
+
+    private static RDN[] rdns(X500Name name, X5StreamInfo source) {
+        final org.bouncycastle.asn1.x500.RDN[] asn1 = name.getRDNs();
+        final RDN[] rdn = new RDN[asn1.length];
+        final X5StreamInfo rdnSource = source.withDescriptionPrefix("rdn of");
+        // The string form of a DN lists the RDNs in reverse order to the ASN.1 sequence
+        for (int i = 0; i < asn1.length; i++) {
+            rdn[i] = RDN.of(asn1[asn1.length - 1 - i], RFC4519Style.INSTANCE, rdnSource);
+        }
+        return rdn;
+    }
+
+    private DN(Supplier<String> text, Supplier<RDN[]> rdn, boolean parsed, X5StreamInfo source) {
+        super(null, source);
+        this.text = text;
         this.rdn = rdn;
+        this.parsed = parsed;
+    }
+
+    private static String join(RDN[] rdn) {
+        final StringBuilder str = new StringBuilder();
+        for (RDN r : rdn) {
+            if (str.length() > 0) {
+                str.append(',');
+            }
+            str.append(r.value());
+        }
+        return str.toString();
     }
 
     private static RDN[] parseRDNs(String dn, X5StreamInfo source) throws DnParseException {
@@ -57,16 +105,21 @@ public class DN extends AbstractValueType<String> {
         while (parser.hasNext()) {
             RDN rdn = RDN.parse(parser, source);
             rdnList.add(rdn);
-            final DnStringParser.Element current = parser.current();
-            assert current.type == DnStringParser.ElementType.DN_COMMA || current.type == DnStringParser.ElementType.END_STR
+            final DnStringParser.ElementType current = parser.currentType();
+            assert current == DnStringParser.ElementType.DN_COMMA || current == DnStringParser.ElementType.END_STR
                 : "Unexpected parse element [" + current + "]";
         }
         return rdnList.toArray(RDN[]::new);
     }
 
+    @Override
+    public String value() {
+        return text.get();
+    }
+
     @Override
     public boolean isEqualTo(String val) {
-        if (value.equals(val)) {
+        if (value().equals(val)) {
             return true;
         }
         try {
@@ -79,14 +132,15 @@ public class DN extends AbstractValueType<String> {
 
     @Override
     public boolean isEqualTo(X5Object other) throws X5Exception {
-        if (super.isEqualTo(other)) {
-            return true;
-        }
         if (other instanceof DN) {
             final DN otherDn = (DN) other;
-            return Equals.equals(this.rdn, otherDn.rdn);
+            if (Equals.equals(this.rdn.get(), otherDn.rdn.get())) {
+                return true;
+            }
+            // Only compare the text if neither DN would need to render it
+            return this.parsed && otherDn.parsed && super.isEqualTo(other);
         }
-        return false;
+        return super.isEqualTo(other);
     }
 
     @Override
@@ -96,11 +150,11 @@ public class DN extends AbstractValueType<String> {
 
     @Override
     public void writeTo(OutputStream out) throws IOException, X5Exception {
-        IO.writeUtf8(value, out);
+        IO.writeUtf8(value(), out);
     }
 
     public List<RDN> rdnList() {
-        return Arrays.asList(rdn);
+        return Arrays.asList(rdn.get());
     }
 
     @Override
@@ -117,6 +171,7 @@ public class DN extends AbstractValueType<String> {
      * @return The leaf (that is the most specific) RDN. This will often contain an identifying name, such as `cn`
      */
     public RDN leaf() {
+        final RDN[] rdn = this.rdn.get();
         if (rdn.length == 0) {
             throw new IllegalStateException("DN is empty");
         }
@@ -127,6 +182,7 @@ public class DN extends AbstractValueType<String> {
      * @return The root RDN.
      */
     public RDN root() {
+        final RDN[] rdn = this.rdn.get();
         if (rdn.length == 0) {
             throw new IllegalStateException("DN is empty");
         }
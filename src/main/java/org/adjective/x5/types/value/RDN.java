@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.adjective.x5.exception.DnParseException;
 import org.adjective.x5.exception.X5Exception;
@@ -30,40 +31,71 @@ import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.types.X5Type;
 import org.adjective.x5.util.DnStringParser;
 import org.adjective.x5.util.Equals;
+import org.adjective.x5.util.Lazy;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.X500NameStyle;
 
 public class RDN extends AbstractValueType<String> {
 
+    private final Supplier<String> text;
     private final AVA[] attributes;
+    private final boolean parsed;
 
-    private RDN(String value, AVA[] attributes, X5StreamInfo source) {
-        super(value, source);
+    private RDN(Supplier<String> text, AVA[] attributes, boolean parsed, X5StreamInfo source) {
+        super(null, source);
+        this.text = text;
         this.attributes = attributes;
+        this.parsed = parsed;
+    }
+
+    static RDN of(org.bouncycastle.asn1.x500.RDN rdn, X500NameStyle style, X5StreamInfo source) {
+        final AttributeTypeAndValue[] types = rdn.getTypesAndValues();
+        final AVA[] attributes = new AVA[types.length];
+        final X5StreamInfo avaSource = source.withDescriptionPrefix("ava of ");
+        for (int i = 0; i < types.length; i++) {
+            attributes[i] = AVA.of(types[i], style, avaSource);
+        }
+        return new RDN(Lazy.uncheckedLazy(() -> join(attributes)).unchecked(), attributes, false, source);
+    }
+
+    private static String join(AVA[] attributes) {
+        if (attributes.length == 1) {
+            return attributes[0].value();
+        }
+        final StringBuilder str = new StringBuilder();
+        for (AVA ava : attributes) {
+            if (str.length() > 0) {
+                str.append('+');
+            }
+            str.append(ava.value());
+        }
+        return str.toString();
     }
 
     public static RDN parse(DnStringParser parser, X5StreamInfo source) throws DnParseException {
         final List<AVA> list = new ArrayList<>(3);
         parser.skipWhitespace();
-        int end = -1;
         final int start = parser.pos();
-        loop: while (parser.hasNext()) {
-            list.add(AVA.parse(parser, source.withDescriptionPrefix("ava of ")));
-            switch (parser.current().type) {
-                case RDN_PLUS:
-                    continue;
-                case END_STR:
-                    end = parser.pos();
-                    break loop;
-                default:
-                    end = parser.pos() - 1;
-                    break loop;
+        final X5StreamInfo avaSource = source.withDescriptionPrefix("ava of ");
+        while (parser.hasNext()) {
+            list.add(AVA.parse(parser, avaSource));
+            if (parser.currentType() != DnStringParser.ElementType.RDN_PLUS) {
+                break;
             }
         }
-        return new RDN(parser.text(start, end), list.toArray(AVA[]::new), source);
+        // The RDN ends where its terminating element (',' or end of string) starts
+        final String text = parser.text(start, list.isEmpty() ? start : parser.tokenStart());
+        return new RDN(() -> text, list.toArray(AVA[]::new), true, source);
+    }
+
+    @Override
+    public String value() {
+        return text.get();
     }
 
     @Override
     public boolean isEqualTo(String val) {
-        if (value.equals(val)) {
+        if (value().equals(val)) {
             return true;
         }
         try {
@@ -76,14 +108,15 @@ public class RDN extends AbstractValueType<String> {
 
     @Override
     public boolean isEqualTo(X5Object other) throws X5Exception {
-        if (super.isEqualTo(other)) {
-            return true;
-        }
         if (other instanceof RDN) {
             final RDN otherRdn = (RDN) other;
-            return Equals.equals(this.attributes, otherRdn.attributes);
+            if (Equals.equals(this.attributes, otherRdn.attributes)) {
+                return true;
+            }
+            // Only compare the text if neither RDN would need to render it
+            return this.parsed && otherRdn.parsed && super.isEqualTo(other);
         }
-        return false;
+        return super.isEqualTo(other);
     }
 
     @Override
@@ -93,7 +126,7 @@ public class RDN extends AbstractValueType<String> {
 
     @Override
     public void writeTo(OutputStream out) throws IOException, X5Exception {
-        IO.writeUtf8(value, out);
+        IO.writeUtf8(value(), out);
     }
 
     public Collection<AVA> getAttributes() {
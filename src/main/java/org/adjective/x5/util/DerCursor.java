@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.util;
+
+import java.math.BigInteger;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.adjective.x5.exception.DerParseException;
+
+/**
+ * A cursor over the elements of DER encoded data.
+ * Each call to {@link #next()} reads the tag and length of the next element, and moves past it without decoding its content.
+ * The children of a constructed element (such as a {@code SEQUENCE}) are read with a separate cursor from {@link #content()}.
+ */
+public class DerCursor {
+
+    public static final int BOOLEAN = 0x01;
+    public static final int INTEGER = 0x02;
+    public static final int OCTET_STRING = 0x04;
+    public static final int OBJECT_IDENTIFIER = 0x06;
+    public static final int UTC_TIME = 0x17;
+    public static final int GENERALIZED_TIME = 0x18;
+    public static final int SEQUENCE = 0x30;
+    public static final int SET = 0x31;
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+    private int tag;
+    private int elementStart;
+    private int contentStart;
+    private int contentEnd;
+
+    public DerCursor(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public DerCursor(byte[] data, int offset, int length) {
+        this.data = data;
+        this.limit = offset + length;
+        this.position = offset;
+        this.tag = -1;
+    }
+
+    public boolean hasNext() {
+        return position < limit;
+    }
+
+    /**
+     * Reads the tag and length of the next element
+     *
+     * @return the tag of the element
+     */
+    public int next() throws DerParseException {
+        if (position >= limit) {
+            throw new DerParseException("Unexpected end of DER data at offset " + position);
+        }
+        int p = position;
+        elementStart = p;
+        tag = data[p++] & 0xFF;
+        if ((tag & 0x1F) == 0x1F) {
+            throw new DerParseException("Unsupported multi-byte tag at offset " + elementStart);
+        }
+        if (p >= limit) {
+            throw new DerParseException("Missing length for element at offset " + elementStart);
+        }
+        int length = data[p++] & 0xFF;
+        if (length > 0x7F) {
+            final int lengthBytes = length & 0x7F;
+            if (lengthBytes == 0 || lengthBytes > 4 || lengthBytes > limit - p) {
+                throw new DerParseException("Invalid length for element at offset " + elementStart);
+            }
+            length = 0;
+            for (int i = 0; i < lengthBytes; i++) {
+                length = (length << 8) | (data[p++] & 0xFF);
+            }
+        }
+        if (length < 0 || length > limit - p) {
+            throw new DerParseException("Element at offset " + elementStart + " extends beyond the end of the data");
+        }
+        contentStart = p;
+        contentEnd = p + length;
+        position = contentEnd;
+        return tag;
+    }
+
+    /**
+     * Reads the next element, which must have the {@code expected} tag
+     */
+    public void next(int expected) throws DerParseException {
+        if (next() != expected) {
+            throw unexpectedTag(expected);
+        }
+    }
+
+    private DerParseException unexpectedTag(int expected) {
+        return new DerParseException(String.format("Expected tag 0x%02x but found 0x%02x at offset %d", expected, tag, elementStart));
+    }
+
+    public int tag() {
+        return tag;
+    }
+
+    /**
+     * The offset of the current element (including its tag and length) within the data
+     */
+    public int elementStart() {
+        return elementStart;
+    }
+
+    /**
+     * The offset immediately after the end of the current element
+     */
+    public int elementEnd() {
+        return contentEnd;
+    }
+
+    /**
+     * A copy of the encoded form of the current element (including its tag and length)
+     */
+    public byte[] element() {
+        return Arrays.copyOfRange(data, elementStart, contentEnd);
+    }
+
+    /**
+     * A copy of the content of the current element (excluding its tag and length)
+     */
+    public byte[] contentBytes() {
+        return Arrays.copyOfRange(data, contentStart, contentEnd);
+    }
+
+    /**
+     * Whether the encoded form of the current element (including its tag and length) is the same as {@code encoded}
+     */
+    public boolean elementEquals(byte[] encoded) {
+        return Arrays.equals(data, elementStart, contentEnd, encoded, 0, encoded.length);
+    }
+
+    /**
+     * A cursor over the children of the current (constructed) element
+     */
+    public DerCursor content() {
+        return new DerCursor(data, contentStart, contentEnd - contentStart);
+    }
+
+    /**
+     * The value of the current element, which must be an {@code INTEGER}
+     */
+    public BigInteger integer() throws DerParseException {
+        if (tag != INTEGER) {
+            throw unexpectedTag(INTEGER);
+        }
+        if (contentEnd == contentStart) {
+            throw new DerParseException("Empty integer at offset " + elementStart);
+        }
+        return new BigInteger(data, contentStart, contentEnd - contentStart);
+    }
+
+    /**
+     * The value of the current element, which must be a {@code UTCTime} or {@code GeneralizedTime} in the form required by DER
+     * ({@code YYMMDDHHMMSSZ} or {@code YYYYMMDDHHMMSS[.fff]Z})
+     *
+     * @return The time, in milliseconds since the epoch
+     */
+    public long time() throws DerParseException {
+        int p = contentStart;
+        final int year;
+        if (tag == UTC_TIME) {
+            // RFC 5280: years 50-99 are 19xx, and years 00-49 are 20xx
+            final int yy = digits(p, 2);
+            year = yy >= 50 ? 1900 + yy : 2000 + yy;
+            p += 2;
+        } else if (tag == GENERALIZED_TIME) {
+            year = digits(p, 4);
+            p += 4;
+        } else {
+            throw unexpectedTag(UTC_TIME);
+        }
+        final int month = digits(p, 2);
+        final int day = digits(p + 2, 2);
+        final int hour = digits(p + 4, 2);
+        final int minute = digits(p + 6, 2);
+        final int second = digits(p + 8, 2);
+        p += 10;
+
+        int nanos = 0;
+        if (tag == GENERALIZED_TIME && p < contentEnd && data[p] == '.') {
+            p++;
+            int scale = 100_000_000;
+            for (; p < contentEnd && data[p] != 'Z'; p++) {
+                nanos += digits(p, 1) * scale;
+                scale /= 10;
+            }
+        }
+        if (p != contentEnd - 1 || data[p] != 'Z') {
+            throw new DerParseException("Time at offset " + elementStart + " is not in UTC");
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeException e) {
+            throw new DerParseException("Invalid time at offset " + elementStart + ": " + e.getMessage());
+        }
+    }
+
+    private int digits(int offset, int count) throws DerParseException {
+        if (offset + count > contentEnd) {
+            throw new DerParseException("Time at offset " + elementStart + " is too short");
+        }
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            final int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DerParseException("Invalid digit in time at offset " + elementStart);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
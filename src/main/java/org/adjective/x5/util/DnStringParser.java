@@ -11,17 +11,26 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.adjective.x5.util;
 
 import static java.lang.Character.isWhitespace;
 
 import org.adjective.x5.exception.DnParseException;
 
+/**
+ * A cursor over the elements of a string-form DN.
+ * Each call to {@link #next()} returns the type of the next element, and the (unescaped) character for that element is available from
+ * {@link #currentChar()}. No objects are allocated per element, so callers that only need the text of an element can take it directly
+ * from the input with {@link #text(int, int)}.
+ */
 public class DnStringParser {
 
     private final String input;
     private int index;
-    private Element current;
+    private int tokenStart;
+    private ElementType currentType;
+    private char currentChar;
 
     public enum ElementType {
         CHAR_LITERAL(),
@@ -46,55 +55,55 @@ public class DnStringParser {
             return specialChar != 0;
         }
 
-        public char getSpecialChar() {
-            return specialChar;
-        }
-    }
-
-    public static class Element {
-
-        public final ElementType type;
-        public final char value;
-
-        public Element(ElementType type, char value) {
-            this.type = type;
-            this.value = value;
+        public boolean isEscape() {
+            return this == CHAR_ESCAPE || this == HEX_ESCAPE;
         }
 
-        @Override
-        public String toString() {
-            return "Element{" + type.name() + " 0x" + Integer.toString(value, 16) + '}';
+        public char getSpecialChar() {
+            return specialChar;
         }
     }
 
-    private static final Element AVA_ASSIGN = new Element(ElementType.AVA_ASSIGN, '=');
-    private static final Element RDN_PLUS = new Element(ElementType.RDN_PLUS, '+');
-    private static final Element DN_COMMA = new Element(ElementType.DN_COMMA, ',');
-    private static final Element END_STR = new Element(ElementType.END_STR, '\0');
-
     public DnStringParser(String input) {
         this.input = input;
         this.index = 0;
-        this.current = null;
+        this.tokenStart = 0;
+        this.currentType = null;
+        this.currentChar = '\0';
     }
 
     public boolean hasNext() {
         return index < input.length();
     }
 
-    public Element next() throws DnParseException {
-        this.current = parseNext();
-        return this.current;
+    public ElementType next() throws DnParseException {
+        this.tokenStart = index;
+        this.currentType = parseNext();
+        return this.currentType;
+    }
+
+    public ElementType currentType() {
+        return currentType;
     }
 
-    public Element current() {
-        return current;
+    /**
+     * @return The character represented by the current element (after unescaping)
+     */
+    public char currentChar() {
+        return currentChar;
     }
 
     public int pos() {
         return index;
     }
 
+    /**
+     * @return The position in the input at which the current element starts
+     */
+    public int tokenStart() {
+        return tokenStart;
+    }
+
     public String text(int start) {
         return this.input.substring(start, index);
     }
@@ -103,41 +112,49 @@ public class DnStringParser {
         return this.input.substring(start, end);
     }
 
+    public StringBuilder appendText(StringBuilder builder, int start, int end) {
+        return builder.append(this.input, start, end);
+    }
+
     public void skipWhitespace() {
         while (hasNext() && isWhitespace(input.charAt(index))) {
             index++;
         }
     }
 
-    private Element parseNext() throws DnParseException {
+    private ElementType parseNext() throws DnParseException {
         if (index == input.length()) {
-            return END_STR;
+            currentChar = '\0';
+            return ElementType.END_STR;
         }
 
         final char ch = readChar();
+        currentChar = ch;
 
         switch (ch) {
             case '=':
-                return AVA_ASSIGN;
+                return ElementType.AVA_ASSIGN;
             case '+':
-                return RDN_PLUS;
+                return ElementType.RDN_PLUS;
             case ',':
-                return DN_COMMA;
+                return ElementType.DN_COMMA;
             case '\\': {
-                char e = readChar();
+                final char e = readChar();
                 if (Character.isLetterOrDigit(e)) {
-                    char f = readChar();
-                    String seq = new String(new char[] { e, f });
-                    if (Character.isLetterOrDigit(f)) {
-                        return new Element(ElementType.HEX_ESCAPE, (char) Short.parseShort(seq, 16));
-                    } else {
-                        throw new DnParseException("Invalid escape sequence [" + seq + "] in DN [" + input + "]");
+                    final char f = readChar();
+                    final int high = Character.digit(e, 16);
+                    final int low = Character.digit(f, 16);
+                    if (high == -1 || low == -1) {
+                        throw new DnParseException("Invalid escape sequence [" + e + f + "] in DN [" + input + "]");
                     }
+                    currentChar = (char) (high << 4 | low);
+                    return ElementType.HEX_ESCAPE;
                 }
-                return new Element(ElementType.CHAR_ESCAPE, e);
+                currentChar = e;
+                return ElementType.CHAR_ESCAPE;
             }
             default:
-                return new Element(ElementType.CHAR_LITERAL, ch);
+                return ElementType.CHAR_LITERAL;
         }
     }
 
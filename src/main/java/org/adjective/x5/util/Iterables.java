@@ -14,7 +14,10 @@
 
 package org.adjective.x5.util;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 public class Iterables {
@@ -25,6 +28,15 @@ public class Iterables {
         return itr.iterator().next();
     }
 
+    /**
+     * Closes the iterator if it holds resources (such as the iterators of a {@link org.adjective.x5.types.StreamingSequence})
+     */
+    public static void close(Iterator<?> itr) throws IOException {
+        if (itr instanceof Closeable) {
+            ((Closeable) itr).close();
+        }
+    }
+
     public static int size(Iterable<?> itr) {
         if (itr instanceof Collection) {
             return ((Collection<?>) itr).size();
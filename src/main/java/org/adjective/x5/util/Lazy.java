@@ -43,6 +43,10 @@ public class Lazy<T, E extends Exception> implements CheckedSupplier<T, E> {
         }
     }
 
+    public boolean isSet() {
+        return set;
+    }
+
     @Override
     public T get() throws E {
         if (set) {
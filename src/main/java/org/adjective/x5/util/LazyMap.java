@@ -0,0 +1,198 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.adjective.x5.exception.UncheckedException;
+
+/**
+ * An (insertion ordered) map where each value is calculated the first time it is accessed.
+ * This allows objects to expose a full set of properties without calculating the ones that are never used.
+ * <p>
+ * Entries whose keys are not known in advance can be added as a group with {@link #putAllLazy}. The group is loaded the first time
+ * that the map is asked for a key it does not otherwise hold, or is iterated. Those entries follow all other entries in iteration
+ * order, and never replace them.
+ */
+public class LazyMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, Supplier<? extends V>> values;
+    private final List<Supplier<? extends Map<? extends K, ? extends V>>> groups;
+
+    public LazyMap() {
+        this.values = new LinkedHashMap<>();
+        this.groups = new ArrayList<>();
+    }
+
+    public void putLazy(K key, CheckedSupplier<? extends V, ? extends Exception> supplier) {
+        values.put(key, memoize(key, supplier));
+    }
+
+    public void putAllLazy(CheckedSupplier<? extends Map<? extends K, ? extends V>, ? extends Exception> supplier) {
+        groups.add(memoize("group#" + (groups.size() + 1), supplier));
+    }
+
+    private static <T, E extends Exception> Supplier<T> memoize(Object key, CheckedSupplier<T, E> supplier) {
+        final Lazy<T, E> lazy = Lazy.lazy(supplier);
+        return () -> {
+            try {
+                return lazy.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new UncheckedException("Failed to calculate value of [" + key + "]", e);
+            }
+        };
+    }
+
+    @Override
+    public V put(K key, V value) {
+        final Supplier<? extends V> previous = values.put(key, () -> value);
+        return previous == null ? null : previous.get();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (map instanceof LazyMap) {
+            // Retain laziness
+            this.values.putAll(((LazyMap<? extends K, ? extends V>) map).values);
+            this.groups.addAll(((LazyMap<? extends K, ? extends V>) map).groups);
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        final Supplier<? extends V> supplier = values.get(key);
+        if (supplier != null) {
+            return supplier.get();
+        }
+        for (Supplier<? extends Map<? extends K, ? extends V>> group : groups) {
+            final V value = group.get().get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (values.containsKey(key)) {
+            return true;
+        }
+        for (Supplier<? extends Map<? extends K, ? extends V>> group : groups) {
+            if (group.get().containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        if (groups.isEmpty()) {
+            return values.keySet();
+        }
+        final Set<K> keys = new LinkedHashSet<>(values.keySet());
+        for (Supplier<? extends Map<? extends K, ? extends V>> group : groups) {
+            keys.addAll(group.get().keySet());
+        }
+        return keys;
+    }
+
+    @Override
+    public int size() {
+        return groups.isEmpty() ? values.size() : keySet().size();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                final Iterator<K> keys = keySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        final K key = keys.next();
+                        final Supplier<? extends V> value = values.get(key);
+                        return new LazyEntry<>(key, value == null ? () -> get(key) : value);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyMap.this.size();
+            }
+        };
+    }
+
+    private static class LazyEntry<K, V> implements Entry<K, V> {
+        private final K key;
+        private final Supplier<? extends V> value;
+
+        private LazyEntry(K key, Supplier<? extends V> value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value.get();
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Cannot modify " + getClass().getSimpleName());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Entry) {
+                final Entry<?, ?> other = (Entry<?, ?>) obj;
+                return Objects.equals(key, other.getKey()) && Objects.equals(getValue(), other.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+    }
+}
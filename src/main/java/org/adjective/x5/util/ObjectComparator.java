@@ -16,7 +16,9 @@ package org.adjective.x5.util;
 
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.adjective.x5.exception.X5Exception;
 import org.adjective.x5.io.Debug;
@@ -59,6 +61,13 @@ public class ObjectComparator implements Comparator<X5Object> {
         X5Type.RECORD
     );
 
+    private static final Map<X5Type<?>, Integer> TYPE_RANK = new HashMap<>();
+    static {
+        for (int i = 0; i < TYPE_ORDER.size(); i++) {
+            TYPE_RANK.put(TYPE_ORDER.get(i), i);
+        }
+    }
+
     @Override
     public int compare(X5Object o1, X5Object o2) {
         int cmp = compareTypes(o1.getType(), o2.getType());
@@ -75,8 +84,8 @@ public class ObjectComparator implements Comparator<X5Object> {
     }
 
     private int compareTypes(X5Type t1, X5Type t2) {
-        int o1 = TYPE_ORDER.indexOf(t1);
-        int o2 = TYPE_ORDER.indexOf(t2);
+        int o1 = TYPE_RANK.getOrDefault(t1, -1);
+        int o2 = TYPE_RANK.getOrDefault(t2, -1);
         if (o1 == o2) {
             return 0;
         }
@@ -92,12 +101,16 @@ public class ObjectComparator implements Comparator<X5Object> {
     private int compareValues(X5Value o1, X5Value o2) {
         final Object c1 = o1.value();
         final Object c2 = o2.value();
+        if (c1 == null || c2 == null) {
+            // null values (e.g. missing properties) sort first
+            return c1 == null ? (c2 == null ? 0 : -1) : 1;
+        }
 
         final Class<?> class1 = c1.getClass();
         final Class<?> class2 = c2.getClass();
 
-        if (class1 == class2 && o1 instanceof Comparable) {
-            return ((Comparable) o1).compareTo(o2);
+        if (class1 == class2 && c1 instanceof Comparable) {
+            return ((Comparable) c1).compareTo(c2);
         }
 
         return compareObjects(o1, o2);
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adjective.x5.exception.X5Exception;
+
+/**
+ * Applies a function to each item in a list on the common fork-join pool.
+ * Results are kept in list order, and if any items fail, the failure from the earliest item is the one that is reported.
+ */
+public final class ParallelMap<T, R> {
+
+    @FunctionalInterface
+    public interface ItemFunction<T, R> {
+        R apply(T item) throws X5Exception;
+    }
+
+    private final List<T> items;
+    private final ItemFunction<T, R> function;
+    private final int threshold;
+
+    private final List<R> results;
+    private final Exception[] failures;
+    // Items after the earliest known failure are skipped, since their results (and errors) would be discarded
+    private final AtomicInteger firstFailure;
+
+    private ParallelMap(List<T> items, ItemFunction<T, R> function) {
+        this.items = items;
+        this.function = function;
+        this.threshold = Math.max(1, items.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        // Each task only sets its own indices, and invoke() makes those writes visible to the caller
+        this.results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        this.failures = new Exception[items.size()];
+        this.firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+    }
+
+    public static <T, R> List<R> apply(List<T> items, ItemFunction<T, R> function) throws X5Exception {
+        return new ParallelMap<>(items, function).run();
+    }
+
+    private List<R> run() throws X5Exception {
+        ForkJoinPool.commonPool().invoke(task(0, items.size()));
+        final int failed = firstFailure.get();
+        if (failed != Integer.MAX_VALUE) {
+            if (failures[failed] instanceof X5Exception) {
+                throw (X5Exception) failures[failed];
+            }
+            throw (RuntimeException) failures[failed];
+        }
+        return results;
+    }
+
+    private RecursiveAction task(int from, int to) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                if (to - from > threshold) {
+                    final int mid = (from + to) >>> 1;
+                    invokeAll(task(from, mid), task(mid, to));
+                } else {
+                    for (int i = from; i < to && i < firstFailure.get(); i++) {
+                        applyItem(i);
+                    }
+                }
+            }
+        };
+    }
+
+    private void applyItem(int index) {
+        try {
+            results.set(index, function.apply(items.get(index)));
+        } catch (X5Exception | RuntimeException e) {
+            failures[index] = e;
+            firstFailure.accumulateAndGet(index, Math::min);
+        }
+    }
+}
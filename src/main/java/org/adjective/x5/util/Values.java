@@ -50,7 +50,6 @@ import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.DERIA5String;
 import org.bouncycastle.asn1.x500.X500Name;
-import org.bouncycastle.asn1.x500.style.RFC4519Style;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 
 public class Values {
@@ -130,7 +129,7 @@ public class Values {
     }
 
     public static DN dn(X500Name principal, X5StreamInfo source) throws DnParseException {
-        return DN.parse(RFC4519Style.INSTANCE.toString(principal), source);
+        return DN.of(principal, source);
     }
 
     public static X5Date date(Date date, X5StreamInfo source) {
@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.adjective.x5.cli.CommandLine;
+import org.adjective.x5.cli.CommandRunner;
+import org.adjective.x5.exception.CommandExecutionException;
+import org.adjective.x5.io.StdIO;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.value.X5String;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class EachCommandTest {
+
+    private static final int SIZE = 1000;
+
+    @Test
+    public void testParallelResultsAreInSequenceOrder() throws Exception {
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            expected.add("item-" + i);
+        }
+        assertThat(values(each(true, runner -> {}))).isEqualTo(expected);
+        assertThat(values(each(false, runner -> {}))).isEqualTo(expected);
+    }
+
+    @Test
+    public void testEarliestFailureIsReported() throws Exception {
+        // Later items fail sooner, so that (in parallel) a later failure is usually recorded before the earliest one
+        final CommandLine body = runner -> {
+            final int index = index(runner.getValues().peek());
+            if (index == 500) {
+                throw new IllegalStateException("Runtime failure in item " + index);
+            }
+            if (index >= 300 && index % 100 == 37) {
+                sleep(SIZE - index);
+                throw new CommandExecutionException("Failure in item " + index);
+            }
+        };
+        for (int run = 0; run < 10; run++) {
+            assertThatThrownBy(() -> each(true, body)).isInstanceOf(CommandExecutionException.class).hasMessage("Failure in item 337");
+        }
+        assertThatThrownBy(() -> each(false, body)).isInstanceOf(CommandExecutionException.class).hasMessage("Failure in item 337");
+    }
+
+    @Test
+    public void testParallelOutputIsInSequenceOrder() throws Exception {
+        final CommandLine body = runner -> {
+            final int index = index(runner.getValues().peek());
+            runner.getOutput().println("start " + index);
+            sleep((index % 3) * 50);
+            runner.getOutput().println("end " + index);
+            if (index == 737) {
+                throw new CommandExecutionException("Failure in item " + index);
+            }
+        };
+        final ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> each(false, body, serial)).isInstanceOf(CommandExecutionException.class);
+        assertThat(serial.toString(StandardCharsets.UTF_8)).startsWith("start 0\nend 0\nstart 1\n").endsWith("start 737\nend 737\n");
+
+        final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        assertThatThrownBy(() -> each(true, body, parallel)).isInstanceOf(CommandExecutionException.class);
+        assertThat(parallel.toString(StandardCharsets.UTF_8)).isEqualTo(serial.toString(StandardCharsets.UTF_8));
+    }
+
+    private static Sequence each(boolean parallel, CommandLine body) throws Exception {
+        return each(parallel, body, new ByteArrayOutputStream());
+    }
+
+    private static Sequence each(boolean parallel, CommandLine body, ByteArrayOutputStream output) throws Exception {
+        final List<X5Object> items = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            items.add(Values.string("item-" + i));
+        }
+        final ValueStack values = new ValueStack();
+        values.push(new ObjectSequence(items, Values.source("test")));
+        final Context context = new Context(
+            new StdIO(new PrintStream(output, true, StandardCharsets.UTF_8), InputStream.nullInputStream()),
+            null,
+            null,
+            new Environment(),
+            new Properties()
+        );
+        new EachCommand(parallel).apply(new CommandRunner(null, context, values), List.of(body));
+        return (Sequence) values.pop();
+    }
+
+    private static List<String> values(Sequence sequence) throws Exception {
+        final List<String> list = new ArrayList<>();
+        for (X5Object item : sequence.items()) {
+            list.add(((X5String) item).value());
+        }
+        return list;
+    }
+
+    private static int index(X5Object item) {
+        final String value = ((X5String) item).value();
+        return Integer.parseInt(value.substring(value.indexOf('-') + 1));
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis / 50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
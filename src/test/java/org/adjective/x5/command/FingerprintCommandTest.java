@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.adjective.x5.test.util.Samples.certificate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adjective.x5.exception.BadArgumentException;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.value.X5String;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class FingerprintCommandTest {
+
+    private static final List<String> FILES = List.of("pem/ca1.crt", "pem/intermediate1.crt", "pem/server1.crt", "pem/server2.crt");
+
+    @Test
+    public void testFingerprintSingleCertificate() throws Exception {
+        final X509Certificate certificate = certificate("pem/ca1.crt");
+        assertThat(fingerprint("sha1", certificate)).extracting(obj -> ((X5String) obj).value())
+            .isEqualTo("4e:42:2e:ae:79:6f:cb:cb:ff:f1:06:43:d2:20:ab:be:e0:19:4e:3a");
+    }
+
+    @Test
+    public void testFingerprintLargeNestedSequenceInOrder() throws Exception {
+        final List<X5Object> files = new ArrayList<>();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < FingerprintCommand.PARALLEL_THRESHOLD; i++) {
+            final List<X5Object> file = new ArrayList<>();
+            for (String name : FILES) {
+                final X509Certificate certificate = certificate(name);
+                file.add(certificate);
+                expected.add(Values.hexString(Digest.SHA512.digest(certificate.encodedValue()), certificate.getSource(), true).value());
+            }
+            files.add(new ObjectSequence(file, Values.source("file " + i)));
+        }
+
+        final X5Object result = fingerprint("SHA-512", new ObjectSequence(files, Values.source("test")));
+        assertThat(result).isInstanceOf(Sequence.class);
+        final List<String> actual = new ArrayList<>();
+        for (X5Object item : ((Sequence) result).items()) {
+            actual.add(((X5String) item).value());
+        }
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testCertificateFingerprintCannotBeModified() throws Exception {
+        final X509Certificate certificate = certificate("pem/server1.crt");
+        final byte[] expected = Digest.SHA384.digest(certificate.encodedValue());
+
+        final byte[] fingerprint = certificate.fingerprint(Digest.SHA384);
+        assertThat(fingerprint).isEqualTo(expected);
+        fingerprint[0]++;
+        assertThat(certificate.fingerprint(Digest.SHA384)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testUnsupportedAlgorithmIsRejected() {
+        assertThatThrownBy(() -> new FingerprintCommand().prepare(List.of("md5"))).isInstanceOf(BadArgumentException.class);
+    }
+
+    @Test
+    public void testDigestNames() {
+        assertThat(Digest.forName("sha256")).contains(Digest.SHA256);
+        assertThat(Digest.forName("SHA-384")).contains(Digest.SHA384);
+        assertThat(Digest.forName("Sha-1")).contains(Digest.SHA1);
+        assertThat(Digest.forName("sha3-256")).isEmpty();
+    }
+
+    private static X5Object fingerprint(String algorithm, X5Object object) throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(object);
+        new FingerprintCommand().prepare(List.of(algorithm)).execute(null, values);
+        return values.pop();
+    }
+}
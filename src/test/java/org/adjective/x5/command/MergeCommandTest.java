@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.command;
+
+import static org.adjective.x5.test.util.Samples.certificate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.exception.DuplicateEntryException;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.crypto.BasicStoreEntry;
+import org.adjective.x5.types.crypto.SimpleKeyStore;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class MergeCommandTest {
+
+    @Test
+    public void testDuplicateEntriesAreRejected() throws Exception {
+        final X509Certificate ca = certificate("pem/ca1.crt");
+        final X509Certificate server = certificate("pem/server1.crt");
+
+        final SimpleKeyStore target = new SimpleKeyStore(Values.source("target"));
+        target.addEntry(new BasicStoreEntry(target, "ca", ca), Optional.empty());
+
+        final SimpleKeyStore update = new SimpleKeyStore(Values.source("update"));
+        update.addEntry(new BasicStoreEntry(update, "server", server), Optional.empty());
+        update.addEntry(new BasicStoreEntry(update, "ca", ca), Optional.empty());
+
+        final ValueStack values = new ValueStack();
+        values.push(update);
+        values.push(target);
+        assertThatThrownBy(() -> new MergeCommand().prepare(List.of()).execute(null, values)).isInstanceOf(DuplicateEntryException.class)
+            .hasMessageContaining("'ca'");
+        assertThat(target.entries().stream().map(StoreEntry::name).collect(Collectors.toList())).containsExactly("ca", "server");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.adjective.x5.exception.FileReadException;
+import org.adjective.x5.io.StdIO;
+import org.adjective.x5.io.X5FileSystem;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.test.util.EmptyPasswordSupplier;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.StreamingSequence;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadCommandTest {
+
+    private Context context;
+    private ValueStack values;
+
+    @BeforeEach
+    public void buildContext() throws Exception {
+        final PasswordSupplier passwords = new EmptyPasswordSupplier();
+        final StdIO stdio = new StdIO(new ByteArrayOutputStream(), InputStream.nullInputStream());
+        final Path samples = Path.of(getClass().getResource("/samples/passwords.txt").toURI()).getParent();
+        final X5FileSystem fileSystem = new X5FileSystem(passwords, stdio, samples, Optional.empty(), Optional.empty());
+        this.context = new Context(stdio, fileSystem, passwords, new Environment(), new Properties());
+        this.values = new ValueStack();
+    }
+
+    @Test
+    public void testReadGlob() throws Exception {
+        new ReadCommand().execute(context, values, List.of("pem/server?.crt"));
+        final X5Object result = values.pop();
+        assertThat(result).isInstanceOf(Sequence.class);
+        assertThat(((Sequence) result).items()).hasSize(2);
+    }
+
+    @Test
+    public void testBundlesAreParsedWhenReadWithOtherFiles() throws Exception {
+        new ReadCommand().execute(context, values, List.of("pem/server2.reverse-chain", "pem/ca1.crt"));
+        final X5Object result = values.pop();
+        assertThat(result).isInstanceOf(Sequence.class);
+        final List<X5Object> files = new ArrayList<>();
+        ((Sequence) result).items().forEach(files::add);
+        assertThat(files).hasSize(2);
+        assertThat(files.get(0)).isInstanceOf(Sequence.class).isNotInstanceOf(StreamingSequence.class);
+        assertThat(((Sequence) files.get(0)).items()).hasSize(3).allMatch(X509Certificate.class::isInstance);
+        assertThat(files.get(1)).isInstanceOf(X509Certificate.class);
+    }
+
+    @Test
+    public void testGlobWithoutMatchesIsReported() {
+        assertThatThrownBy(() -> new ReadCommand().execute(context, values, List.of("pem/ca1.crt", "pem/no-such-*.crt")))
+            .isInstanceOf(FileReadException.class)
+            .hasMessageContaining("no-such-*.crt");
+        assertThat(values.hasValue()).isFalse();
+    }
+}
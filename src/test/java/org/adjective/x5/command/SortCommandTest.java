@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.adjective.x5.exception.ValueSetException;
+import org.adjective.x5.types.FixedRecord;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.X5Number;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class SortCommandTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+
+    @Test
+    public void testSortByPropertyIsStable() throws Exception {
+        assertSortedByKey(100);
+    }
+
+    @Test
+    public void testParallelSortByPropertyIsStable() throws Exception {
+        assertSortedByKey(SortCommand.PARALLEL_THRESHOLD * 3);
+    }
+
+    @Test
+    public void testOptionalKeyword() throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(records(10));
+        new SortCommand().prepare(List.of("by", "key")).execute(null, values);
+        assertThat(keys((Sequence) values.pop())).isSorted();
+    }
+
+    @Test
+    public void testMissingPropertyFailsUnlessOptional() throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(records(10));
+        assertThatThrownBy(() -> new SortCommand().prepare(List.of("no-such-property")).execute(null, values)).isInstanceOf(
+            ValueSetException.class
+        );
+
+        values.push(records(10));
+        new SortCommand().prepare(List.of("no-such-property?")).execute(null, values);
+        assertThat(indexes((Sequence) values.pop())).isSorted();
+    }
+
+    private void assertSortedByKey(int size) throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(records(size));
+        new SortCommand().prepare(List.of("key")).execute(null, values);
+        final Sequence sorted = (Sequence) values.pop();
+
+        final List<Integer> keys = keys(sorted);
+        final List<Integer> indexes = indexes(sorted);
+        assertThat(keys).hasSize(size).isSorted();
+        for (int i = 1; i < size; i++) {
+            if (keys.get(i).equals(keys.get(i - 1))) {
+                assertThat(indexes.get(i)).isGreaterThan(indexes.get(i - 1));
+            }
+        }
+    }
+
+    private static Sequence records(int size) {
+        final Random random = new Random(size);
+        final List<X5Object> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(
+                new FixedRecord(Map.of("key", Values.number(random.nextInt(20), SOURCE), "index", Values.number(i, SOURCE)), SOURCE)
+            );
+        }
+        return new ObjectSequence(records, SOURCE);
+    }
+
+    private static List<Integer> keys(Sequence sequence) throws Exception {
+        return property(sequence, "key");
+    }
+
+    private static List<Integer> indexes(Sequence sequence) throws Exception {
+        return property(sequence, "index");
+    }
+
+    private static List<Integer> property(Sequence sequence, String name) throws Exception {
+        final List<Integer> list = new ArrayList<>();
+        for (X5Object item : sequence.items()) {
+            list.add(((X5Number<?>) item.properties().get(name)).value().intValue());
+        }
+        return list;
+    }
+}
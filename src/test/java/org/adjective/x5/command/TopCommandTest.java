@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.adjective.x5.exception.BadArgumentException;
+import org.adjective.x5.types.FixedRecord;
+import org.adjective.x5.types.ObjectSequence;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class TopCommandTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+
+    @Test
+    public void testTopMatchesStartOfSort() throws Exception {
+        final Sequence records = records(500);
+        final List<X5Object> sorted = sort(records);
+        for (int n : new int[] { 0, 1, 7, 50, 500, 600 }) {
+            assertThat(select(true, n, records)).as("top " + n).isEqualTo(sorted.subList(0, Math.min(n, sorted.size())));
+        }
+    }
+
+    @Test
+    public void testBottomMatchesEndOfSort() throws Exception {
+        final Sequence records = records(500);
+        final List<X5Object> sorted = sort(records);
+        for (int n : new int[] { 0, 1, 7, 50, 500, 600 }) {
+            final List<X5Object> expected = sorted.subList(Math.max(0, sorted.size() - n), sorted.size());
+            assertThat(select(false, n, records)).as("bottom " + n).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testSelectsFromNestedSequences() throws Exception {
+        final Sequence first = records(20);
+        final Sequence second = records(30);
+        final List<X5Object> all = new ArrayList<>();
+        first.items().forEach(all::add);
+        second.items().forEach(all::add);
+
+        final Sequence nested = new ObjectSequence(List.of(first, second), SOURCE);
+        assertThat(select(true, 10, nested)).isEqualTo(sort(new ObjectSequence(all, SOURCE)).subList(0, 10));
+    }
+
+    @Test
+    public void testSelectsFromNestedSequencesWithoutKey() throws Exception {
+        final List<X5Object> first = List.of(number(7), number(3), number(9));
+        final List<X5Object> second = List.of(number(1), number(8));
+        final List<X5Object> all = new ArrayList<>(first);
+        all.addAll(second);
+
+        final Sequence nested = new ObjectSequence(List.of(new ObjectSequence(first, SOURCE), new ObjectSequence(second, SOURCE)), SOURCE);
+        final List<X5Object> sorted = sort(new ObjectSequence(all, SOURCE), List.of());
+        assertThat(select(true, 2, nested, List.of())).isEqualTo(sorted.subList(0, 2));
+        assertThat(select(false, 2, nested, List.of())).isEqualTo(sorted.subList(3, 5));
+    }
+
+    @Test
+    public void testNegativeCountIsRejected() {
+        assertThatThrownBy(() -> new TopCommand(true).prepare(List.of("-1", "key"))).isInstanceOf(BadArgumentException.class);
+    }
+
+    private static List<X5Object> select(boolean top, int n, Sequence records) throws Exception {
+        return select(top, n, records, List.of("by", "key"));
+    }
+
+    private static List<X5Object> select(boolean top, int n, Sequence records, List<String> key) throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(records);
+        final List<String> args = new ArrayList<>();
+        args.add(String.valueOf(n));
+        args.addAll(key);
+        new TopCommand(top).prepare(args).execute(null, values);
+        return items((Sequence) values.pop());
+    }
+
+    private static List<X5Object> sort(Sequence records) throws Exception {
+        return sort(records, List.of("key"));
+    }
+
+    private static List<X5Object> sort(Sequence records, List<String> key) throws Exception {
+        final ValueStack values = new ValueStack();
+        values.push(records);
+        new SortCommand().prepare(key).execute(null, values);
+        return items((Sequence) values.pop());
+    }
+
+    private static X5Object number(int value) {
+        return Values.number(value, SOURCE);
+    }
+
+    private static List<X5Object> items(Sequence sequence) throws Exception {
+        final List<X5Object> list = new ArrayList<>();
+        sequence.items().forEach(list::add);
+        return list;
+    }
+
+    private static Sequence records(int size) {
+        final Random random = new Random(size);
+        final List<X5Object> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(new FixedRecord(Map.of("key", Values.number(random.nextInt(25), SOURCE)), SOURCE));
+        }
+        return new ObjectSequence(records, SOURCE);
+    }
+}
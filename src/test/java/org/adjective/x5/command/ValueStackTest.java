@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.command;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.adjective.x5.exception.ValueSetException;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class ValueStackTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+
+    private final X5Object a = Values.string("a", SOURCE);
+    private final X5Object b = Values.string("b", SOURCE);
+    private final X5Object c = Values.string("c", SOURCE);
+    private final X5Object d = Values.string("d", SOURCE);
+    private final X5Object e = Values.string("e", SOURCE);
+
+    @Test
+    public void testPushAndPop() throws Exception {
+        final ValueStack stack = new ValueStack();
+        assertThat(stack.hasValue()).isFalse();
+        stack.push(a);
+        stack.push(b);
+        assertThat(stack.peek()).isSameAs(b);
+        assertThat(stack.pop()).isSameAs(b);
+        assertThat(stack.pop()).isSameAs(a);
+        assertThat(stack.hasValue()).isFalse();
+        assertThatThrownBy(stack::pop).isInstanceOf(ValueSetException.class);
+        assertThatThrownBy(stack::peek).isInstanceOf(ValueSetException.class);
+    }
+
+    @Test
+    public void testDuplicateIsIndependentOfOriginal() throws Exception {
+        final ValueStack stack = new ValueStack();
+        stack.push(a);
+        stack.push(b);
+
+        final ValueSet copy = stack.duplicate();
+        assertThat(copy.pop()).isSameAs(b);
+        copy.push(c);
+        copy.push(d);
+
+        stack.push(e);
+        assertThat(stack.pop()).isSameAs(e);
+        assertThat(stack.pop()).isSameAs(b);
+
+        assertThat(copy.pop()).isSameAs(d);
+        assertThat(copy.pop()).isSameAs(c);
+        assertThat(copy.pop()).isSameAs(a);
+        assertThat(copy.hasValue()).isFalse();
+
+        assertThat(stack.pop()).isSameAs(a);
+        assertThat(stack.hasValue()).isFalse();
+    }
+}
@@ -17,13 +17,28 @@ package org.adjective.x5.io;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.adjective.x5.io.password.PasswordSupplier;
 import org.adjective.x5.test.util.EmptyPasswordSupplier;
+import org.adjective.x5.types.FileType;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.StreamingSequence;
 import org.adjective.x5.types.X509Certificate;
 import org.adjective.x5.types.X5File;
 import org.adjective.x5.types.X5Object;
+import org.adjective.x5.util.CheckedSupplier;
+import org.adjective.x5.util.Iterables;
 import org.junit.jupiter.api.Test;
 
 class FileParserTest {
@@ -58,4 +73,135 @@ class FileParserTest {
             assertThat(((X509Certificate) object).subject().toString()).isEqualTo("cn=server,dc=example,dc=net");
         }
     }
+
+    @Test
+    public void testParsePemSequenceOnDemand() throws Exception {
+        final X5File file = MockFile.any();
+        final PasswordSupplier password = new EmptyPasswordSupplier();
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        final InputStream resource = getClass().getResourceAsStream("/samples/pem/server2.reverse-chain");
+        assertThat(resource).isNotNull();
+        final InputStream in = new FilterInputStream(resource) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        final X5Object object = FileParser.getInstance().read(in, file, password);
+        assertThat(object).isInstanceOf(StreamingSequence.class);
+        assertThat(closed).isFalse();
+
+        final Iterable<? extends X5Object> items = ((Sequence) object).items();
+        assertThat(items.iterator().next()).isInstanceOf(X509Certificate.class);
+        assertThat(closed).isFalse();
+
+        assertThat(items).hasSize(3).allMatch(X509Certificate.class::isInstance);
+        assertThat(closed).isTrue();
+        assertThat(((X509Certificate) items.iterator().next()).subject().toString()).isEqualTo(
+            "cn=Root CA,ou=security,dc=example,dc=net"
+        );
+    }
+
+    @Test
+    public void testStreamedSequenceIsClosedWhenSequenceIsClosed() throws Exception {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        final InputStream in = new FilterInputStream(getClass().getResourceAsStream("/samples/pem/server2.reverse-chain")) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        final X5Object object = FileParser.getInstance().read(in, MockFile.any(), new EmptyPasswordSupplier());
+        final StreamingSequence sequence = (StreamingSequence) object;
+        assertThat(sequence.isRetained()).isTrue();
+        assertThat(sequence.items().iterator().next()).isInstanceOf(X509Certificate.class);
+        assertThat(closed).isFalse();
+
+        sequence.close();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void testBufferedSequenceIsReadAgainRatherThanRetained() throws Exception {
+        final byte[] bytes;
+        try (InputStream in = getClass().getResourceAsStream("/samples/pem/server2.reverse-chain")) {
+            bytes = in.readAllBytes();
+        }
+        final X5Object object = FileParser.getInstance().read(ByteBuffer.wrap(bytes), MockFile.any(), new EmptyPasswordSupplier());
+        assertThat(object).isInstanceOf(StreamingSequence.class);
+        final StreamingSequence sequence = (StreamingSequence) object;
+        assertThat(sequence.isRetained()).isFalse();
+
+        final Iterator<? extends X5Object> first = sequence.items().iterator();
+        final X5Object root = first.next();
+        assertThat(root).isInstanceOf(X509Certificate.class);
+        Iterables.close(first);
+        assertThat(first.hasNext()).isFalse();
+
+        assertThat(sequence.items()).hasSize(3).allMatch(X509Certificate.class::isInstance);
+        assertThat(sequence.items()).hasSize(3);
+        final X5Object again = sequence.items().iterator().next();
+        assertThat(again).isNotSameAs(root);
+        assertThat(((X509Certificate) again).subject().isEqualTo(((X509Certificate) root).subject())).isTrue();
+    }
+
+    @Test
+    public void testSequenceSummaryDoesNotReadTheSourceAgain() throws Exception {
+        final byte[] bytes;
+        try (InputStream in = getClass().getResourceAsStream("/samples/pem/server2.reverse-chain")) {
+            bytes = in.readAllBytes();
+        }
+        final Sequence parsed = (Sequence) FileParser.getInstance()
+            .read(ByteBuffer.wrap(bytes), MockFile.any(), new EmptyPasswordSupplier());
+        final List<X5Object> certificates = new ArrayList<>();
+        parsed.items().forEach(certificates::add);
+        assertThat(certificates).hasSize(3);
+
+        final AtomicInteger opened = new AtomicInteger(1);
+        final AtomicInteger reads = new AtomicInteger(0);
+        final CheckedSupplier<StreamingSequence.Source, IOException> reopen = () -> {
+            opened.incrementAndGet();
+            return source(certificates, reads);
+        };
+        final StreamingSequence.Source initial = source(certificates, reads);
+        final StreamingSequence sequence = new StreamingSequence(List.of(), initial, reopen, Paths.get("chain.pem"), FileType.PEM);
+
+        // Every pass reads (and parses) each object again
+        assertThat(sequence.items()).hasSize(3);
+        assertThat(sequence.items()).hasSize(3);
+        assertThat(opened.get()).isEqualTo(2);
+        assertThat(reads.get()).isEqualTo(6);
+
+        // The first complete pass recorded the type name and syntax
+        assertThat(sequence.getTypeName()).isEqualTo("Sequence{" + certificates.get(0).getTypeName() + "}");
+        assertThat(sequence.getSource().getSyntax()).isEqualTo(certificates.get(0).getSource().getSyntax());
+        assertThat(opened.get()).isEqualTo(2);
+
+        // There is more than one certificate, so it stops reading once it finds the second one
+        assertThat(sequence.as(X509Certificate.class)).isEmpty();
+        assertThat(opened.get()).isEqualTo(3);
+        assertThat(reads.get()).isEqualTo(8);
+    }
+
+    private static StreamingSequence.Source source(List<X5Object> objects, AtomicInteger reads) {
+        final Iterator<X5Object> iterator = objects.iterator();
+        return new StreamingSequence.Source() {
+            @Override
+            public X5Object next() {
+                if (iterator.hasNext()) {
+                    reads.incrementAndGet();
+                    return iterator.next();
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.adjective.x5.command.Environment;
+import org.adjective.x5.io.password.FilePasswordSupplier;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.test.util.EmptyPasswordSupplier;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.X5Object;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MappedFileTest {
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "keystore/multiple-keys.p12",
+            "keystore/multiple-keys.jks",
+            "pem/server2.chain",
+            "pem/server2.reverse-chain",
+            "pem/ca1.des3.key",
+            "raw/ca1.crt.b64" }
+    )
+    public void testMappedFileMatchesStream(String name) throws Exception {
+        final Path samples = Paths.get(getSamplesUrl().toURI()).getParent();
+        final PasswordSupplier passwords = new FilePasswordSupplier(new Environment(), List.of(samples.resolve("passwords.txt")));
+        final Path path = samples.resolve(name);
+
+        final X5Object copied = new MappedFile(path, passwords).asObject();
+        final X5Object mapped = new MappedFile(path, passwords, FileParser.getInstance(), 0).asObject();
+        final X5Object stream = new RawFile(path, passwords).asObject();
+
+        for (X5Object object : List.of(copied, mapped)) {
+            assertThat(object.getTypeName()).isEqualTo(stream.getTypeName());
+            assertThat(object.getSource().getFileType()).isEqualTo(stream.getSource().getFileType());
+            assertThat(object.description()).isEqualTo(stream.description());
+            assertThat(object.properties().keySet()).isEqualTo(stream.properties().keySet());
+        }
+    }
+
+    @Test
+    public void testTruncatedMappingIsReportedAsReadFailure(@TempDir Path dir) throws Exception {
+        final Path samples = Paths.get(getSamplesUrl().toURI()).getParent();
+        final String pem = Files.readString(samples.resolve("pem/server2.chain"));
+        final Path path = dir.resolve("large.chain");
+        // Enough certificates to span many pages, so that truncating the file leaves later objects unmapped
+        Files.writeString(path, pem.repeat(200));
+
+        final X5Object object = new MappedFile(path, new EmptyPasswordSupplier(), FileParser.getInstance(), 0).asObject();
+        assertThat(object).isInstanceOf(Sequence.class);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+        }
+
+        assertThatThrownBy(() -> ((Sequence) object).items().forEach(item -> {})).hasRootCauseInstanceOf(InternalError.class);
+    }
+
+    private URL getSamplesUrl() {
+        final URL url = getClass().getResource("/samples/passwords.txt");
+        assertThat(url).isNotNull();
+        return url;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.adjective.x5.exception.X5Exception;
+import org.adjective.x5.io.MappedFile;
+import org.adjective.x5.io.RawFile;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.io.password.SimplePasswordSupplier;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.Sequence;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.StreamingSequence;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5File;
+import org.adjective.x5.types.X5Object;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParseCacheTest {
+
+    private static final String PASSWORD = "cache-test";
+
+    @TempDir
+    Path directory;
+
+    private ParseCache cache;
+    private AtomicInteger parseCount;
+    private PasswordSupplier passwords;
+
+    @BeforeEach
+    public void setup() {
+        this.cache = new ParseCache(directory.resolve("cache"));
+        this.parseCount = new AtomicInteger(0);
+        this.passwords = new SimplePasswordSupplier(PASSWORD);
+    }
+
+    @Test
+    public void testCertificateMetadataIsReadFromCache() throws Exception {
+        final Path path = copySample("pem/server2.crt");
+
+        final X5Object original = read(path);
+        assertThat(parseCount).hasValue(1);
+        assertThat(original).isInstanceOf(X509Certificate.class);
+
+        final X5Object cached = read(path);
+        assertThat(cached).isInstanceOf(X509Certificate.class);
+        assertThat(cached.description()).isEqualTo(original.description());
+        assertThat(cached.getSource().getFileType()).isEqualTo(original.getSource().getFileType());
+
+        final Map<String, ? extends X5Object> originalProperties = original.properties();
+        final Map<String, ? extends X5Object> cachedProperties = cached.properties();
+        assertThat(cachedProperties.keySet()).containsExactlyElementsOf(originalProperties.keySet());
+        for (String key : originalProperties.keySet()) {
+            if (key.equals("key") == false) {
+                assertThat(describe(cachedProperties.get(key))).as(key).isEqualTo(describe(originalProperties.get(key)));
+            }
+        }
+        assertThat(parseCount).as("metadata should not need the file to be parsed").hasValue(1);
+
+        assertThat(cachedProperties.get("key").description()).isEqualTo(originalProperties.get("key").description());
+        assertThat(cached.isEqualTo(original)).isTrue();
+        assertThat(parseCount).as("public key requires the file to be parsed").hasValue(2);
+    }
+
+    @Test
+    public void testModifiedFileIsParsedAgain() throws Exception {
+        final Path path = copySample("pem/ca1.crt");
+        read(path);
+        read(path);
+        assertThat(parseCount).hasValue(1);
+
+        // Same size and timestamp, but different content
+        final FileTime modified = Files.getLastModifiedTime(path);
+        final byte[] content = Files.readAllBytes(path);
+        content[content.length - 1] = (byte) ' ';
+        Files.write(path, content);
+        Files.setLastModifiedTime(path, modified);
+        read(path);
+        assertThat(parseCount).hasValue(2);
+        read(path);
+        assertThat(parseCount).hasValue(2);
+
+        Files.writeString(path, "\n", StandardOpenOption.APPEND);
+        read(path);
+        assertThat(parseCount).hasValue(3);
+    }
+
+    @Test
+    public void testCertificateSequenceIsReadFromCache() throws Exception {
+        final Path path = copySample("pem/server2.chain");
+        final X5Object original = read(path);
+        final X5Object cached = read(path);
+        assertThat(parseCount).hasValue(1);
+
+        assertThat(cached.getTypeName()).isEqualTo(original.getTypeName());
+        assertThat(subjects(cached)).isEqualTo(subjects(original)).hasSize(3);
+        assertThat(parseCount).hasValue(1);
+    }
+
+    @Test
+    public void testStreamedSequenceIsCachedOnceItHasBeenRead() throws Exception {
+        // These certificates are unrelated, so the file is read as a streamed sequence rather than a chain
+        final Path path = directory.resolve("bundle.pem");
+        for (String name : List.of("ca1", "self-signed", "legacy-utctime")) {
+            Files.write(path, Files.readAllBytes(sample("pem/" + name + ".crt")), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        final X5Object original = read(path, new MappedFile(path, passwords));
+        assertThat(original).isInstanceOf(StreamingSequence.class);
+        assertThat(directory.resolve("cache")).as("the sequence has not been read yet").satisfiesAnyOf(
+            dir -> assertThat(dir).doesNotExist(),
+            dir -> assertThat(dir).isEmptyDirectory()
+        );
+
+        final List<String> subjects = subjects(original);
+        assertThat(subjects).hasSize(3);
+
+        final X5Object cached = read(path);
+        assertThat(parseCount).hasValue(1);
+        assertThat(cached).isNotInstanceOf(StreamingSequence.class);
+        assertThat(subjects(cached)).isEqualTo(subjects);
+        assertThat(cached.getSource().getSyntax()).isEqualTo(original.getSource().getSyntax());
+        assertThat(parseCount).hasValue(1);
+    }
+
+    @Test
+    public void testCorruptDigestLengthIsIgnored() throws Exception {
+        final Path path = copySample("pem/ca1.crt");
+        read(path);
+        read(path);
+        assertThat(parseCount).hasValue(1);
+
+        try (Stream<Path> entries = Files.list(directory.resolve("cache"))) {
+            final List<Path> list = entries.collect(Collectors.toList());
+            assertThat(list).hasSize(1);
+            final Path entry = list.get(0);
+            final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(entry));
+            // magic, path (as modified UTF-8), size and modified time, followed by the digest length
+            final int offset = Integer.BYTES + Short.BYTES + content.getShort(Integer.BYTES) + Long.BYTES + Long.BYTES;
+            assertThat(content.getInt(offset)).isEqualTo(32);
+            content.putInt(offset, Integer.MAX_VALUE);
+            Files.write(entry, content.array());
+        }
+
+        assertThat(read(path)).isInstanceOf(X509Certificate.class);
+        assertThat(parseCount).hasValue(2);
+        read(path);
+        assertThat(parseCount).as("the entry is rewritten").hasValue(2);
+    }
+
+    @Test
+    public void testTrustStoreIsReadFromCache() throws Exception {
+        final Path path = writeTrustStore("truststore.jks", "JKS");
+
+        final CryptoStore original = (CryptoStore) read(path);
+        final X5Object cached = read(path);
+        assertThat(parseCount).hasValue(1);
+
+        assertThat(cached).isInstanceOf(CryptoStore.class);
+        final CryptoStore cachedStore = (CryptoStore) cached;
+        assertThat(names(cachedStore)).isEqualTo(names(original));
+        assertThat(cached.properties().keySet()).isEqualTo(original.properties().keySet());
+        for (StoreEntry entry : original.entries()) {
+            final StoreEntry cachedEntry = cachedStore.findEntry(entry.name()).orElseThrow();
+            assertThat(cachedEntry.description()).isEqualTo(entry.description());
+            assertThat(cachedEntry.properties().keySet()).isEqualTo(entry.properties().keySet());
+        }
+        assertThat(parseCount).hasValue(1);
+    }
+
+    @Test
+    public void testCachedTrustStoreChecksPassword() throws Exception {
+        for (String type : List.of("JKS", "PKCS12")) {
+            final Path path = writeTrustStore("truststore." + type.toLowerCase(Locale.ROOT), type);
+            final PasswordSupplier wrongPassword = new SimplePasswordSupplier("not-" + PASSWORD);
+            final String error = catchThrowable(() -> new RawFile(path, wrongPassword).asObject()).getMessage();
+
+            parseCount.set(0);
+            read(path);
+            read(path);
+            assertThat(parseCount).as(type).hasValue(1);
+
+            assertThatThrownBy(() -> read(path, wrongPassword)).as(type).isInstanceOf(X5Exception.class).hasMessage(error);
+            assertThat(parseCount).as(type + " with the wrong password is parsed").hasValue(2);
+
+            assertThat(read(path)).as(type).isInstanceOf(CryptoStore.class);
+            assertThat(parseCount).as(type + " cache entry is still used").hasValue(2);
+        }
+    }
+
+    @Test
+    public void testPrivateKeysAreNotCached() throws Exception {
+        final Path path = copySample("pem/self-signed.key");
+        read(path);
+        read(path);
+        assertThat(parseCount).hasValue(2);
+        assertThat(directory.resolve("cache")).satisfiesAnyOf(
+            dir -> assertThat(dir).doesNotExist(),
+            dir -> assertThat(dir).isEmptyDirectory()
+        );
+    }
+
+    private X5Object read(Path path) throws Exception {
+        return read(path, passwords);
+    }
+
+    private X5Object read(Path path, PasswordSupplier passwords) throws Exception {
+        return read(path, new RawFile(path, passwords), passwords);
+    }
+
+    private X5Object read(Path path, X5File file) throws Exception {
+        return read(path, file, passwords);
+    }
+
+    private X5Object read(Path path, X5File file, PasswordSupplier passwords) throws Exception {
+        return cache.read(path, passwords, () -> {
+            parseCount.incrementAndGet();
+            return file.asObject();
+        });
+    }
+
+    private static String describe(X5Object object) {
+        return object == null ? null : object.getTypeName() + ":" + object.description();
+    }
+
+    private static List<String> subjects(X5Object object) throws Exception {
+        final Sequence sequence = object.as(Sequence.class).orElseThrow();
+        return StreamSupport.stream(sequence.items().spliterator(), false)
+            .map(item -> describe(item.properties().get("subject")))
+            .collect(Collectors.toList());
+    }
+
+    private static List<String> names(CryptoStore store) throws Exception {
+        return store.entries().stream().map(StoreEntry::name).collect(Collectors.toList());
+    }
+
+    private Path writeTrustStore(String fileName, String type) throws Exception {
+        final Path path = directory.resolve(fileName);
+        final KeyStore keyStore = KeyStore.getInstance(type);
+        keyStore.load(null, null);
+        final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        for (String name : List.of("ca1", "intermediate1", "server1")) {
+            try (InputStream in = Files.newInputStream(sample("pem/" + name + ".crt"))) {
+                keyStore.setCertificateEntry(name, factory.generateCertificate(in));
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+        return path;
+    }
+
+    private Path copySample(String name) throws Exception {
+        final Path target = directory.resolve(sample(name).getFileName());
+        Files.copy(sample(name), target);
+        return target;
+    }
+
+    private Path sample(String name) throws Exception {
+        return Path.of(getClass().getResource("/samples/" + name).toURI());
+    }
+}
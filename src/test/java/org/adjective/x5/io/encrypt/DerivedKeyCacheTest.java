@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.encrypt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class DerivedKeyCacheTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    @Test
+    public void testRepeatedDerivationIsCached() throws Exception {
+        final byte[] salt = "salt-1".getBytes(StandardCharsets.UTF_8);
+        try (DerivedKeyCache cache = new DerivedKeyCache()) {
+            final byte[] key1 = cache.derive(password("secret"), salt, 1000, 256, ALGORITHM);
+            final byte[] key2 = cache.derive(password("secret"), salt, 1000, 256, ALGORITHM);
+
+            assertThat(key1).isEqualTo(key2).isNotSameAs(key2);
+            assertThat(key1).isEqualTo(derive("secret", salt, 1000, 256));
+            assertThat(cache.misses()).isEqualTo(1);
+            assertThat(cache.hits()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testDifferentParametersAreNotShared() throws Exception {
+        final byte[] salt = "salt-1".getBytes(StandardCharsets.UTF_8);
+        try (DerivedKeyCache cache = new DerivedKeyCache()) {
+            cache.derive(password("secret"), salt, 1000, 256, ALGORITHM);
+            cache.derive(password("other"), salt, 1000, 256, ALGORITHM);
+            cache.derive(password("secret"), "salt-2".getBytes(StandardCharsets.UTF_8), 1000, 256, ALGORITHM);
+            cache.derive(password("secret"), salt, 1001, 256, ALGORITHM);
+            cache.derive(password("secret"), salt, 1000, 128, ALGORITHM);
+            cache.derive(password("secret"), salt, 1000, 256, "PBKDF2WithHmacSHA1");
+            assertThat(cache.misses()).isEqualTo(6);
+            assertThat(cache.hits()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        final byte[] salt = "salt".getBytes(StandardCharsets.UTF_8);
+        try (DerivedKeyCache cache = new DerivedKeyCache(2)) {
+            cache.derive(password("a"), salt, 10, 128, ALGORITHM);
+            cache.derive(password("b"), salt, 10, 128, ALGORITHM);
+            cache.derive(password("a"), salt, 10, 128, ALGORITHM);
+            cache.derive(password("c"), salt, 10, 128, ALGORITHM);
+            // "b" was the least recently used, and has been evicted
+            cache.derive(password("b"), salt, 10, 128, ALGORITHM);
+            assertThat(cache.hits()).isEqualTo(1);
+            assertThat(cache.misses()).isEqualTo(4);
+        }
+    }
+
+    private static Password password(String value) {
+        return new Password(value, SOURCE);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int keyLength) throws Exception {
+        return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(new PBEKeySpec(password.toCharArray(), salt, iterations, keyLength))
+            .getEncoded();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileWatcherTest {
+
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testBurstOfChangesIsReportedOnce() throws Exception {
+        final Path ca = copySample("pem/ca1.crt", "ca.crt");
+        final Path server = copySample("pem/server1.crt", "server.crt");
+        final Path other = copySample("pem/server2.crt", "other.crt");
+
+        try (FileWatcher watcher = new FileWatcher()) {
+            watcher.watch(Set.of(ca, server), Set.of());
+            Files.writeString(other, "ignored");
+            for (int i = 0; i < 5; i++) {
+                Files.write(ca, Files.readAllBytes(ca));
+            }
+            Files.delete(server);
+            assertThat(watcher.awaitChanges(QUIET_PERIOD)).containsExactlyInAnyOrder(ca, server);
+
+            copySample("pem/server2.crt", "server.crt");
+            assertThat(watcher.awaitChanges(QUIET_PERIOD)).containsExactly(server);
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testNewFilesInWatchedDirectoryAreReported() throws Exception {
+        final Path certs = Files.createDirectories(directory.resolve("certs"));
+        try (FileWatcher watcher = new FileWatcher()) {
+            watcher.watch(Set.of(), Set.of(certs));
+            final Path added = copySample("pem/ca1.crt", "certs/new.crt");
+            assertThat(watcher.awaitChanges(QUIET_PERIOD)).containsExactly(added);
+        }
+    }
+
+    /**
+     * Mimics the way that Kubernetes updates a mounted secret: each file is a symlink through {@code ..data}, which is a symlink to a
+     * timestamped directory, and an update replaces {@code ..data} with a link to a new directory. There is no event for the file itself.
+     */
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testSymlinkSwapIsReported() throws Exception {
+        copySample("pem/ca1.crt", "..v1/ca.crt");
+        copySample("pem/server2.crt", "..v2/ca.crt");
+        final Path data = Files.createSymbolicLink(directory.resolve("..data"), Path.of("..v1"));
+        final Path ca = Files.createSymbolicLink(directory.resolve("ca.crt"), Path.of("..data", "ca.crt"));
+        final Path other = copySample("pem/server1.crt", "other.crt");
+
+        try (FileWatcher watcher = new FileWatcher()) {
+            watcher.watch(Set.of(ca), Set.of());
+            swap(data, "..v2");
+            assertThat(watcher.awaitChanges(QUIET_PERIOD)).containsExactly(ca);
+
+            // Other files in the directory are not reported, even though the events in the directory cause the watched file to be checked
+            Files.writeString(other, "ignored");
+            swap(data, "..v1");
+            assertThat(watcher.awaitChanges(QUIET_PERIOD)).containsExactly(ca);
+        }
+    }
+
+    private void swap(Path link, String target) throws Exception {
+        final Path replacement = Files.createSymbolicLink(link.resolveSibling(link.getFileName() + "_tmp"), Path.of(target));
+        Files.move(replacement, link, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path copySample(String sample, String name) throws Exception {
+        final Path target = directory.resolve(name);
+        Files.createDirectories(target.getParent());
+        Files.copy(Path.of(getClass().getResource("/samples/" + sample).toURI()), target);
+        return target;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.io.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.adjective.x5.command.Context;
+import org.adjective.x5.command.Environment;
+import org.adjective.x5.command.ImportCommand;
+import org.adjective.x5.command.ReadCommand;
+import org.adjective.x5.command.ValueStack;
+import org.adjective.x5.io.StdIO;
+import org.adjective.x5.io.X5FileSystem;
+import org.adjective.x5.io.password.PasswordSupplier;
+import org.adjective.x5.io.password.SimplePasswordSupplier;
+import org.adjective.x5.types.CryptoStore;
+import org.adjective.x5.types.X5File;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WatchingFileSystemTest {
+
+    @TempDir
+    Path directory;
+
+    private WatchingFileSystem fileSystem;
+
+    @BeforeEach
+    public void setup() {
+        final StdIO stdio = new StdIO(System.out, System.in);
+        this.fileSystem = new WatchingFileSystem(new X5FileSystem(new SimplePasswordSupplier("changeme"), stdio));
+    }
+
+    @Test
+    public void testUnchangedFilesAreReused() throws Exception {
+        final Path ca = copySample("pem/ca1.crt", "ca.crt");
+        final Path server = copySample("pem/server1.crt", "server.crt");
+
+        final X5File caFile = fileSystem.read(ca);
+        final X5File serverFile = fileSystem.read(server);
+        assertThat(fileSystem.files()).containsExactlyInAnyOrder(ca, server);
+        assertThat(fileSystem.read(ca)).isSameAs(caFile);
+
+        fileSystem.changed(List.of(server));
+        assertThat(fileSystem.read(ca)).isSameAs(caFile);
+        assertThat(fileSystem.read(server)).isNotSameAs(serverFile);
+
+        fileSystem.changed(List.of(directory));
+        assertThat(fileSystem.read(ca)).isNotSameAs(caFile);
+    }
+
+    @Test
+    public void testModifiedStoresAreReadAgain() throws Exception {
+        final Path store = copySample("keystore/multiple-keys.jks", "store.jks");
+        final Path ca = copySample("pem/ca1.crt", "ca.crt");
+        final PasswordSupplier passwords = new SimplePasswordSupplier("jks-keystore");
+        final StdIO stdio = new StdIO(new ByteArrayOutputStream(), InputStream.nullInputStream());
+        final X5FileSystem x5FileSystem = new X5FileSystem(passwords, stdio, directory, Optional.empty(), Optional.empty());
+        this.fileSystem = new WatchingFileSystem(x5FileSystem);
+        final Context context = new Context(stdio, fileSystem, passwords, new Environment(), new Properties());
+
+        final List<Integer> sizes = new ArrayList<>();
+        for (int run = 0; run < 2; run++) {
+            final ValueStack values = new ValueStack();
+            new ReadCommand().execute(context, values, List.of(store.toString()));
+            new ImportCommand().execute(context, values, List.of("extra-" + run, ca.toString()));
+            sizes.add(((CryptoStore) values.pop()).entries().size());
+        }
+        assertThat(sizes.get(1)).isEqualTo(sizes.get(0));
+        assertThat(fileSystem.read(ca).asObject()).isSameAs(fileSystem.read(ca).asObject());
+    }
+
+    @Test
+    public void testExpandedDirectoriesAreRecorded() throws Exception {
+        final Path ca = copySample("pem/ca1.crt", "certs/ca.crt");
+        fileSystem.expand(directory.resolve("ca.txt").toString());
+        assertThat(fileSystem.directories()).isEmpty();
+
+        assertThat(fileSystem.expand(directory.resolve("certs").toString() + "/*.crt")).containsExactly(ca);
+        assertThat(fileSystem.directories()).containsExactly(ca.getParent());
+    }
+
+    private Path copySample(String sample, String name) throws Exception {
+        final Path target = directory.resolve(name);
+        Files.createDirectories(target.getParent());
+        Files.copy(Path.of(getClass().getResource("/samples/" + sample).toURI()), target);
+        return target;
+    }
+}
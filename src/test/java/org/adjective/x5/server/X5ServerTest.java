@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.adjective.x5.Main;
+import org.adjective.x5.io.StdIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class X5ServerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path socket;
+    private X5Server server;
+    private Thread thread;
+
+    private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        socket = directory.resolve("x5.sock");
+        server = new X5Server(new Main(), socket);
+        thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, "x5-server-test");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception {
+        server.close();
+        thread.join(5_000);
+        assertThat(thread.isAlive()).isFalse();
+        assertThat(Files.exists(socket)).isFalse();
+    }
+
+    @Test
+    public void testOutputIsRelayedToClient() throws Exception {
+        final int exitCode = connect(InputStream.nullInputStream(), "\"literal text\"", "|", "print");
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(stdout.toString(StandardCharsets.UTF_8)).isEqualTo("literal text\n");
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    @Test
+    public void testErrorsAreRelayedToClient() throws Exception {
+        final int exitCode = connect(InputStream.nullInputStream(), "no-such-command");
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(stdout.toString(StandardCharsets.UTF_8)).isEmpty();
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("ERROR: ").contains("no-such-command");
+    }
+
+    @Test
+    public void testFilesAreResolvedAgainstClientDirectory() throws Exception {
+        Files.writeString(directory.resolve("value.txt"), "-----BEGIN CERTIFICATE-----\n");
+        final int exitCode = connect(InputStream.nullInputStream(), "read", "value.txt");
+        assertThat(exitCode).isEqualTo(0);
+        // The file is found (relative to the client's directory), even though it cannot be parsed
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("ERROR: ").doesNotContain("NoSuchFileException");
+    }
+
+    @Test
+    public void testStandardInputIsReadFromClient() throws Exception {
+        final byte[] pem = Files.readAllBytes(Path.of(getClass().getResource("/samples/pem/ca1.crt").toURI()));
+        final int exitCode = connect(new ByteArrayInputStream(pem), "read", "-", "|", ".subject", "|", "print");
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).isEmpty();
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(stdout.toString(StandardCharsets.UTF_8)).isEqualTo("cn=Root CA,ou=security,dc=example,dc=net\n");
+    }
+
+    @Test
+    public void testMultipleRequestsOnSameServer() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            stdout.reset();
+            assertThat(connect(InputStream.nullInputStream(), "\"literal " + i + "\"", "|", "print")).isEqualTo(0);
+            assertThat(stdout.toString(StandardCharsets.UTF_8)).isEqualTo("literal " + i + "\n");
+        }
+    }
+
+    @Test
+    public void testProcessWideOptionsAreRejected() throws Exception {
+        for (String option : List.of("--debug", "--server=other.sock", "--watch")) {
+            stderr.reset();
+            final int exitCode = connect(InputStream.nullInputStream(), option, "--password=secret", "\"literal text\"", "|", "print");
+            assertThat(exitCode).isEqualTo(0);
+            assertThat(stdout.toString(StandardCharsets.UTF_8)).isEmpty();
+            assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("option cannot be sent to a server").doesNotContain("secret");
+        }
+    }
+
+    @Test
+    public void testKeyCacheStatisticsAreReported() throws Exception {
+        final String key = Path.of(getClass().getResource("/samples/pem/simple-sample.pkcs8.key").toURI()).toString();
+        final int exitCode = connect(InputStream.nullInputStream(), "--stats", "--password=password", "read", key, key, "|", "print");
+        assertThat(exitCode).isEqualTo(0);
+        // The second read of the same file reuses the key that was derived for the first
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).isEqualTo("Derived key cache: 1 hits, 1 misses\n");
+    }
+
+    @Test
+    public void testPasswordIsNotReadFromServerConsole() throws Exception {
+        final int exitCode = connect(InputStream.nullInputStream(), "read", sample("keystore/multiple-keys.jks"));
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("ERROR: ").contains("interactively in a request to a server");
+    }
+
+    @Test
+    public void testPasswordSpecificationsUseClientEnvironment() throws Exception {
+        // The client's working directory cannot be changed in a test, so the request is run directly
+        Files.writeString(directory.resolve("password.txt"), "jks-keystore");
+        final String keystore = sample("keystore/multiple-keys.jks");
+        for (String password : List.of("@password.txt", "$KEYSTORE_PASSWORD")) {
+            stdout.reset();
+            final int exitCode = new Main().runRequest(
+                new String[] { "read", "--password=" + password, keystore, "|", "print" },
+                new StdIO(new PrintStream(stdout, true, StandardCharsets.UTF_8), InputStream.nullInputStream()),
+                new PrintStream(stderr, true, StandardCharsets.UTF_8),
+                directory,
+                Map.of("KEYSTORE_PASSWORD", "jks-keystore")
+            );
+            assertThat(stderr.toString(StandardCharsets.UTF_8)).as(password).isEmpty();
+            assertThat(exitCode).isEqualTo(0);
+            assertThat(stdout.toString(StandardCharsets.UTF_8)).as(password).isNotEmpty();
+        }
+    }
+
+    @Test
+    public void testExistingFileIsNotReplaced() throws Exception {
+        final Path file = directory.resolve("file.txt");
+        Files.writeString(file, "content");
+        assertThatThrownBy(() -> new X5Server(new Main(), file)).isInstanceOf(FileAlreadyExistsException.class);
+        assertThatThrownBy(() -> new X5Server(new Main(), socket)).isInstanceOf(FileAlreadyExistsException.class);
+        assertThat(file).hasContent("content");
+    }
+
+    @Test
+    public void testStaleSocketIsReplaced() throws Exception {
+        final Path stale = directory.resolve("stale.sock");
+        try (ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.bind(UnixDomainSocketAddress.of(stale));
+        }
+        assertThat(stale).exists();
+        new X5Server(new Main(), stale).close();
+        assertThat(stale).doesNotExist();
+    }
+
+    @Test
+    public void testSocketIsOnlyAccessibleToOwner() throws Exception {
+        assertThat(Files.getPosixFilePermissions(socket)).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(socket);
+        }
+    }
+
+    private String sample(String name) throws Exception {
+        return Path.of(getClass().getResource("/samples/" + name).toURI()).toString();
+    }
+
+    private int connect(InputStream stdin, String... args) throws Exception {
+        return X5Client.connect(
+            socket,
+            List.of(args),
+            Map.of(),
+            stdin,
+            new PrintStream(stdout, true, StandardCharsets.UTF_8),
+            new PrintStream(stderr, true, StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -201,7 +201,7 @@ class X5IntegTest {
         }
 
         @Override
-        protected X5File readPath(Path requestedPath, PasswordSupplier passwords) throws FileNotFoundException {
+        protected Path locate(Path requestedPath) {
             Path resolvedPath = samplesDirectory.resolve(requestedPath);
             if (Files.exists(resolvedPath) == false) {
                 final Path outputPath = outputDirectory.resolve(requestedPath);
@@ -209,6 +209,12 @@ class X5IntegTest {
                     resolvedPath = outputPath;
                 }
             }
+            return resolvedPath;
+        }
+
+        @Override
+        protected X5File readPath(Path requestedPath, PasswordSupplier passwords) throws FileNotFoundException {
+            final Path resolvedPath = locate(requestedPath);
             checkReadable(resolvedPath);
             return new ShadowedFile(resolvedPath, requestedPath, passwords);
         }
@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.adjective.x5.test.util;
+
+import java.nio.file.Path;
+
+import org.adjective.x5.io.RawFile;
+import org.adjective.x5.types.X509Certificate;
+
+public class Samples {
+
+    public static Path path(String name) throws Exception {
+        return Path.of(Samples.class.getResource("/samples/" + name).toURI());
+    }
+
+    public static X509Certificate certificate(String name) throws Exception {
+        return new RawFile(path(name), new EmptyPasswordSupplier()).asObject().as(X509Certificate.class).orElseThrow();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.adjective.x5.exception.DerParseException;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v1CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v1CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.junit.jupiter.api.Test;
+
+class CertificateHeaderTest {
+
+    @Test
+    public void testHeaderMatchesFullyDecodedCertificate() throws Exception {
+        for (String name : new String[] { "ca1.crt", "intermediate1.crt", "self-signed.crt", "server1.crt", "server2.crt" }) {
+            final byte[] encoded = pem(name);
+            assertMatches(encoded, new X509CertificateHolder(encoded));
+        }
+    }
+
+    @Test
+    public void testVersion1CertificateWithGeneralizedTime() throws Exception {
+        final KeyPair keyPair = keyPair();
+        final X500Name name = new X500Name("CN=Version 1,O=Example");
+        final Date notBefore = Date.from(Instant.parse("2021-06-01T00:00:00Z"));
+        final Date notAfter = Date.from(Instant.parse("2071-06-01T00:00:00Z"));
+        final X509v1CertificateBuilder builder = new JcaX509v1CertificateBuilder(
+            name,
+            BigInteger.valueOf(-42),
+            notBefore,
+            notAfter,
+            name,
+            keyPair.getPublic()
+        );
+        final X509CertificateHolder holder = builder.build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate()));
+        assertThat(holder.getVersionNumber()).isEqualTo(1);
+        assertMatches(holder.getEncoded(), holder);
+    }
+
+    @Test
+    public void testVersion3Certificate() throws Exception {
+        final KeyPair keyPair = keyPair();
+        final X500Name issuer = new X500Name("CN=Issuer,O=Example");
+        final X500Name subject = new X500Name("CN=Subject,O=Example");
+        final X509CertificateHolder holder = new JcaX509v3CertificateBuilder(
+            issuer,
+            new BigInteger("123456789012345678901234567890"),
+            Date.from(Instant.parse("2049-12-31T23:59:59Z")),
+            Date.from(Instant.parse("2050-01-01T00:00:00Z")),
+            subject,
+            keyPair.getPublic()
+        ).build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate()));
+        assertMatches(holder.getEncoded(), holder);
+    }
+
+    @Test
+    public void testTruncatedCertificateIsRejected() throws Exception {
+        final byte[] encoded = pem("ca1.crt");
+        assertThatThrownBy(() -> CertificateHeader.read(Arrays.copyOf(encoded, 100))).isInstanceOf(DerParseException.class);
+    }
+
+    private static void assertMatches(byte[] encoded, X509CertificateHolder holder) throws Exception {
+        final CertificateHeader header = CertificateHeader.read(encoded);
+        assertThat(header.serialNumber()).isEqualTo(holder.getSerialNumber());
+        assertThat(header.issuer()).isEqualTo(holder.getIssuer());
+        assertThat(header.subject()).isEqualTo(holder.getSubject());
+        assertThat(header.notBefore()).isEqualTo(holder.getNotBefore());
+        assertThat(header.notAfter()).isEqualTo(holder.getNotAfter());
+        assertThat(header.encoded()).isEqualTo(encoded);
+
+        final Extensions extensions = holder.getExtensions();
+        if (extensions != null) {
+            for (ASN1ObjectIdentifier oid : extensions.getExtensionOIDs()) {
+                assertThat(header.extensionValue(oid)).as(oid.getId()).isEqualTo(extensions.getExtension(oid).getExtnValue().getOctets());
+            }
+        }
+        assertThat(header.extensionValue(Extension.privateKeyUsagePeriod)).isNull();
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+
+    private byte[] pem(String name) throws Exception {
+        final Path path = Path.of(getClass().getResource("/samples/pem/" + name).toURI());
+        try (PemReader reader = new PemReader(Files.newBufferedReader(path))) {
+            return reader.readPemObject().getContent();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.adjective.x5.test.util.Samples.certificate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.X509Certificate;
+import org.junit.jupiter.api.Test;
+
+class ChainBuilderTest {
+
+    @Test
+    public void testBuildChainsFromUnorderedCertificates() throws Exception {
+        final X509Certificate root = certificate("pem/ca1.crt");
+        final X509Certificate intermediate = certificate("pem/intermediate1.crt");
+        final X509Certificate server1 = certificate("pem/server1.crt");
+        final X509Certificate server2 = certificate("pem/server2.crt");
+
+        final ChainBuilder builder = new ChainBuilder();
+        assertThat(builder.add(server2)).isTrue();
+        assertThat(builder.add(root)).isTrue();
+        assertThat(builder.add(server1)).isTrue();
+        assertThat(builder.add(intermediate)).isTrue();
+        assertThat(builder.add(certificate("pem/ca1.crt"))).isFalse();
+        assertThat(builder.size()).isEqualTo(4);
+
+        final List<CertificateChain> chains = builder.build();
+        assertThat(chains).hasSize(2);
+        assertThat(chains.get(0).certificates()).isEqualTo(List.of(server2, intermediate, root));
+        assertThat(chains.get(1).certificates()).isEqualTo(List.of(server1, root));
+    }
+
+    @Test
+    public void testChainStopsAtMissingIssuer() throws Exception {
+        final X509Certificate server2 = certificate("pem/server2.crt");
+        final X509Certificate server1 = certificate("pem/server1.crt");
+        final X509Certificate selfSigned = certificate("pem/self-signed.crt");
+
+        final ChainBuilder builder = new ChainBuilder();
+        builder.add(server2);
+        builder.add(server1);
+        builder.add(selfSigned);
+
+        final List<List<?>> chains = builder.build().stream().map(CertificateChain::certificates).collect(Collectors.toList());
+        assertThat(chains).containsExactly(List.of(server2), List.of(server1), List.of(selfSigned));
+    }
+
+    @Test
+    public void testEmptyBuilderHasNoChains() {
+        assertThat(new ChainBuilder().build()).isEmpty();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5Record;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.Algorithm;
+import org.adjective.x5.types.value.DN;
+import org.adjective.x5.types.value.RDN;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.junit.jupiter.api.Test;
+
+class DerX509CertificateTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+    private static final String[] SAMPLES = { "ca1.crt", "intermediate1.crt", "self-signed.crt", "server1.crt", "server2.crt" };
+
+    @Test
+    public void testPropertiesMatchFullyDecodedCertificate() throws Exception {
+        for (String name : SAMPLES) {
+            final byte[] encoded = pem(name);
+            final DerX509Certificate der = new DerX509Certificate(encoded, SOURCE);
+            final PemCertificate decoded = new PemCertificate(new X509CertificateHolder(encoded), SOURCE);
+
+            assertSameValue(name, decoded, der);
+            assertThat(der.encodedValue()).isEqualTo(encoded);
+            assertThat(der.publicKey().isEqualTo(decoded.publicKey())).as(name).isTrue();
+        }
+    }
+
+    @Test
+    public void testDecodedValuesAreKept() throws Exception {
+        final DerX509Certificate certificate = new DerX509Certificate(pem("server2.crt"), SOURCE);
+        assertThat(certificate.notBefore()).isSameAs(certificate.notBefore());
+        assertThat(certificate.notAfter()).isSameAs(certificate.notAfter());
+        assertThat(certificate.serialNumber()).isSameAs(certificate.serialNumber());
+        assertThat(certificate.signatureAlgorithm()).isSameAs(certificate.signatureAlgorithm());
+        assertThat(certificate.basicConstraints()).isSameAs(certificate.basicConstraints());
+    }
+
+    @Test
+    public void testNamesFromKeptValuesMatchDecodedNames() throws Exception {
+        for (String name : SAMPLES) {
+            final DerX509Certificate certificate = new DerX509Certificate(pem(name), SOURCE);
+            final DN subject = certificate.subject();
+            final DN issuer = certificate.issuer();
+            final X5Record subjectAlternativeName = certificate.subjectAlternativeName();
+
+            assertThat(certificate.subject().value()).as(name).isEqualTo(subject.value());
+            assertThat(certificate.subject().isEqualTo(subject)).as(name).isTrue();
+            assertThat(certificate.subject().rdnList()).as(name).map(RDN::value).isEqualTo(values(subject.rdnList()));
+            assertThat(certificate.issuer().value()).as(name).isEqualTo(issuer.value());
+            assertThat(certificate.issuer().leaf().value()).as(name).isEqualTo(issuer.leaf().value());
+            assertThat(certificate.subjectAlternativeName().description()).as(name).isEqualTo(subjectAlternativeName.description());
+        }
+    }
+
+    @Test
+    public void testConvertToJcaCertificate() throws Exception {
+        final byte[] encoded = pem("server1.crt");
+        final DerX509Certificate certificate = new DerX509Certificate(encoded, SOURCE);
+        final java.security.cert.Certificate jca = JCAConversion.certificate(certificate);
+        assertThat(jca.getEncoded()).isEqualTo(encoded);
+    }
+
+    @Test
+    public void testWritePem() throws Exception {
+        final DerX509Certificate certificate = new DerX509Certificate(pem("ca1.crt"), SOURCE);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        certificate.writeTo(out);
+        assertThat(out.toString(StandardCharsets.US_ASCII)).isEqualToIgnoringNewLines(Files.readString(sample("ca1.crt")));
+    }
+
+    private static List<String> values(List<RDN> rdnList) {
+        return rdnList.stream().map(RDN::value).collect(Collectors.toList());
+    }
+
+    private void assertSameValue(String description, X5Object expected, X5Object actual) throws Exception {
+        if (expected == null) {
+            assertThat(actual).as(description).isNull();
+            return;
+        }
+        assertThat(actual).as(description).isNotNull();
+        final Map<String, ? extends X5Object> expectedProperties = expected.properties();
+        if (expectedProperties.isEmpty()) {
+            if (expected instanceof Algorithm) {
+                // Algorithm equality compares OID instances, so compare the identifiers instead
+                assertThat(((Algorithm) actual).identifier()).as(description).isEqualTo(((Algorithm) expected).identifier());
+            } else {
+                assertThat(expected.isEqualTo(actual)).as(description).isTrue();
+            }
+            return;
+        }
+        final Map<String, ? extends X5Object> actualProperties = actual.properties();
+        assertThat(actualProperties.keySet()).as(description).containsExactlyElementsOf(expectedProperties.keySet());
+        for (String key : expectedProperties.keySet()) {
+            assertSameValue(description + " " + key, expectedProperties.get(key), actualProperties.get(key));
+        }
+    }
+
+    private Path sample(String name) throws Exception {
+        return Path.of(getClass().getResource("/samples/pem/" + name).toURI());
+    }
+
+    private byte[] pem(String name) throws Exception {
+        try (PemReader reader = new PemReader(Files.newBufferedReader(sample(name)))) {
+            return reader.readPemObject().getContent();
+        }
+    }
+}
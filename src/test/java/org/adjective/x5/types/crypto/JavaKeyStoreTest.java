@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.adjective.x5.test.util.Samples.certificate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.exception.CryptoStoreException;
+import org.adjective.x5.exception.UncheckedException;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.io.encrypt.CachedKeyDecryptor;
+import org.adjective.x5.io.encrypt.DerivedKeyCache;
+import org.adjective.x5.io.encrypt.JksEncryptionInfo;
+import org.adjective.x5.io.encrypt.Pkcs12EncryptionInfo;
+import org.adjective.x5.types.CertificateChain;
+import org.adjective.x5.types.KeyPair;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.types.X5Object;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.types.value.OID;
+import org.adjective.x5.types.value.Password;
+import org.adjective.x5.util.ObjectIdentifiers;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+
+class JavaKeyStoreTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+
+    @Test
+    public void testEntryMetadataDoesNotRequireKeyDecryption() throws Exception {
+        final JavaKeyStore store = loadJks("wrong-password");
+
+        final List<StoreEntry> entries = store.entries();
+        assertThat(entries.stream().map(StoreEntry::name).collect(Collectors.toList())).containsExactlyInAnyOrder("dsa", "ec", "rsa");
+
+        final StoreEntry entry = entries.get(0);
+        assertThat(entry.properties().get("name").isEqualTo(entry.name())).isTrue();
+        assertThat(entry.properties().get("public")).isInstanceOf(CertificateChain.class);
+
+        assertThatThrownBy(entry::value).isInstanceOf(UncheckedException.class).hasCauseInstanceOf(CryptoStoreException.class);
+        assertThatThrownBy(() -> entry.properties().get("private")).isInstanceOf(UncheckedException.class);
+    }
+
+    @Test
+    public void testEntryValueIsDecryptedOnDemand() throws Exception {
+        final JavaKeyStore store = loadJks("jks-keystore");
+        for (StoreEntry entry : store.entries()) {
+            assertThat(entry.value()).isInstanceOf(KeyPair.class);
+            assertThat(entry.value()).isSameAs(entry.value());
+            assertThat(((KeyPair) entry.value()).privateCredential()).isSameAs(entry.properties().get("private"));
+        }
+    }
+
+    @Test
+    public void testKeyEntryAttributesAreReadWithKey() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/multiple-keys.p12", "sample-keystore");
+        final JavaKeyStore store = new JavaKeyStore(keyStore, SOURCE, encryption("sample-keystore"));
+        for (StoreEntry entry : store.entries()) {
+            assertThat(entry.properties().get("Friendly Name (PKCS#9)").isEqualTo(entry.name())).isTrue();
+            assertThat(entry.properties().get("private")).isNotNull();
+        }
+    }
+
+    @Test
+    public void testKeyEntryAttributesReportWrongPassword() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/multiple-keys.p12", "sample-keystore");
+        final JavaKeyStore store = new JavaKeyStore(keyStore, SOURCE, encryption("wrong-password"));
+        final StoreEntry entry = store.entries().get(0);
+        assertThat(entry.properties().get("public")).isNotNull();
+        assertThatThrownBy(() -> entry.properties().get("Friendly Name (PKCS#9)")).isInstanceOf(UncheckedException.class)
+            .hasCauseInstanceOf(CryptoStoreException.class);
+        assertThatThrownBy(() -> entry.properties().keySet()).isInstanceOf(UncheckedException.class)
+            .hasCauseInstanceOf(CryptoStoreException.class);
+        assertThatThrownBy(entry::value).isInstanceOf(UncheckedException.class).hasCauseInstanceOf(CryptoStoreException.class);
+    }
+
+    @Test
+    public void testPrivateKeyWithoutCertificateChain() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/no-chain.p12", "no-chain");
+        final JavaKeyStore store = new JavaKeyStore(keyStore, SOURCE, encryption("no-chain"));
+        final StoreEntry entry = store.findEntry("no-chain").orElseThrow();
+        assertThat(entry.certificate()).isEmpty();
+        assertThat(entry.value()).isInstanceOf(JavaPrivateKey.class).isSameAs(entry.properties().get("private"));
+        assertThat(entry.properties().keySet()).containsExactly("name", "value", "private", "public");
+
+        final JavaKeyStore wrongPassword = new JavaKeyStore(keyStore, SOURCE, encryption("wrong-password"));
+        final StoreEntry failed = wrongPassword.findEntry("no-chain").orElseThrow();
+        assertThatThrownBy(failed::value).isInstanceOf(UncheckedException.class).hasCauseInstanceOf(CryptoStoreException.class);
+    }
+
+    @Test
+    public void testPkcs12KeyBagAttributesAreReadWithoutDecryption() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/multiple-keys.p12", "sample-keystore");
+        final Pkcs12KeyStore store = pkcs12(keyStore, "keystore/multiple-keys.p12", "wrong-password", Optional.empty());
+        final KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection("sample-keystore".toCharArray());
+        for (StoreEntry entry : store.entries()) {
+            final KeyStore.Entry decrypted = keyStore.getEntry(entry.name(), protection);
+            assertThat(decrypted.getAttributes()).isNotEmpty();
+            final Map<String, ? extends X5Object> properties = entry.properties();
+            assertThat(properties.keySet()).hasSize(4 + decrypted.getAttributes().size()).doesNotContain("attributes");
+            for (KeyStore.Entry.Attribute attribute : decrypted.getAttributes()) {
+                final String name = ObjectIdentifiers.name(new OID(attribute.getName(), SOURCE)).orElseThrow();
+                assertThat(properties.get(name).isEqualTo(attribute.getValue())).as(name).isTrue();
+            }
+            assertThatThrownBy(entry::value).isInstanceOf(UncheckedException.class).hasCauseInstanceOf(CryptoStoreException.class);
+        }
+    }
+
+    @Test
+    public void testPkcs12KeysAreDecryptedWithTheKeyCache() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/multiple-keys.p12", "sample-keystore");
+        final KeyStore.PasswordProtection protection = new KeyStore.PasswordProtection("sample-keystore".toCharArray());
+        try (DerivedKeyCache cache = new DerivedKeyCache()) {
+            final Optional<CachedKeyDecryptor> decryptor = Optional.of(new CachedKeyDecryptor(cache, new BouncyCastleProvider()));
+            // The second read of the file uses the keys that were derived for the first
+            for (int i = 1; i <= 2; i++) {
+                final Pkcs12KeyStore store = pkcs12(keyStore, "keystore/multiple-keys.p12", "sample-keystore", decryptor);
+                for (StoreEntry entry : store.entries()) {
+                    final KeyStore.Entry expected = keyStore.getEntry(entry.name(), protection);
+                    final JavaPrivateKey key = (JavaPrivateKey) entry.properties().get("private");
+                    assertThat(key.key()).isEqualTo(((KeyStore.PrivateKeyEntry) expected).getPrivateKey());
+                }
+                assertThat(cache.misses()).isEqualTo(3);
+                assertThat(cache.hits()).isEqualTo(3 * (i - 1));
+            }
+
+            final Pkcs12KeyStore wrongPassword = pkcs12(keyStore, "keystore/multiple-keys.p12", "wrong-password", decryptor);
+            for (StoreEntry entry : wrongPassword.entries()) {
+                assertThatThrownBy(entry::value).isInstanceOf(UncheckedException.class).hasCauseInstanceOf(CryptoStoreException.class);
+            }
+        }
+    }
+
+    @Test
+    public void testAddedEntriesAreAppendedToExistingView() throws Exception {
+        final JavaKeyStore store = loadJks("jks-keystore");
+        final StoreEntry rsa = store.findEntry("rsa").orElseThrow();
+        final StoreEntry ec = store.findEntry("ec").orElseThrow();
+        final X509Certificate certificate = certificate("pem/ca1.crt");
+
+        store.addEntry(new BasicStoreEntry(store, "ca", certificate), Optional.empty());
+        assertThat(store.entries().stream().map(StoreEntry::name).collect(Collectors.toList())).containsExactlyInAnyOrder(
+            "dsa",
+            "ec",
+            "rsa",
+            "ca"
+        );
+        assertThat(store.findEntry("rsa")).containsSame(rsa);
+        assertThat(store.findEntry("ca").orElseThrow().value().isEqualTo(certificate)).isTrue();
+        assertThat(store.findByFingerprint(Digest.sha256(certificate.encodedValue()))).hasSize(1);
+
+        // Replacing an existing entry
+        final StoreEntry ca = store.findEntry("ca").orElseThrow();
+        final X509Certificate replacement = certificate("pem/server1.crt");
+        store.addEntry(new BasicStoreEntry(store, "ca", replacement), Optional.empty());
+        assertThat(store.entries()).hasSize(4).doesNotContain(ca).contains(rsa, ec);
+        assertThat(store.findEntry("ca").orElseThrow().value().isEqualTo(replacement)).isTrue();
+        assertThat(store.findByFingerprint(Digest.sha256(certificate.encodedValue()))).isEmpty();
+        assertThat(store.findByFingerprint(Digest.sha256(replacement.encodedValue()))).hasSize(1);
+    }
+
+    @Test
+    public void testReplacingAnEntryWithDifferentCaseMatchesKeyStoreAlias() throws Exception {
+        final KeyStore keyStore = load("PKCS12", "keystore/multiple-keys.p12", "sample-keystore");
+        final JavaKeyStore store = new JavaKeyStore(keyStore, SOURCE, encryption("sample-keystore"));
+        final X509Certificate certificate = certificate("pem/ca1.crt");
+        final X509Certificate replacement = certificate("pem/server1.crt");
+        store.entries();
+
+        store.addEntry(new BasicStoreEntry(store, "ca", certificate), Optional.empty());
+        assertThat(store.findByFingerprint(Digest.sha256(certificate.encodedValue()))).hasSize(1);
+        store.addEntry(new BasicStoreEntry(store, "CA", replacement), Optional.empty());
+
+        assertThat(keyStore.size()).isEqualTo(4);
+        final List<String> aliases = Collections.list(keyStore.aliases());
+        assertThat(store.entries().stream().map(StoreEntry::name).collect(Collectors.toList())).containsExactlyElementsOf(aliases);
+        assertThat(store.findEntry("ca").orElseThrow().value().isEqualTo(replacement)).isTrue();
+        assertThat(store.findByFingerprint(Digest.sha256(certificate.encodedValue()))).isEmpty();
+        assertThat(store.findByFingerprint(Digest.sha256(replacement.encodedValue()))).hasSize(1);
+    }
+
+    private JavaKeyStore loadJks(String password) throws Exception {
+        final KeyStore keyStore = load("JKS", "keystore/multiple-keys.jks", null);
+        return new JavaKeyStore(keyStore, SOURCE, encryption(password));
+    }
+
+    private JksEncryptionInfo encryption(String password) {
+        return new JksEncryptionInfo(SOURCE, new Password(password, SOURCE));
+    }
+
+    private Pkcs12KeyStore pkcs12(KeyStore keyStore, String name, String password, Optional<CachedKeyDecryptor> decryptor)
+        throws Exception {
+        final Pkcs12Contents contents = Pkcs12Contents.read(Files.readAllBytes(sample(name)), SOURCE, decryptor);
+        final Pkcs12EncryptionInfo encryption = new Pkcs12EncryptionInfo(SOURCE, contents.macAlgorithm(), new Password(password, SOURCE));
+        return new Pkcs12KeyStore(keyStore, contents, SOURCE, encryption);
+    }
+
+    private KeyStore load(String type, String name, String password) throws Exception {
+        final KeyStore keyStore = KeyStore.getInstance(type);
+        try (InputStream in = Files.newInputStream(sample(name))) {
+            keyStore.load(in, password == null ? null : password.toCharArray());
+        }
+        return keyStore;
+    }
+
+    private Path sample(String name) throws Exception {
+        return Path.of(getClass().getResource("/samples/" + name).toURI());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+
+import org.adjective.x5.test.util.Samples;
+import org.adjective.x5.types.X5StreamInfo;
+import org.adjective.x5.util.Values;
+import org.bouncycastle.pkcs.PKCS12PfxPdu;
+import org.junit.jupiter.api.Test;
+
+class Pkcs12ContentsTest {
+
+    private static final X5StreamInfo SOURCE = Values.source("test");
+
+    @Test
+    public void testSkimmedContentsMatchDecodedPfx() throws Exception {
+        for (String name : new String[] { "multiple-keys.p12", "no-chain.p12", "simple.p12" }) {
+            final byte[] encoded = Files.readAllBytes(Samples.path("keystore/" + name));
+            final PKCS12PfxPdu pfx = new PKCS12PfxPdu(encoded);
+            final Pkcs12Contents skimmed = Pkcs12Contents.read(encoded, SOURCE, Optional.empty());
+            final Pkcs12Contents decoded = Pkcs12Contents.of(pfx, SOURCE, Optional.empty());
+
+            assertThat(skimmed.macAlgorithm()).as(name).isEqualTo(pfx.getMacAlgorithmID().getAlgorithm());
+            assertThat(decoded.macAlgorithm()).as(name).isEqualTo(skimmed.macAlgorithm());
+
+            final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(new ByteArrayInputStream(encoded), null);
+            for (String alias : Collections.list(keyStore.aliases())) {
+                final Optional<Set<KeyStore.Entry.Attribute>> attributes = skimmed.keyBagAttributes(alias);
+                assertThat(attributes).as(name + ":" + alias).isPresent().isEqualTo(decoded.keyBagAttributes(alias));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.types.crypto;
+
+import static org.adjective.x5.test.util.Samples.certificate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.adjective.x5.exception.DuplicateEntryException;
+import org.adjective.x5.io.Digest;
+import org.adjective.x5.types.StoreEntry;
+import org.adjective.x5.types.X509Certificate;
+import org.adjective.x5.util.Values;
+import org.junit.jupiter.api.Test;
+
+class SimpleKeyStoreTest {
+
+    @Test
+    public void testFindEntries() throws Exception {
+        final X509Certificate ca = certificate("pem/ca1.crt");
+        final X509Certificate server1 = certificate("pem/server1.crt");
+        final X509Certificate server2 = certificate("pem/server2.crt");
+
+        final SimpleKeyStore store = new SimpleKeyStore(Values.source("test"));
+        store.addEntry(new BasicStoreEntry(store, "ca", ca), Optional.empty());
+        store.addEntry(new BasicStoreEntry(store, "server1", server1), Optional.empty());
+
+        assertThat(store.findEntry("ca").map(StoreEntry::value)).containsSame(ca);
+        assertThat(store.findEntry("server2")).isEmpty();
+        assertThat(names(store.findByFingerprint(Digest.sha256(server1.encodedValue())))).containsExactly("server1");
+        assertThat(names(store.findBySubject(ca.subject()))).containsExactly("ca");
+
+        // Added after the certificate indexes are built
+        store.addEntry(new BasicStoreEntry(store, "server2", server2), Optional.empty());
+        assertThat(store.findEntry("server2").map(StoreEntry::value)).containsSame(server2);
+        assertThat(names(store.findByFingerprint(Digest.sha256(server2.encodedValue())))).containsExactly("server2");
+        assertThat(names(store.findBySubject(server1.subject()))).containsExactly("server1", "server2");
+
+        assertThat(store.findByFingerprint(new byte[32])).isEmpty();
+    }
+
+    @Test
+    public void testDuplicateNamesAreRejected() throws Exception {
+        final SimpleKeyStore store = new SimpleKeyStore(Values.source("test"));
+        store.addEntry(new BasicStoreEntry(store, "ca", certificate("pem/ca1.crt")), Optional.empty());
+        assertThatThrownBy(() -> store.addEntry(new BasicStoreEntry(store, "ca", certificate("pem/server1.crt")), Optional.empty()))
+            .isInstanceOf(DuplicateEntryException.class);
+    }
+
+    private static List<String> names(List<StoreEntry> entries) {
+        return entries.stream().map(StoreEntry::name).collect(Collectors.toList());
+    }
+}
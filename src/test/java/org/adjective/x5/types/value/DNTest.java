@@ -14,6 +14,7 @@
 package org.adjective.x5.types.value;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.Collection;
 import java.util.List;
@@ -23,6 +24,9 @@ import org.adjective.x5.exception.DnParseException;
 import org.adjective.x5.types.X5StreamInfo;
 import org.adjective.x5.util.Values;
 import org.assertj.core.api.ObjectAssert;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.RFC4519Style;
 import org.junit.jupiter.api.Test;
 
 class DNTest {
@@ -111,6 +115,13 @@ class DNTest {
         assertParsing("CN=Before\\0dAfter,DC=example,DC=net", "cn", "Before\rAfter", "dc", "example", "dc", "net");
     }
 
+    @Test
+    public void testInvalidEscapeSequences() {
+        assertThatThrownBy(() -> DN.parse("cn=bad\\zz,dc=example", SOURCE)).isInstanceOf(DnParseException.class);
+        assertThatThrownBy(() -> DN.parse("cn=bad\\4", SOURCE)).isInstanceOf(DnParseException.class);
+        assertThatThrownBy(() -> DN.parse("cn=unterminated\\", SOURCE)).isInstanceOf(DnParseException.class);
+    }
+
     private void assertParsing(String dnString, String... parts) throws DnParseException {
         final DN dn = DN.parse(dnString, SOURCE);
         assertThat(
@@ -123,6 +134,64 @@ class DNTest {
         ).containsExactly(parts);
     }
 
+    @Test
+    public void testAttributeValueAssertionText() throws DnParseException {
+        final DN dn = DN.parse("cn=name+mail=name@example.net,dc=example", SOURCE);
+        assertThat(dn.leaf().getAttributes().stream().map(AVA::value)).containsExactly("cn=name", "mail=name@example.net");
+        assertThat(dn.root().getAttributes().stream().map(AVA::value)).containsExactly("dc=example");
+    }
+
+    @Test
+    public void testConstructFromX500Name() throws Exception {
+        assertConstruction("CN=server,DC=example,DC=net");
+        assertConstruction("CN=Intermediate CA,OU=security,DC=example,DC=net");
+        assertConstruction("CN=Smith\\, John+UID=jsmith,OU=People\\+Staff,O=\"Example, Inc.\",L=Sydney,ST=NSW,C=AU");
+        assertConstruction("CN=\\#hash\\ ,E=person@example.net,TelephoneNumber=555 1234");
+        assertConstruction("CN=Before\\0dAfter,1.2.3.4=#04024869");
+
+        final DN dn = DN.of(new X500Name("CN=server,E=person@example.net,DC=example"), SOURCE);
+        assertThat(dn.leaf().getAttributes()).singleElement().matches(a -> a.getAttributeId().orElseThrow().isEqualTo(BCStyle.DC.getId()));
+        assertThat(dn.root().getAttributes()).singleElement().matches(a -> a.getAttributeId().orElseThrow().isEqualTo(BCStyle.CN.getId()));
+    }
+
+    private void assertConstruction(String name) throws Exception {
+        final X500Name x500 = new X500Name(name);
+        final DN direct = DN.of(x500, SOURCE);
+        final DN parsed = DN.parse(RFC4519Style.INSTANCE.toString(x500), SOURCE);
+
+        assertThat(direct.value()).isEqualTo(parsed.value());
+        assertThat(direct.isEqualTo(parsed)).isTrue();
+        assertThat(parsed.isEqualTo(direct)).isTrue();
+        assertThat(direct.rdnList()).hasSameSizeAs(parsed.rdnList());
+        for (int i = 0; i < direct.rdnList().size(); i++) {
+            final RDN directRdn = direct.rdnList().get(i);
+            final RDN parsedRdn = parsed.rdnList().get(i);
+            assertThat(directRdn.value()).isEqualTo(parsedRdn.value());
+            assertThat(directRdn.getAttributes().stream().map(AVA::value)).containsExactlyElementsOf(
+                parsedRdn.getAttributes().stream().map(AVA::value).collect(Collectors.toList())
+            );
+            assertThat(directRdn.getAttributes().stream().map(ava -> List.of(ava.getAttributeName(), ava.getAttributeValue())))
+                .containsExactlyElementsOf(
+                    parsedRdn.getAttributes()
+                        .stream()
+                        .map(ava -> List.of(ava.getAttributeName(), ava.getAttributeValue()))
+                        .collect(Collectors.toList())
+                );
+            assertThat(directRdn.getAttributes()).allMatch(ava -> ava.getAttributeId().isPresent());
+        }
+    }
+
+    @Test
+    public void testIsEqualToConstructedName() throws Exception {
+        final DN server = DN.of(new X500Name("CN=server,OU=People\\+Staff,DC=example,DC=net"), SOURCE);
+        assertThat(server.isEqualTo(DN.of(new X500Name("CN=server,OU=People\\+Staff,DC=example,DC=net"), SOURCE))).isTrue();
+        assertThat(server.isEqualTo(DN.of(new X500Name("CN=server,OU=People\\+Staff,DC=example,DC=org"), SOURCE))).isFalse();
+        assertThat(server.isEqualTo(DN.of(new X500Name("CN=client,OU=People\\+Staff,DC=example,DC=net"), SOURCE))).isFalse();
+        assertThat(server.isEqualTo(DN.of(new X500Name("CN=server+UID=1,OU=People\\+Staff,DC=example,DC=net"), SOURCE))).isFalse();
+        assertThat(server.isEqualTo(DN.parse("dc=net,dc=example,ou=People\\+Staff,cn=server", SOURCE))).isTrue();
+        assertThat(server.isEqualTo(Values.string("dc=net,dc=example,ou=People\\+Staff,cn=server"))).isTrue();
+    }
+
     @Test
     public void testIsEqualToString() throws DnParseException {
         final DN sam = DN.parse("cn=sam,ou=people,dc=example,dc=com", SOURCE);
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.adjective.x5.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.adjective.x5.exception.DerParseException;
+import org.junit.jupiter.api.Test;
+
+class DerCursorTest {
+
+    @Test
+    public void testReadNestedElements() throws Exception {
+        // SEQUENCE { INTEGER 5, SEQUENCE { INTEGER -2 } }, INTEGER 300
+        final byte[] der = { 0x30, 0x08, 0x02, 0x01, 0x05, 0x30, 0x03, 0x02, 0x01, (byte) 0xFE, 0x02, 0x02, 0x01, 0x2C };
+        final DerCursor cursor = new DerCursor(der);
+
+        cursor.next(DerCursor.SEQUENCE);
+        assertThat(cursor.elementStart()).isEqualTo(0);
+        assertThat(cursor.elementEnd()).isEqualTo(10);
+
+        final DerCursor content = cursor.content();
+        content.next(DerCursor.INTEGER);
+        assertThat(content.integer()).isEqualTo(BigInteger.valueOf(5));
+        content.next(DerCursor.SEQUENCE);
+        assertThat(content.element()).containsExactly(0x30, 0x03, 0x02, 0x01, 0xFE);
+        final DerCursor inner = content.content();
+        inner.next(DerCursor.INTEGER);
+        assertThat(inner.integer()).isEqualTo(BigInteger.valueOf(-2));
+        assertThat(inner.hasNext()).isFalse();
+        assertThat(content.hasNext()).isFalse();
+
+        cursor.next(DerCursor.INTEGER);
+        assertThat(cursor.integer()).isEqualTo(BigInteger.valueOf(300));
+        assertThat(cursor.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testLongFormLength() throws Exception {
+        final byte[] der = new byte[4 + 200];
+        der[0] = 0x04;
+        der[1] = (byte) 0x82;
+        der[2] = 0x00;
+        der[3] = (byte) 200;
+        final DerCursor cursor = new DerCursor(der);
+        assertThat(cursor.next()).isEqualTo(0x04);
+        assertThat(cursor.elementEnd()).isEqualTo(der.length);
+        assertThat(cursor.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testInvalidElements() {
+        assertThatThrownBy(() -> new DerCursor(new byte[] { 0x30, 0x05, 0x02, 0x01 }).next()).isInstanceOf(DerParseException.class)
+            .hasMessageContaining("beyond the end");
+        assertThatThrownBy(() -> new DerCursor(new byte[] { 0x30, (byte) 0x80, 0x00, 0x00 }).next()).isInstanceOf(DerParseException.class)
+            .hasMessageContaining("Invalid length");
+        assertThatThrownBy(() -> new DerCursor(new byte[] { 0x02, 0x01, 0x00 }).next(DerCursor.SEQUENCE)).isInstanceOf(
+            DerParseException.class
+        ).hasMessageContaining("Expected tag 0x30 but found 0x02");
+        assertThatThrownBy(() -> new DerCursor(new byte[0]).next()).isInstanceOf(DerParseException.class);
+    }
+
+    @Test
+    public void testUtcTime() throws Exception {
+        assertThat(time(DerCursor.UTC_TIME, "491231235959Z")).isEqualTo(Instant.parse("2049-12-31T23:59:59Z"));
+        assertThat(time(DerCursor.UTC_TIME, "500101000000Z")).isEqualTo(Instant.parse("1950-01-01T00:00:00Z"));
+        assertThatThrownBy(() -> time(DerCursor.UTC_TIME, "5001010000Z")).isInstanceOf(DerParseException.class);
+        assertThatThrownBy(() -> time(DerCursor.UTC_TIME, "500101000000+1000")).isInstanceOf(DerParseException.class);
+        assertThatThrownBy(() -> time(DerCursor.UTC_TIME, "501301000000Z")).isInstanceOf(DerParseException.class);
+    }
+
+    @Test
+    public void testGeneralizedTime() throws Exception {
+        assertThat(time(DerCursor.GENERALIZED_TIME, "20500101120000Z")).isEqualTo(Instant.parse("2050-01-01T12:00:00Z"));
+        assertThat(time(DerCursor.GENERALIZED_TIME, "20500101120000.25Z")).isEqualTo(Instant.parse("2050-01-01T12:00:00.250Z"));
+        assertThatThrownBy(() -> time(DerCursor.GENERALIZED_TIME, "20500101120000")).isInstanceOf(DerParseException.class);
+        assertThatThrownBy(() -> time(DerCursor.GENERALIZED_TIME, "2050010112000AZ")).isInstanceOf(DerParseException.class);
+    }
+
+    private static Instant time(int tag, String value) throws DerParseException {
+        final byte[] content = value.getBytes(StandardCharsets.US_ASCII);
+        final byte[] der = new byte[content.length + 2];
+        der[0] = (byte) tag;
+        der[1] = (byte) content.length;
+        System.arraycopy(content, 0, der, 2, content.length);
+        final DerCursor cursor = new DerCursor(der);
+        cursor.next();
+        return Instant.ofEpochMilli(cursor.time());
+    }
+}
@@ -34,6 +34,16 @@ class ObjectComparatorTest {
         }
     }
 
+    @Test
+    public void testCompareValues() {
+        final X5StreamInfo source = Values.source("test");
+        assertThat(ObjectComparator.INSTANCE.compare(Values.number(9, source), Values.number(10, source))).isLessThan(0);
+        assertThat(ObjectComparator.INSTANCE.compare(Values.number(100, source), Values.number(10, source))).isGreaterThan(0);
+        assertThat(ObjectComparator.INSTANCE.compare(Values.string("b"), Values.string("a"))).isGreaterThan(0);
+        assertThat(ObjectComparator.INSTANCE.compare(Values.nullValue(source), Values.nullValue(source))).isEqualTo(0);
+        assertThat(ObjectComparator.INSTANCE.compare(Values.bool(true, source), Values.nullValue(source))).isLessThan(0);
+    }
+
     @Test
     public void testCompareSequences() {
         final X5StreamInfo source = Values.source("test");